@@ -0,0 +1,387 @@
+package com.team6.floodcoord.configuration;
+
+import com.team6.floodcoord.dto.FloodDischargeDTO;
+import com.team6.floodcoord.dto.TimeSeries;
+import com.team6.floodcoord.dto.WeatherForecastDTO;
+import com.team6.floodcoord.service.CacheService;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Serializer giá trị cache trên Redis.
+ *
+ * - binary: CacheService.CachedValue, WeatherForecastDTO và FloodDischargeDTO được ghi dạng nhị phân có kiểu
+ *   (không có tên class, TimeSeries: trục thời gian đều nhau chỉ lưu mốc đầu + bước, cột số ghi dạng varint);
+ *   các kiểu khác vẫn là JSON của jsonRedisSerializer, bọc trong cùng khung
+ * - Thân lớn hơn compressThreshold byte được nén Deflate (0 = không nén)
+ * - Luôn đọc được cả hai định dạng: giá trị JSON cũ (hoặc khi binary = false) vẫn giải mã bình thường
+ *
+ * Khung: MAGIC | flags | [độ dài gốc nếu nén] | thân
+ */
+public class CacheValueRedisSerializer implements RedisSerializer<Object> {
+
+    /** 0xFC không thể là byte đầu của JSON UTF-8 */
+    static final byte MAGIC = (byte) 0xFC;
+    private static final byte FLAG_DEFLATE = 0x01;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_ENVELOPE = 1;
+    private static final byte TAG_FORECAST = 2;
+    private static final byte TAG_FLOOD = 3;
+    private static final byte TAG_JSON = 4;
+
+    private static final byte TIME_REGULAR = 1;  // mốc đầu + bước
+    private static final byte TIME_DELTAS = 2;   // mốc đầu + hiệu từng mốc
+
+    private static final double DECIMAL_SCALE = 100.0;
+    /** Giữ giá trị đã nhân trong phạm vi double biểu diễn chính xác số nguyên */
+    private static final double MAX_SCALED = 1L << 52;
+
+    private final GenericJackson2JsonRedisSerializer json;
+    private final boolean binary;
+    private final int compressThreshold;
+
+    public CacheValueRedisSerializer(GenericJackson2JsonRedisSerializer json, boolean binary, int compressThreshold) {
+        this.json = json;
+        this.binary = binary;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!binary) {
+            return json.serialize(value);
+        }
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+            writeValue(new DataOutputStream(buffer), value);
+            return frame(buffer.toByteArray());
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return json.deserialize(bytes);
+        }
+        try {
+            return readValue(new DataInputStream(new ByteArrayInputStream(unframe(bytes))));
+        } catch (IOException | DataFormatException e) {
+            throw new SerializationException("Could not read cache value: " + e.getMessage(), e);
+        }
+    }
+
+    // ─── Khung + nén ───────────────────────────────────────────────────────────
+
+    private byte[] frame(byte[] body) {
+        if (compressThreshold > 0 && body.length >= compressThreshold) {
+            byte[] compressed = deflate(body);
+            if (compressed.length + 4 < body.length) {
+                byte[] framed = new byte[compressed.length + 6];
+                framed[0] = MAGIC;
+                framed[1] = FLAG_DEFLATE;
+                writeInt(framed, 2, body.length);
+                System.arraycopy(compressed, 0, framed, 6, compressed.length);
+                return framed;
+            }
+        }
+        byte[] framed = new byte[body.length + 2];
+        framed[0] = MAGIC;
+        System.arraycopy(body, 0, framed, 2, body.length);
+        return framed;
+    }
+
+    private static byte[] unframe(byte[] framed) throws DataFormatException {
+        if ((framed[1] & FLAG_DEFLATE) == 0) {
+            return Arrays.copyOfRange(framed, 2, framed.length);
+        }
+        int length = ((framed[2] & 0xFF) << 24) | ((framed[3] & 0xFF) << 16)
+                | ((framed[4] & 0xFF) << 8) | (framed[5] & 0xFF);
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(framed, 6, framed.length - 6);
+            byte[] body = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(body, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("truncated deflate stream");
+                }
+                read += n;
+            }
+            return body;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] body) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(body);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    // ─── Giá trị có kiểu ───────────────────────────────────────────────────────
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof CacheService.CachedValue envelope) {
+            out.writeByte(TAG_ENVELOPE);
+            out.writeLong(envelope.getFetchedAt());
+            out.writeLong(envelope.getSoftExpiresAt());
+            out.writeLong(envelope.getFetchMillis());
+            writeValue(out, envelope.getData());
+        } else if (value instanceof WeatherForecastDTO forecast) {
+            out.writeByte(TAG_FORECAST);
+            writeForecast(out, forecast);
+        } else if (value instanceof FloodDischargeDTO flood) {
+            out.writeByte(TAG_FLOOD);
+            writeFlood(out, flood);
+        } else {
+            byte[] bytes = json.serialize(value);
+            out.writeByte(TAG_JSON);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_ENVELOPE -> {
+                long fetchedAt = in.readLong();
+                long softExpiresAt = in.readLong();
+                long fetchMillis = in.readLong();
+                yield new CacheService.CachedValue(readValue(in), fetchedAt, softExpiresAt, fetchMillis);
+            }
+            case TAG_FORECAST -> readForecast(in);
+            case TAG_FLOOD -> readFlood(in);
+            case TAG_JSON -> {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                yield json.deserialize(bytes);
+            }
+            default -> throw new IOException("Unknown cache value tag " + tag);
+        };
+    }
+
+    private static void writeForecast(DataOutputStream out, WeatherForecastDTO forecast) throws IOException {
+        writeDouble(out, forecast.getLatitude());
+        writeDouble(out, forecast.getLongitude());
+        writeString(out, forecast.getTimezone());
+        writeSeries(out, forecast.getHourly());
+    }
+
+    private static WeatherForecastDTO readForecast(DataInputStream in) throws IOException {
+        WeatherForecastDTO forecast = new WeatherForecastDTO();
+        forecast.setLatitude(readDouble(in));
+        forecast.setLongitude(readDouble(in));
+        forecast.setTimezone(readString(in));
+        forecast.setHourly(readSeries(in));
+        return forecast;
+    }
+
+    private static void writeFlood(DataOutputStream out, FloodDischargeDTO flood) throws IOException {
+        writeDouble(out, flood.getLatitude());
+        writeDouble(out, flood.getLongitude());
+        writeString(out, flood.getTimezone());
+        writeSeries(out, flood.getDaily());
+    }
+
+    private static FloodDischargeDTO readFlood(DataInputStream in) throws IOException {
+        FloodDischargeDTO flood = new FloodDischargeDTO();
+        flood.setLatitude(readDouble(in));
+        flood.setLongitude(readDouble(in));
+        flood.setTimezone(readString(in));
+        flood.setDaily(readSeries(in));
+        return flood;
+    }
+
+    // ─── TimeSeries ────────────────────────────────────────────────────────────
+
+    private static void writeSeries(DataOutputStream out, TimeSeries series) throws IOException {
+        out.writeBoolean(series != null);
+        if (series == null) return;
+        out.writeBoolean(series.isDateOnly());
+        writeTimes(out, series.epochSeconds());
+        out.writeInt(series.columnNames().size());
+        for (String name : series.columnNames()) {
+            boolean integer = series.isIntegerColumn(name);
+            out.writeUTF(name);
+            out.writeBoolean(integer);
+            writeValues(out, series.values(name), integer);
+        }
+    }
+
+    private static TimeSeries readSeries(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        boolean dateOnly = in.readBoolean();
+        TimeSeries series = TimeSeries.of(readTimes(in), dateOnly);
+        int columns = in.readInt();
+        for (int c = 0; c < columns; c++) {
+            String name = in.readUTF();
+            boolean integer = in.readBoolean();
+            double[] values = readValues(in, series.size(), integer);
+            if (integer) series.integerColumn(name, values);
+            else series.column(name, values);
+        }
+        return series;
+    }
+
+    /** Trục thời gian của Open-Meteo cách đều nhau: chỉ lưu mốc đầu + bước; nếu không thì lưu hiệu từng mốc */
+    private static void writeTimes(DataOutputStream out, long[] times) throws IOException {
+        out.writeInt(times.length);
+        if (times.length == 0) return;
+        long step = times.length > 1 ? times[1] - times[0] : 0;
+        boolean regular = true;
+        for (int i = 2; i < times.length && regular; i++) {
+            regular = times[i] - times[i - 1] == step;
+        }
+        out.writeByte(regular ? TIME_REGULAR : TIME_DELTAS);
+        out.writeLong(times[0]);
+        if (regular) {
+            writeVarLong(out, zigzag(step));
+            return;
+        }
+        for (int i = 1; i < times.length; i++) {
+            writeVarLong(out, zigzag(times[i] - times[i - 1]));
+        }
+    }
+
+    private static long[] readTimes(DataInputStream in) throws IOException {
+        long[] times = new long[in.readInt()];
+        if (times.length == 0) return times;
+        byte mode = in.readByte();
+        times[0] = in.readLong();
+        switch (mode) {
+            case TIME_REGULAR -> {
+                long step = unzigzag(readVarLong(in));
+                for (int i = 1; i < times.length; i++) times[i] = times[i - 1] + step;
+            }
+            case TIME_DELTAS -> {
+                for (int i = 1; i < times.length; i++) times[i] = times[i - 1] + unzigzag(readVarLong(in));
+            }
+            default -> throw new IOException("Unknown time encoding " + mode);
+        }
+        return times;
+    }
+
+    /**
+     * Open-Meteo trả tối đa 2 chữ số thập phân: cột nào nhân 100 (cột số nguyên: giữ nguyên) ra số nguyên
+     * chính xác thì ghi varint (zigzag + 1, 0 = NaN), còn lại ghi thẳng double.
+     */
+    private static void writeValues(DataOutputStream out, double[] values, boolean integer) throws IOException {
+        double scale = integer ? 1.0 : DECIMAL_SCALE;
+        boolean scaled = true;
+        for (int i = 0; i < values.length && scaled; i++) {
+            scaled = Double.isNaN(values[i]) || isScalable(values[i], scale);
+        }
+        out.writeBoolean(scaled);
+        for (double v : values) {
+            if (scaled) {
+                writeVarLong(out, Double.isNaN(v) ? 0 : zigzag(Math.round(v * scale)) + 1);
+            } else {
+                out.writeDouble(v);
+            }
+        }
+    }
+
+    private static double[] readValues(DataInputStream in, int n, boolean integer) throws IOException {
+        double scale = integer ? 1.0 : DECIMAL_SCALE;
+        boolean scaled = in.readBoolean();
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (scaled) {
+                long v = readVarLong(in);
+                values[i] = v == 0 ? Double.NaN : unzigzag(v - 1) / scale;
+            } else {
+                values[i] = in.readDouble();
+            }
+        }
+        return values;
+    }
+
+    private static boolean isScalable(double v, double scale) {
+        double scaled = v * scale;
+        return Math.abs(scaled) < MAX_SCALED && Math.round(scaled) / scale == v;
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeDouble(value != null ? value : Double.NaN);
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        double v = in.readDouble();
+        return Double.isNaN(v) ? null : v;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
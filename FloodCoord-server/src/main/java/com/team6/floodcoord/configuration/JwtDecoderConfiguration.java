@@ -1,22 +1,30 @@
 package com.team6.floodcoord.configuration;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jwt.SignedJWT;
+import com.team6.floodcoord.event.AccessTokenRevokedEvent;
 import com.team6.floodcoord.service.JwtServiceImpl;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
 
 @Slf4j
 @Component
@@ -29,28 +37,56 @@ public class JwtDecoderConfiguration implements JwtDecoder {
     @Value("${jwt.secret-key}")
     private String secretKey;
 
+    /** Trần TTL của 1 token đã xác thực trong cache (thu hồi từ instance khác có hiệu lực sau tối đa chừng này) */
+    @Value("${jwt.verification-cache.max-ttl:PT1M}")
+    private Duration verificationCacheMaxTtl;
+
+    @Value("${jwt.verification-cache.max-size:10000}")
+    private long verificationCacheMaxSize;
+
     private final JwtServiceImpl jwtServiceImpl;
-    private NimbusJwtDecoder nimbusJwtDecoder;
+
+    // Chuyển claim sang kiểu Spring Security giống NimbusJwtDecoder (exp/iat -> Instant, ...)
+    private final MappedJwtClaimSetConverter claimSetConverter =
+            MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+
+    // token -> Jwt đã verify; mỗi entry hết hạn cùng lúc với token (hoặc sớm hơn theo max-ttl)
+    private Cache<String, Jwt> verifiedTokens;
 
     @PostConstruct
     public void init() {
         validateSecretKey();
 
-        try {
-            SecretKey key = new SecretKeySpec(
-                    secretKey.getBytes(StandardCharsets.UTF_8),
-                    JWT_ALGORITHM
-            );
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verificationCacheMaxSize)
+                .expireAfter(new Expiry<String, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(String token, Jwt jwt, long currentTime) {
+                        return remainingNanos(jwt);
+                    }
 
-            this.nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(key)
-                    .macAlgorithm(MacAlgorithm.HS512)
-                    .build();
+                    @Override
+                    public long expireAfterUpdate(String token, Jwt jwt, long currentTime, long currentDuration) {
+                        return remainingNanos(jwt);
+                    }
 
-            log.info("Jwt decoder successfully initialized with {} algorithm",JWT_ALGORITHM);
-        } catch (Exception e){
-            log.error("Failed to initialized JWT decoder", e);
-            throw new IllegalStateException("Failed to initialized JWT decoder");
+                    @Override
+                    public long expireAfterRead(String token, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        log.info("Jwt decoder successfully initialized with {} algorithm", JWT_ALGORITHM);
+    }
+
+    private long remainingNanos(Jwt jwt) {
+        if (jwt.getExpiresAt() == null) {
+            return verificationCacheMaxTtl.toNanos();
         }
+        Duration untilExpiry = Duration.between(Instant.now(), jwt.getExpiresAt());
+        Duration ttl = untilExpiry.compareTo(verificationCacheMaxTtl) < 0 ? untilExpiry : verificationCacheMaxTtl;
+        return Math.max(0, ttl.toNanos());
     }
 
     private void validateSecretKey(){
@@ -67,15 +103,32 @@ public class JwtDecoderConfiguration implements JwtDecoder {
         }
     }
 
+    /**
+     * One-pass decode: parse 1 lần, verify HMAC bằng verifier dùng chung, check blacklist,
+     * rồi dựng Jwt trực tiếp từ claim đã parse. Token đã verify được cache đến khi hết hạn,
+     * nên request tiếp theo với cùng token không parse / HMAC / gọi Redis lại.
+     */
     @Override
     public Jwt decode(String token) throws JwtException {
+        Jwt cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
-            if (!jwtServiceImpl.verifyToken(token))  {
+            SignedJWT signedJWT = SignedJWT.parse(token);
+            if (!JWSAlgorithm.HS512.equals(signedJWT.getHeader().getAlgorithm())) {
+                throw new JwtException("Unsupported JWT algorithm: " + signedJWT.getHeader().getAlgorithm());
+            }
+
+            if (!jwtServiceImpl.verifyToken(signedJWT, true))  {
                 log.warn("Token verification failed");
                 throw new JwtException("Invalid or expired jwt token");
             }
 
-            return nimbusJwtDecoder.decode(token);
+            Jwt jwt = toJwt(token, signedJWT);
+            verifiedTokens.put(token, jwt);
+            return jwt;
         } catch (ParseException e){
             log.error("Failed to parse JWT token", e);
             throw new JwtException("Failed to parse JWT token", e);
@@ -89,4 +142,18 @@ public class JwtDecoderConfiguration implements JwtDecoder {
             throw new JwtException("Unexpected error during JWT token decoding", e);
         }
     }
+
+    private Jwt toJwt(String token, SignedJWT signedJWT) throws ParseException {
+        Map<String, Object> claims = claimSetConverter.convert(signedJWT.getJWTClaimsSet().getClaims());
+        return Jwt.withTokenValue(token)
+                .headers(headers -> headers.putAll(signedJWT.getHeader().toJSONObject()))
+                .claims(c -> c.putAll(claims))
+                .build();
+    }
+
+    /** Logout trên instance này: bỏ token khỏi cache ngay, không chờ hết TTL */
+    @EventListener
+    public void onAccessTokenRevoked(AccessTokenRevokedEvent event) {
+        verifiedTokens.asMap().values().removeIf(jwt -> event.jwtId().equals(jwt.getId()));
+    }
 }
@@ -0,0 +1,70 @@
+package com.team6.floodcoord.configuration;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * WebClient dùng chung cho các API Open-Meteo (forecast, flood, archive).
+ *
+ * - Pool kết nối riêng, giới hạn số kết nối và thời gian chờ lấy kết nối
+ * - Connect timeout + response timeout cho từng lần gọi
+ * - Buffer đủ lớn cho response nhiều điểm (mặc định của WebClient chỉ 256KB)
+ */
+@Slf4j
+@Configuration
+public class OpenMeteoConfiguration {
+
+    @Value("${weather.open-meteo.client.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${weather.open-meteo.client.pending-acquire-timeout:PT5S}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${weather.open-meteo.client.max-idle-time:PT30S}")
+    private Duration maxIdleTime;
+
+    @Value("${weather.open-meteo.client.connect-timeout:PT3S}")
+    private Duration connectTimeout;
+
+    @Value("${weather.open-meteo.client.response-timeout:PT10S}")
+    private Duration responseTimeout;
+
+    @Value("${weather.open-meteo.client.max-in-memory-size:16MB}")
+    private DataSize maxInMemorySize;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider openMeteoConnectionProvider() {
+        return ConnectionProvider.builder("open-meteo")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(maxIdleTime)
+                .build();
+    }
+
+    @Bean
+    public WebClient openMeteoWebClient(WebClient.Builder builder, ConnectionProvider openMeteoConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(openMeteoConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout)
+                .compress(true);
+
+        log.info("Open-Meteo client: {} pooled connections, connect timeout {}, response timeout {}",
+                maxConnections, connectTimeout, responseTimeout);
+
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) maxInMemorySize.toBytes()))
+                .build();
+    }
+}
@@ -1,8 +1,16 @@
 package com.team6.floodcoord.configuration;
 
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.Delay;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.ClientResourcesBuilderCustomizer;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,14 +22,17 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Configuration
@@ -38,6 +49,24 @@ public class RedisConfiguration {
     @Value("${data.redis.ssl:false}")
     private boolean useSsl;
 
+    @Value("${data.redis.connect-timeout:PT2S}")
+    private Duration connectTimeout;
+
+    @Value("${data.redis.command-timeout:PT2S}")
+    private Duration commandTimeout;
+
+    @Value("${data.redis.shutdown-timeout:PT0.1S}")
+    private Duration shutdownTimeout;
+
+    @Value("${data.redis.reconnect.min-delay:PT0.1S}")
+    private Duration reconnectMinDelay;
+
+    @Value("${data.redis.reconnect.max-delay:PT5S}")
+    private Duration reconnectMaxDelay;
+
+    @Value("${data.redis.request-queue-size:10000}")
+    private int requestQueueSize;
+
     @Value("${weather.cache.ttl-minutes:30}")
     private long cacheTtlMinutes;
 
@@ -47,6 +76,12 @@ public class RedisConfiguration {
     @Value("${weather.cache.risk-ttl-minutes:15}")
     private long riskTtlMinutes;
 
+    @Value("${weather.cache.serializer.binary:true}")
+    private boolean binaryCacheValues;
+
+    @Value("${weather.cache.serializer.compress-threshold:1KB}")
+    private DataSize compressThreshold;
+
     @PostConstruct
     public void validateConfiguration(){
         if (!StringUtils.hasText(host)){
@@ -61,14 +96,45 @@ public class RedisConfiguration {
         log.info("Redis configuration validated - Host: {}, Port {}", host, port);
     }
 
+    /** Backoff giữa các lần reconnect; áp lên ClientResources của Spring Boot (giữ metric lettuce.command.*) */
+    @Bean
+    public ClientResourcesBuilderCustomizer redisReconnectDelay() {
+        return builder -> builder.reconnectDelay(
+                Delay.exponential(reconnectMinDelay, reconnectMaxDelay, 2, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Mọi lệnh (GET/SET/MGET/EVAL/SCAN...) đi chung 1 kết nối Lettuce multiplex, thread-safe, không cần pool:
+     * không có lệnh blocking (BLPOP...), MULTI hay executePipelined, vốn mới cần kết nối riêng.
+     * Ghi theo lo (CacheService.putAll) gửi các lệnh SET PX bất đồng bộ trên chính kết nối dùng chung này.
+     *
+     * - connect-timeout / command-timeout: lệnh treo quá hạn thì lỗi, CacheService rơi về API thay vì chờ
+     * - Mất kết nối: tự reconnect (backoff min-delay..max-delay); trong lúc đó lệnh bị từ chối ngay (REJECT_COMMANDS)
+     *   thay vì xếp hàng tới command-timeout
+     */
     @Bean
-    public LettuceConnectionFactory redisConnectionFactory() {
+    public LettuceConnectionFactory redisConnectionFactory(ClientResources lettuceClientResources) {
         RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration(host, port);
         if (StringUtils.hasText(password)) {
             redisConfig.setPassword(RedisPassword.of(password));
         }
 
-        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder();
+        ClientOptions clientOptions = ClientOptions.builder()
+                .autoReconnect(true)
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .requestQueueSize(requestQueueSize)
+                .socketOptions(SocketOptions.builder()
+                        .connectTimeout(connectTimeout)
+                        .keepAlive(true)
+                        .build())
+                .timeoutOptions(TimeoutOptions.enabled(commandTimeout))
+                .build();
+
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+                .clientResources(lettuceClientResources)
+                .clientOptions(clientOptions)
+                .commandTimeout(commandTimeout)
+                .shutdownTimeout(shutdownTimeout);
         if (useSsl) {
             builder.useSsl();
             log.info("Redis kết nối qua chế độ bảo mật SSL/TLS");
@@ -77,8 +143,12 @@ public class RedisConfiguration {
         }
 
         LettuceClientConfiguration clientConfig = builder.build();
+        log.info("Redis client: connect timeout {}, command timeout {}, reconnect {}..{}",
+                connectTimeout, commandTimeout, reconnectMinDelay, reconnectMaxDelay);
 
-        return new LettuceConnectionFactory(redisConfig, clientConfig);
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(redisConfig, clientConfig);
+        factory.setShareNativeConnection(true);
+        return factory;
     }
 
     @Bean
@@ -87,14 +157,29 @@ public class RedisConfiguration {
         template.setConnectionFactory(factory);
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
-        GenericJackson2JsonRedisSerializer jsonRedisSerializer =
-                new GenericJackson2JsonRedisSerializer();
-        template.setValueSerializer(jsonRedisSerializer);
-        template.setHashValueSerializer(jsonRedisSerializer);
+        CacheValueRedisSerializer valueSerializer = new CacheValueRedisSerializer(
+                jsonRedisSerializer(), binaryCacheValues, (int) compressThreshold.toBytes());
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         template.afterPropertiesSet();
         return template;
     }
 
+    /** JSON kèm @class; hỗ trợ LocalDateTime (vd. RiskLevelDTO.evaluatedAt) dạng ISO-8601 */
+    public static GenericJackson2JsonRedisSerializer jsonRedisSerializer() {
+        return new GenericJackson2JsonRedisSerializer().configure(mapper -> mapper
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    }
+
+    /** Pub/sub listener container dùng chung (vd. đồng bộ blacklist access token giữa các instance) */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory factory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        return container;
+    }
+
     @Bean
     public CacheManager cacheManager(RedisConnectionFactory factory) {
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration
@@ -103,7 +188,7 @@ public class RedisConfiguration {
                 .serializeKeysWith(RedisSerializationContext.SerializationPair
                         .fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                        .fromSerializer(jsonRedisSerializer()))
                 .disableCachingNullValues();
 
         // Per-cache TTL overides
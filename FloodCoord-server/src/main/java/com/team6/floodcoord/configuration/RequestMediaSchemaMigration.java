@@ -0,0 +1,46 @@
+package com.team6.floodcoord.configuration;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schema changes for request_media that ddl-auto=update cannot make on an existing database.
+ *
+ * - media_url used to be NOT NULL; PENDING_UPLOAD rows are now saved before the file has a URL,
+ *   and ddl-auto=update never drops an existing NOT NULL
+ * - rows written before the upload pipeline have no upload_status / upload_attempts;
+ *   they were all uploaded inline, once
+ *
+ * Both statements are idempotent and run on every startup, after Hibernate has updated the schema.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestMediaSchemaMigration implements ApplicationRunner {
+
+    static final String DROP_MEDIA_URL_NOT_NULL =
+            "ALTER TABLE request_media ALTER COLUMN media_url DROP NOT NULL";
+
+    static final String BACKFILL_UPLOAD_STATUS =
+            "UPDATE request_media SET upload_status = 'UPLOADED', upload_attempts = COALESCE(upload_attempts, 1) " +
+                    "WHERE upload_status IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            jdbcTemplate.execute(DROP_MEDIA_URL_NOT_NULL);
+            int backfilled = jdbcTemplate.update(BACKFILL_UPLOAD_STATUS);
+            if (backfilled > 0) {
+                log.info("Backfilled upload_status = UPLOADED on {} existing request_media rows", backfilled);
+            }
+        } catch (Exception e) {
+            log.error("request_media schema migration failed: {}", e.getMessage());
+        }
+    }
+}
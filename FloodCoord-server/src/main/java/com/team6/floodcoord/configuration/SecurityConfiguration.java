@@ -2,6 +2,7 @@ package com.team6.floodcoord.configuration;
 
 import com.team6.floodcoord.model.User;
 import com.team6.floodcoord.repository.jpa.UserRepository;
+import com.team6.floodcoord.service.RescueRequestIdempotency;
 import com.team6.floodcoord.service.UserDetailServiceCustomizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +10,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
@@ -119,6 +121,8 @@ public class SecurityConfiguration {
                 "GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"
         ));
         configuration.setAllowedHeaders(List.of(ALLOWED_HEADERS_ALL));
+        // Web client đọc được thời gian chờ khi bị 429 và biết response là bản gửi lại
+        configuration.setExposedHeaders(List.of(HttpHeaders.RETRY_AFTER, RescueRequestIdempotency.REPLAYED_HEADER));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -3,6 +3,7 @@ package com.team6.floodcoord.controller;
 
 import com.team6.floodcoord.dto.request.UserRequest;
 import com.team6.floodcoord.dto.request.UserUpdateRequest;
+import com.team6.floodcoord.dto.response.CursorPageResponse;
 import com.team6.floodcoord.dto.response.RescueRequestSummaryResponse;
 import com.team6.floodcoord.dto.response.UserResponse;
 import com.team6.floodcoord.model.enums.RequestStatus;
@@ -72,6 +73,17 @@ public class AdminController {
         return ResponseEntity.ok(rescueRequestService.getAllRequestsForAdmin(status, pageable));
     }
 
+    @GetMapping("/requests/cursor")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Admin xem yêu cầu theo cursor (keyset), lọc theo trạng thái / mức độ khẩn cấp")
+    public ResponseEntity<CursorPageResponse<RescueRequestSummaryResponse>> getRequestQueue(
+            @RequestParam(required = false) RequestStatus status,
+            @RequestParam(required = false) String emergencyLevel,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(rescueRequestService.getRequestQueue(status, emergencyLevel, cursor, size));
+    }
+
     @GetMapping("/template")
     @Operation(summary = "Tải file Excel mẫu để import người dùng")
     public ResponseEntity<byte[]> downloadTemplate() {
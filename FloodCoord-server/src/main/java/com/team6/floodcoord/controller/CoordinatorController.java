@@ -3,9 +3,11 @@ package com.team6.floodcoord.controller;
 import com.team6.floodcoord.dto.request.AssignTaskRequest;
 import com.team6.floodcoord.dto.request.VerifyRequestDTO;
 import com.team6.floodcoord.dto.response.CompletedRequestDTO;
+import com.team6.floodcoord.dto.response.CursorPageResponse;
 import com.team6.floodcoord.dto.response.RescueRequestDetailResponse;
 import com.team6.floodcoord.dto.response.RescueRequestSummaryResponse;
 import com.team6.floodcoord.model.User;
+import com.team6.floodcoord.model.enums.RequestStatus;
 import com.team6.floodcoord.service.RescueRequestServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -37,6 +39,17 @@ public class CoordinatorController {
         return ResponseEntity.ok(requestService.getAllRescueRequests(pageable));
     }
 
+    @GetMapping("/rescue-requests/cursor")
+    @Operation(summary = "Hàng đợi yêu cầu cứu hộ phân trang theo cursor (mới nhất trước, không đếm tổng)")
+    public ResponseEntity<CursorPageResponse<RescueRequestSummaryResponse>> getRescueRequestQueue(
+            @RequestParam(required = false) RequestStatus status,
+            @RequestParam(required = false) String emergencyLevel,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return ResponseEntity.ok(requestService.getRequestQueue(status, emergencyLevel, cursor, size));
+    }
+
     @GetMapping("/rescue-requests/{id}")
     public RescueRequestDetailResponse getRescueRequestDetail(
             @PathVariable UUID id
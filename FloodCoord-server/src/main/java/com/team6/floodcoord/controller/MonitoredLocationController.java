@@ -0,0 +1,44 @@
+package com.team6.floodcoord.controller;
+
+import com.team6.floodcoord.dto.request.MonitoredLocationRequest;
+import com.team6.floodcoord.model.MonitoredLocation;
+import com.team6.floodcoord.service.MonitoredLocationService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/monitored-locations")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class MonitoredLocationController {
+
+    private final MonitoredLocationService locationService;
+
+    @GetMapping
+    @Operation(summary = "Danh sách điểm được theo dõi thời tiết / lũ định kỳ")
+    public ResponseEntity<List<MonitoredLocation>> getAll() {
+        return ResponseEntity.ok(locationService.getAllLocations());
+    }
+
+    @PostMapping
+    @Operation(summary = "Thêm điểm theo dõi mới")
+    public ResponseEntity<MonitoredLocation> create(@RequestBody MonitoredLocationRequest request) {
+        return ResponseEntity.ok(locationService.createLocation(request));
+    }
+
+    @PatchMapping("/{id}/active")
+    @Operation(summary = "Bật / tắt theo dõi một điểm")
+    public ResponseEntity<MonitoredLocation> setActive(@PathVariable Long id, @RequestParam boolean active) {
+        return ResponseEntity.ok(locationService.setActive(id, active));
+    }
+
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable Long id) {
+        locationService.deleteLocation(id);
+    }
+}
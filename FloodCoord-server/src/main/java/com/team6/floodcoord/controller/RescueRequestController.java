@@ -6,8 +6,11 @@ import com.team6.floodcoord.dto.response.CreateRequestResponse;
 import com.team6.floodcoord.dto.response.RescueRequestResponse;
 import com.team6.floodcoord.dto.response.RescueRequestSummaryResponse;
 import com.team6.floodcoord.model.User;
+import com.team6.floodcoord.service.RescueRequestIdempotency;
 import com.team6.floodcoord.service.RescueRequestService;
+import com.team6.floodcoord.service.SosRateLimiter;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -16,6 +19,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Slf4j
@@ -25,22 +29,55 @@ import java.util.UUID;
 public class RescueRequestController {
 
     private final RescueRequestService rescueRequestService;
+    private final SosRateLimiter sosRateLimiter;
+    private final RescueRequestIdempotency idempotency;
 
     /**
-     * CITIZEN tạo yêu cầu cứu hộ
+     * CITIZEN tạo yêu cầu cứu hộ.
+     * Gửi lại với cùng Idempotency-Key nhận lại đúng response lần đầu (không tính vào giới hạn tần suất);
+     * cùng key nhưng nội dung khác thì bị từ chối (422).
      */
     @PostMapping
     @Operation(summary = "Create rescue request with images")
     public ResponseEntity<?> createRescueRequest(
             @ModelAttribute CreateRescueRequestDTO dto,
-            @AuthenticationPrincipal User currentUser
+            @AuthenticationPrincipal User currentUser,
+            @RequestHeader(value = RescueRequestIdempotency.HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest
     ) {
         if (currentUser != null) {
             log.info("Create rescue request by user: {}", currentUser.getEmail());
         } else {
             log.info("Create rescue request by ANONYMOUS citizen");
         }
-        CreateRequestResponse response = rescueRequestService.createRescueRequest(dto, currentUser);
+
+        // Cùng số điện thoại mà service sẽ lưu vào hồ sơ
+        String contactPhone = dto.getContactPhone();
+        if ((contactPhone == null || contactPhone.isBlank()) && currentUser != null) {
+            contactPhone = currentUser.getPhoneNumber();
+        }
+        String client = RescueRequestIdempotency.client(contactPhone, httpRequest.getRemoteAddr());
+        String fingerprint = idempotencyKey != null ? RescueRequestIdempotency.fingerprint(dto, contactPhone) : null;
+
+        Optional<CreateRequestResponse> replayed = idempotency.claim(idempotencyKey, client, fingerprint);
+        if (replayed.isPresent()) {
+            log.info("Replaying rescue request {} for Idempotency-Key {}", replayed.get().getRequestId(), idempotencyKey);
+            return ResponseEntity
+                    .status(HttpStatus.CREATED)
+                    .header(RescueRequestIdempotency.REPLAYED_HEADER, "true")
+                    .body(replayed.get());
+        }
+
+        CreateRequestResponse response;
+        try {
+            // IP đã qua bước kiểm tra trước khi parse body (SosRateLimitFilter); lượt của IP và SĐT được trừ cùng lúc ở đây
+            sosRateLimiter.checkCreate(httpRequest.getRemoteAddr(), contactPhone);
+            response = rescueRequestService.createRescueRequest(dto, currentUser);
+        } catch (RuntimeException e) {
+            idempotency.release(idempotencyKey, client);
+            throw e;
+        }
+        idempotency.complete(idempotencyKey, client, fingerprint, response);
 
         return ResponseEntity
                 .status(HttpStatus.CREATED)
@@ -50,6 +87,7 @@ public class RescueRequestController {
     @GetMapping("/track")
     @Operation(summary = "Tra cứu trạng thái hồ sơ bằng mã Tracking Code")
     public ResponseEntity<RescueRequestResponse> trackRequest(@RequestParam String code) {
+        // Giới hạn theo IP đã được kiểm tra trong SosRateLimitFilter
         return ResponseEntity.ok(rescueRequestService.trackRequest(code));
     }
 
@@ -1,6 +1,8 @@
 package com.team6.floodcoord.controller;
 
+import com.team6.floodcoord.dto.Coord;
 import com.team6.floodcoord.dto.FloodDischargeDTO;
+import com.team6.floodcoord.dto.GridCell;
 import com.team6.floodcoord.dto.RiskLevelDTO;
 import com.team6.floodcoord.dto.WeatherCurrentDTO;
 import com.team6.floodcoord.dto.WeatherForecastDTO;
@@ -9,6 +11,7 @@ import com.team6.floodcoord.repository.jpa.WeatherSnapshotRepository;
 import com.team6.floodcoord.service.AlertService;
 import com.team6.floodcoord.service.CacheService;
 import com.team6.floodcoord.service.FloodService;
+import com.team6.floodcoord.service.MonitoredLocationService;
 import com.team6.floodcoord.service.WeatherService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -34,6 +37,7 @@ public class WeatherController {
     private final AlertService alertService;
     private final CacheService cacheService;
     private final WeatherSnapshotRepository snapshotRepository;
+    private final MonitoredLocationService monitoredLocationService;
 
     // ─── Weather endpoints ─────────────────────────────────────────────────────
 
@@ -88,18 +92,31 @@ public class WeatherController {
         return ResponseEntity.ok(alertService.evaluateRisk(lat, lon));
     }
 
+    /**
+     * GET /api/flood/risk/map
+     * Risk level for every active monitored location (map view).
+     * All cache misses are fetched with batched multi-location calls.
+     */
+    @GetMapping("/flood/risk/map")
+    public ResponseEntity<List<RiskLevelDTO>> getRiskMap() {
+        List<Coord> coords = monitoredLocationService.getActiveLocations().stream()
+                .map(l -> new Coord(l.getLatitude(), l.getLongitude()))
+                .toList();
+        return ResponseEntity.ok(alertService.evaluateRiskBatch(coords));
+    }
+
     // ─── History endpoints ─────────────────────────────────────────────────────
 
     /**
      * GET /api/weather/history?lat=10.82&lon=106.63
-     * Returns last 24 stored snapshots for trend analysis.
+     * Returns last 24 stored snapshots of the GridCell containing the point, for trend analysis.
      */
     @GetMapping("/weather/history")
     public ResponseEntity<List<WeatherSnapshot>> getHistory(
             @RequestParam double lat,
             @RequestParam double lon) {
         List<WeatherSnapshot> snapshots = snapshotRepository
-                .findTop24ByLatitudeAndLongitudeOrderByRecordedAtDesc(lat, lon);
+                .findLatestInCell(GridCell.of(lat, lon), 24);
         return ResponseEntity.ok(snapshots);
     }
 
@@ -138,19 +155,22 @@ public class WeatherController {
      * Evict all weather/flood caches. Use only when data integrity is suspected.
      */
     @DeleteMapping("/cache/evict/all")
-    public ResponseEntity<Map<String, String>> evictAll() {
-        cacheService.evictAll();
-        return ResponseEntity.ok(Map.of("status", "all caches evicted"));
+    public ResponseEntity<Map<String, Object>> evictAll() {
+        long evicted = cacheService.evictAll();
+        return ResponseEntity.ok(Map.of("status", "all caches evicted", "evicted", evicted));
     }
 
     /**
      * GET /api/cache/status
-     * Health check — confirms Redis is reachable.
+     * Health check — confirms Redis is reachable, plus L1/L2 hit/miss counters.
      */
     @GetMapping("/cache/status")
     public ResponseEntity<Map<String, Object>> cacheStatus() {
+        CacheService.RedisHealth redis = cacheService.redisHealth();
         return ResponseEntity.ok(Map.of(
-                "redisAvailable", cacheService.isRedisAvailable(),
+                "redisAvailable", redis.available(),
+                "redisLatencyMicros", redis.latencyMicros(),
+                "tiers", cacheService.stats(),
                 "checkedAt", LocalDateTime.now().toString()
         ));
     }
@@ -0,0 +1,12 @@
+package com.team6.floodcoord.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Độ mới của dữ liệu trả về từ CacheService.
+ *
+ * @param fetchedAt  thời điểm dữ liệu được lấy từ Open-Meteo
+ * @param ageSeconds tuổi của dữ liệu lúc trả về
+ * @param stale      true nếu đã quá TTL và đang được làm mới ở nền (hoặc API đang lỗi)
+ */
+public record CacheFreshness(LocalDateTime fetchedAt, long ageSeconds, boolean stale) {}
@@ -0,0 +1,10 @@
+package com.team6.floodcoord.dto;
+
+/**
+ * DTO được cache có thể mang thông tin độ mới trong response.
+ * Trả về bản sao nông để không sửa object đang nằm trong cache dùng chung.
+ */
+public interface CacheFreshnessAware<T> {
+
+    T withFreshness(CacheFreshness freshness);
+}
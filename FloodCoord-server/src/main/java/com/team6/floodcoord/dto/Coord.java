@@ -0,0 +1,19 @@
+package com.team6.floodcoord.dto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A point in decimal degrees (WGS84), used for batched weather / flood lookups.
+ */
+public record Coord(double latitude, double longitude) {
+
+    /** Comma-separated latitudes, as Open-Meteo expects for multi-location requests */
+    public static String joinLatitudes(List<Coord> coords) {
+        return coords.stream().map(c -> String.valueOf(c.latitude())).collect(Collectors.joining(","));
+    }
+
+    public static String joinLongitudes(List<Coord> coords) {
+        return coords.stream().map(c -> String.valueOf(c.longitude())).collect(Collectors.joining(","));
+    }
+}
@@ -1,62 +1,44 @@
 package com.team6.floodcoord.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
 import lombok.Data;
-
-import java.util.List;
+import lombok.NoArgsConstructor;
+import lombok.With;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class FloodDischargeDTO {
+public class FloodDischargeDTO implements CacheFreshnessAware<FloodDischargeDTO> {
+    public static final String RIVER_DISCHARGE = "river_discharge";
+    public static final String RIVER_DISCHARGE_MAX = "river_discharge_max";
+
     private Double latitude;
     private Double longitude;
     private String timezone;
 
+    /** river_discharge (m³/s), river_discharge_max (max ensemble - worst-case planning), river_discharge_median */
     @JsonProperty("daily")
-    private DailyBlock daily;
-
-    @Data
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public static class DailyBlock {
-        @JsonProperty("time")
-        private List<String> time;
-
-        /** River discharge in m³/s */
-        @JsonProperty("river_discharge")
-        private List<Double> riverDischarge;
-
-        /** Max ensemble discharge - useful for worst-case planning */
-        @JsonProperty("river_discharge_max")
-        private List<Double> riverDischargeMax;
-
-        /** Median discharge across ensemble members */
-        @JsonProperty("river_discharge_median")
-        private List<Double> riverDischargeMedian;
-    }
-
-    /** Convenience: returns today's discharge (first element) */
-    public Double getLatestDischarge() {
-        if (daily == null || daily.getRiverDischarge() == null
-                || daily.getRiverDischarge().isEmpty()) {
-            return 0.0;
-        }
-        return daily.getRiverDischarge().stream()
-                .filter(v -> v != null)
-                .findFirst()
-                .orElse(0.0);
+    private TimeSeries daily;
+
+    /** Set by CacheService on the way out, never stored in the cache */
+    @With
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(value = "freshness", access = JsonProperty.Access.READ_ONLY)
+    private CacheFreshness freshness;
+
+    /** Convenience: returns today's discharge (first valid value), 0 if none */
+    public double getLatestDischarge() {
+        double latest = daily != null ? daily.firstValid(RIVER_DISCHARGE) : Double.NaN;
+        return Double.isNaN(latest) ? 0.0 : latest;
     }
 
-    /** Convenience: max discharge over the forecast window */
-    public Double getMaxForecastDischarge() {
-        if(daily == null || daily.getRiverDischargeMax() == null
-                || daily.getRiverDischargeMax().isEmpty()) {
-            return 0.0;
-        }
-        return daily.getRiverDischargeMax().stream()
-                .filter(v -> v != null)
-                .mapToDouble(Double::doubleValue)
-                .max()
-                .orElse(0.0);
+    /** Convenience: max discharge over the forecast window, 0 if none */
+    public double getMaxForecastDischarge() {
+        double max = daily != null ? daily.max(RIVER_DISCHARGE_MAX) : Double.NaN;
+        return Double.isNaN(max) ? 0.0 : max;
     }
 }
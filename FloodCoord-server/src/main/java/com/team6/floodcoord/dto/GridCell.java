@@ -0,0 +1,87 @@
+package com.team6.floodcoord.dto;
+
+/**
+ * A 0.01° x 0.01° cell (~1.1 km), the unit shared by every weather / flood / risk cache key
+ * and by weather_snapshots rows. Open-Meteo forecast models (1-11 km) and GloFAS (~5 km)
+ * are coarser, so all points in a cell get the same answer and are fetched once, at the center.
+ *
+ * Cells are integer indices (degrees x 100, rounded half up), so there is no locale or
+ * "-0.00" vs "0.00" split, and keys are built without String.format.
+ */
+public record GridCell(int latIndex, int lonIndex) {
+
+    /** Cells per degree; keys render the index with 2 decimal places */
+    public static final int SCALE = 100;
+
+    public static GridCell of(double lat, double lon) {
+        return new GridCell(index(lat), index(lon));
+    }
+
+    public static GridCell of(Coord coord) {
+        return of(coord.latitude(), coord.longitude());
+    }
+
+    private static int index(double degrees) {
+        if (!Double.isFinite(degrees)) {
+            throw new IllegalArgumentException("Invalid coordinate: " + degrees);
+        }
+        return (int) Math.round(degrees * SCALE);
+    }
+
+    /** Center latitude; bit-identical to the 2-decimal literal (e.g. 10.82) */
+    public double latitude() {
+        return latIndex / (double) SCALE;
+    }
+
+    public double longitude() {
+        return lonIndex / (double) SCALE;
+    }
+
+    /** Cell edges: a point snaps to this cell iff minLatitude <= lat < maxLatitude (same for longitude) */
+    public double minLatitude() {
+        return (latIndex - 0.5) / SCALE;
+    }
+
+    public double maxLatitude() {
+        return (latIndex + 0.5) / SCALE;
+    }
+
+    public double minLongitude() {
+        return (lonIndex - 0.5) / SCALE;
+    }
+
+    public double maxLongitude() {
+        return (lonIndex + 0.5) / SCALE;
+    }
+
+    public Coord center() {
+        return new Coord(latitude(), longitude());
+    }
+
+    /** prefix + "lat:lon", e.g. "flood:discharge:" -> "flood:discharge:10.82:106.63" */
+    public String key(String prefix) {
+        return appendTo(new StringBuilder(prefix.length() + 16).append(prefix)).toString();
+    }
+
+    /** Same as key(prefix) with a ":suffix" (e.g. forecast days) */
+    public String key(String prefix, int suffix) {
+        return appendTo(new StringBuilder(prefix.length() + 20).append(prefix))
+                .append(':').append(suffix).toString();
+    }
+
+    private StringBuilder appendTo(StringBuilder sb) {
+        appendDegrees(sb, latIndex);
+        sb.append(':');
+        appendDegrees(sb, lonIndex);
+        return sb;
+    }
+
+    private static void appendDegrees(StringBuilder sb, int index) {
+        int abs = Math.abs(index);
+        if (index < 0) sb.append('-');
+        sb.append(abs / SCALE).append('.');
+        int hundredths = abs % SCALE;
+        if (hundredths < 10) sb.append('0');
+        sb.append(hundredths);
+    }
+}
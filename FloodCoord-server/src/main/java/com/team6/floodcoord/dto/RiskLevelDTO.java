@@ -1,10 +1,13 @@
 package com.team6.floodcoord.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.team6.floodcoord.model.enums.RiskLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.With;
 
 import java.time.LocalDateTime;
 
@@ -12,7 +15,7 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class RiskLevelDTO {
+public class RiskLevelDTO implements CacheFreshnessAware<RiskLevelDTO> {
     private Double latitude;
     private Double longitude;
     private RiskLevel riskLevel;
@@ -25,6 +28,15 @@ public class RiskLevelDTO {
     private  Double currentTemperature;
     private Double windSpeed;
 
+    /** false when weather or discharge data was unavailable; such results are not cached */
+    private boolean inputsComplete;
+
     private LocalDateTime evaluatedAt;
     private String cacheUntil;
+
+    /** Set by CacheService on the way out, never stored in the cache */
+    @With
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(value = "freshness", access = JsonProperty.Access.READ_ONLY)
+    private CacheFreshness freshness;
 }
@@ -0,0 +1,285 @@
+package com.team6.floodcoord.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chuỗi thời gian dạng cột của Open-Meteo (block "hourly" / "daily").
+ *
+ * - Mốc thời gian: epoch giây của giờ địa phương trong response (timezone của request), tính như UTC
+ * - Mỗi cột là double[] cùng độ dài với trục thời gian; thiếu giá trị (null trong JSON) = NaN
+ * - JSON giữ nguyên dạng của Open-Meteo: {"time": ["2026-10-18T07:00", ...], "temperature_2m": [24.3, ...]};
+ *   cột toàn số nguyên (vd. weather_code) được ghi lại thành số nguyên
+ *
+ * Mảng trả ra từ values() là mảng nội bộ, dùng chung với cache: chỉ đọc, không sửa.
+ */
+@JsonSerialize(using = TimeSeries.Serializer.class)
+@JsonDeserialize(using = TimeSeries.Deserializer.class)
+public final class TimeSeries {
+
+    public static final String TIME = "time";
+
+    private final long[] epochSeconds;
+    private final boolean dateOnly;
+    private final Map<String, double[]> columns = new LinkedHashMap<>();
+    private final Map<String, Boolean> integral = new LinkedHashMap<>();
+
+    private TimeSeries(long[] epochSeconds, boolean dateOnly) {
+        this.epochSeconds = epochSeconds;
+        this.dateOnly = dateOnly;
+    }
+
+    /** Trục giờ (dateOnly = false) hoặc trục ngày (dateOnly = true); thêm cột bằng column() / integerColumn() */
+    public static TimeSeries of(long[] epochSeconds, boolean dateOnly) {
+        return new TimeSeries(epochSeconds, dateOnly);
+    }
+
+    public TimeSeries column(String name, double[] values) {
+        return put(name, values, false);
+    }
+
+    public TimeSeries integerColumn(String name, double[] values) {
+        return put(name, values, true);
+    }
+
+    private TimeSeries put(String name, double[] values, boolean integer) {
+        if (TIME.equals(name)) {
+            throw new IllegalArgumentException("\"time\" is the time axis, not a column");
+        }
+        if (values.length != epochSeconds.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Column %s has %d values for %d timestamps", name, values.length, epochSeconds.length));
+        }
+        columns.put(name, values);
+        integral.put(name, integer);
+        return this;
+    }
+
+    public int size() {
+        return epochSeconds.length;
+    }
+
+    public boolean isDateOnly() {
+        return dateOnly;
+    }
+
+    public long[] epochSeconds() {
+        return epochSeconds;
+    }
+
+    public LocalDateTime timeAt(int index) {
+        return LocalDateTime.ofEpochSecond(epochSeconds[index], 0, ZoneOffset.UTC);
+    }
+
+    /** Chuỗi thời gian đúng định dạng Open-Meteo: "2026-10-18T07:00" hoặc "2026-10-18" */
+    public String formatTime(int index) {
+        return dateOnly ? timeAt(index).toLocalDate().toString() : timeAt(index).toString();
+    }
+
+    public Set<String> columnNames() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    public boolean isIntegerColumn(String name) {
+        return integral.getOrDefault(name, false);
+    }
+
+    /** @return mảng nội bộ của cột, null nếu response không có cột này */
+    public double[] values(String name) {
+        return columns.get(name);
+    }
+
+    /** Giá trị hợp lệ đầu tiên của cột, NaN nếu không có */
+    public double firstValid(String name) {
+        double[] values = columns.get(name);
+        if (values == null) return Double.NaN;
+        for (double v : values) {
+            if (!Double.isNaN(v)) return v;
+        }
+        return Double.NaN;
+    }
+
+    /** Giá trị lớn nhất của cột (bỏ qua NaN), NaN nếu không có */
+    public double max(String name) {
+        double[] values = columns.get(name);
+        if (values == null) return Double.NaN;
+        double max = Double.NaN;
+        for (double v : values) {
+            if (v > max || Double.isNaN(max)) max = v;
+        }
+        return max;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TimeSeries other)) return false;
+        if (dateOnly != other.dateOnly || !Arrays.equals(epochSeconds, other.epochSeconds)
+                || !columns.keySet().equals(other.columns.keySet()) || !integral.equals(other.integral)) {
+            return false;
+        }
+        for (Map.Entry<String, double[]> column : columns.entrySet()) {
+            if (!Arrays.equals(column.getValue(), other.columns.get(column.getKey()))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Arrays.hashCode(epochSeconds) * 31 + Boolean.hashCode(dateOnly);
+        for (Map.Entry<String, double[]> column : columns.entrySet()) {
+            hash = hash * 31 + column.getKey().hashCode() * 17 + Arrays.hashCode(column.getValue());
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSeries(size=" + size() + ", dateOnly=" + dateOnly + ", columns=" + columns.keySet() + ")";
+    }
+
+    // ─── JSON ──────────────────────────────────────────────────────────────────
+
+    static final class Serializer extends StdSerializer<TimeSeries> {
+
+        Serializer() {
+            super(TimeSeries.class);
+        }
+
+        @Override
+        public void serialize(TimeSeries series, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            writeFields(series, gen);
+            gen.writeEndObject();
+        }
+
+        /** Redis JSON serializer bật default typing: ghi kèm @class như mọi object khác */
+        @Override
+        public void serializeWithType(TimeSeries series, JsonGenerator gen, SerializerProvider provider,
+                                      TypeSerializer typeSer) throws IOException {
+            WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(series, JsonToken.START_OBJECT));
+            writeFields(series, gen);
+            typeSer.writeTypeSuffix(gen, typeId);
+        }
+
+        private static void writeFields(TimeSeries series, JsonGenerator gen) throws IOException {
+            gen.writeArrayFieldStart(TIME);
+            for (int i = 0; i < series.size(); i++) {
+                gen.writeString(series.formatTime(i));
+            }
+            gen.writeEndArray();
+            for (Map.Entry<String, double[]> column : series.columns.entrySet()) {
+                boolean integer = series.isIntegerColumn(column.getKey());
+                gen.writeArrayFieldStart(column.getKey());
+                for (double v : column.getValue()) {
+                    if (Double.isNaN(v)) gen.writeNull();
+                    else if (integer) gen.writeNumber((long) v);
+                    else gen.writeNumber(v);
+                }
+                gen.writeEndArray();
+            }
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<TimeSeries> {
+
+        Deserializer() {
+            super(TimeSeries.class);
+        }
+
+        @Override
+        public TimeSeries deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.START_OBJECT) {
+                p.nextToken();
+            }
+            long[] times = null;
+            boolean dateOnly = false;
+            Map<String, double[]> values = new LinkedHashMap<>();
+            Map<String, Boolean> integer = new LinkedHashMap<>();
+
+            for (; p.currentToken() == JsonToken.FIELD_NAME; p.nextToken()) {
+                String name = p.currentName();
+                JsonToken token = p.nextToken();
+                if (token != JsonToken.START_ARRAY) {
+                    p.skipChildren(); // trường lạ (không phải mảng) bị bỏ qua như @JsonIgnoreProperties
+                } else if (TIME.equals(name)) {
+                    String[] raw = ctxt.readValue(p, String[].class);
+                    dateOnly = raw.length > 0 && raw[0].indexOf('T') < 0;
+                    times = parseTimes(raw, dateOnly, ctxt);
+                } else {
+                    readColumn(p, name, values, integer);
+                }
+            }
+
+            TimeSeries series = of(times != null ? times : new long[0], dateOnly);
+            for (Map.Entry<String, double[]> column : values.entrySet()) {
+                try {
+                    series.put(column.getKey(), column.getValue(), integer.get(column.getKey()));
+                } catch (IllegalArgumentException e) {
+                    return ctxt.reportInputMismatch(TimeSeries.class, e.getMessage());
+                }
+            }
+            return series;
+        }
+
+        private static long[] parseTimes(String[] raw, boolean dateOnly, DeserializationContext ctxt) throws IOException {
+            long[] times = new long[raw.length];
+            try {
+                for (int i = 0; i < raw.length; i++) {
+                    times[i] = dateOnly
+                            ? LocalDate.parse(raw[i]).toEpochDay() * 86_400
+                            : LocalDateTime.parse(raw[i]).toEpochSecond(ZoneOffset.UTC);
+                }
+            } catch (RuntimeException e) {
+                return ctxt.reportInputMismatch(TimeSeries.class, "Invalid time value: " + e.getMessage());
+            }
+            return times;
+        }
+
+        private static void readColumn(JsonParser p, String name, Map<String, double[]> values,
+                                       Map<String, Boolean> integer) throws IOException {
+            double[] column = new double[64];
+            int n = 0;
+            boolean sawInt = false;
+            boolean sawFloat = false;
+            for (JsonToken t = p.nextToken(); t != JsonToken.END_ARRAY; t = p.nextToken()) {
+                if (n == column.length) column = Arrays.copyOf(column, n * 2);
+                switch (t) {
+                    case VALUE_NUMBER_INT -> {
+                        sawInt = true;
+                        column[n++] = p.getDoubleValue();
+                    }
+                    case VALUE_NUMBER_FLOAT -> {
+                        sawFloat = true;
+                        column[n++] = p.getDoubleValue();
+                    }
+                    default -> {
+                        p.skipChildren();
+                        column[n++] = Double.NaN;
+                    }
+                }
+            }
+            values.put(name, Arrays.copyOf(column, n));
+            integer.put(name, sawInt && !sawFloat);
+        }
+    }
+}
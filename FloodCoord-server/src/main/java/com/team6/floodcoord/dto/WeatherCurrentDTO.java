@@ -1,12 +1,18 @@
 package com.team6.floodcoord.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.With;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class WeatherCurrentDTO {
+public class WeatherCurrentDTO implements CacheFreshnessAware<WeatherCurrentDTO> {
     private Double latitude;
     private Double longitude;
     private String timezone;
@@ -14,6 +20,12 @@ public class WeatherCurrentDTO {
     @JsonProperty("current")
     private CurrentBlock current;
 
+    /** Set by CacheService on the way out, never stored in the cache */
+    @With
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(value = "freshness", access = JsonProperty.Access.READ_ONLY)
+    private CacheFreshness freshness;
+
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class CurrentBlock {
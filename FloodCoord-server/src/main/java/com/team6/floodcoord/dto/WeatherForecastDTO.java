@@ -1,49 +1,29 @@
 package com.team6.floodcoord.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
 import lombok.Data;
-
-import java.util.List;
+import lombok.NoArgsConstructor;
+import lombok.With;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class WeatherForecastDTO {
+public class WeatherForecastDTO implements CacheFreshnessAware<WeatherForecastDTO> {
     private Double latitude;
     private Double longitude;
     private String timezone;
 
+    /** Columns requested in WeatherService.fetchForecastFromAPI (temperature_2m, rain, wind_speed_10m, ...) */
     @JsonProperty("hourly")
-    private HourlyBlock hourly;
-
-    @Data
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public static class HourlyBlock {
-        @JsonProperty("temperature_2m")
-        private List<Double> temperature2m;
-
-        @JsonProperty("time")
-        private List<String> time;
-
-        @JsonProperty("relative_humidity_2m")
-        private List<Integer> relativeHumidity2m;
-
-        @JsonProperty("precipitation_probability")
-        private List<Integer> precipitationProbability;
-
-        @JsonProperty("precipitation")
-        private List<Double> precipitation;
-
-        @JsonProperty("rain")
-        private List<Double> rain;
-
-        @JsonProperty("wind_speed_10m")
-        private List<Double> windSpeed10m;
-
-        @JsonProperty("wind_gusts_10m")
-        private List<Double> windGusts10m;
+    private TimeSeries hourly;
 
-        @JsonProperty("weather_code")
-        private List<Integer> weatherCode;
-    }
+    /** Set by CacheService on the way out, never stored in the cache */
+    @With
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(value = "freshness", access = JsonProperty.Access.READ_ONLY)
+    private CacheFreshness freshness;
 }
@@ -0,0 +1,10 @@
+package com.team6.floodcoord.dto.request;
+
+import lombok.Data;
+
+@Data
+public class MonitoredLocationRequest {
+    private String name;
+    private Double latitude;
+    private Double longitude;
+}
@@ -0,0 +1,17 @@
+package com.team6.floodcoord.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+
+    // Truyền lại vào ?cursor= để lấy trang tiếp theo (null nếu là trang cuối)
+    private String nextCursor;
+}
@@ -1,5 +1,6 @@
 package com.team6.floodcoord.dto.response;
 
+import com.team6.floodcoord.model.enums.MediaUploadStatus;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -11,5 +12,9 @@ public class RequestMediaResponse {
     private String mediaType;
     private String mediaUrl;
     private LocalDateTime uploadedAt;
+
+    // Trạng thái upload nền (PENDING_UPLOAD / UPLOADED / FAILED) và số lần đã thử
+    private MediaUploadStatus uploadStatus;
+    private Integer uploadAttempts;
 }
 
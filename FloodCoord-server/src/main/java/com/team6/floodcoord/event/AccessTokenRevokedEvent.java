@@ -0,0 +1,6 @@
+package com.team6.floodcoord.event;
+
+/**
+ * Access token bị thu hồi (logout). Các cache token đã xác thực phải bỏ jwtId này ngay.
+ */
+public record AccessTokenRevokedEvent(String jwtId) {}
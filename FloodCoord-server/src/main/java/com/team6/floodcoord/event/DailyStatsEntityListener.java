@@ -0,0 +1,64 @@
+package com.team6.floodcoord.event;
+
+import com.team6.floodcoord.model.*;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Đánh dấu ngày cần dựng lại daily_stats khi các entity nguồn thay đổi.
+ * Không nạp thêm quan hệ lazy trong lúc flush: nếu request chưa được nạp thì bỏ qua,
+ * job compaction hằng đêm sẽ bù lại.
+ */
+@Component
+@RequiredArgsConstructor
+public class DailyStatsEntityListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostPersist
+    @PostRemove
+    public void afterInsertOrDelete(Object entity) {
+        if (entity instanceof User user) {
+            publish(user.getCreatedAt());
+        } else if (entity instanceof IncidentReport incident) {
+            publish(incident.getCreatedAt());
+        } else {
+            afterUpdate(entity);
+        }
+    }
+
+    @PostUpdate
+    public void afterUpdate(Object entity) {
+        if (entity instanceof RescueRequest request) {
+            publish(request.getCreatedAt(), request.getCompletedAt());
+        } else if (entity instanceof RequestSupply supply && isLoaded(supply.getRequest())) {
+            publish(supply.getRequest().getCreatedAt());
+        } else if (entity instanceof RescueReport report && isLoaded(report.getRequest())) {
+            publish(report.getRequest().getCompletedAt());
+        }
+    }
+
+    private boolean isLoaded(RescueRequest request) {
+        return request != null && Hibernate.isInitialized(request);
+    }
+
+    private void publish(LocalDateTime... timestamps) {
+        Set<LocalDate> days = new HashSet<>();
+        for (LocalDateTime ts : timestamps) {
+            if (ts != null) days.add(ts.toLocalDate());
+        }
+        if (!days.isEmpty()) {
+            publisher.publishEvent(new StatsDaysTouchedEvent(days));
+        }
+    }
+}
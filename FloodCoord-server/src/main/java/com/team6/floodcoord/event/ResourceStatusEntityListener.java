@@ -0,0 +1,48 @@
+package com.team6.floodcoord.event;
+
+import com.team6.floodcoord.model.RescueTeam;
+import com.team6.floodcoord.model.Supply;
+import com.team6.floodcoord.model.Vehicle;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * JPA entity listener cho RescueTeam / Vehicle / Supply: mọi thay đổi trạng thái (assignTask, releaseResources,
+ * xử lý sự cố, điểm danh, CRUD của admin...) đều đi qua đây, không cần sửa từng service.
+ *
+ * Event được publish trong lúc flush; các listener nên dùng @TransactionalEventListener
+ * để chỉ áp dụng sau khi transaction commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResourceStatusEntityListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostPersist
+    @PostUpdate
+    public void afterSave(Object entity) {
+        publish(entity, false);
+    }
+
+    @PostRemove
+    public void afterRemove(Object entity) {
+        publish(entity, true);
+    }
+
+    private void publish(Object entity, boolean removed) {
+        if (entity instanceof RescueTeam team) {
+            publisher.publishEvent(new TeamStatusChangedEvent(team.getId(), team.getStatus(), removed));
+        } else if (entity instanceof Vehicle vehicle) {
+            publisher.publishEvent(new VehicleStatusChangedEvent(vehicle.getId(), vehicle.getStatus(), removed));
+        } else if (entity instanceof Supply supply) {
+            publisher.publishEvent(new SupplyStockChangedEvent(List.of(supply.getId())));
+        }
+    }
+}
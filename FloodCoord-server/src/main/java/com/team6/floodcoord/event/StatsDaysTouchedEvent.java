@@ -0,0 +1,10 @@
+package com.team6.floodcoord.event;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Các ngày có số liệu dashboard bị ảnh hưởng bởi 1 thay đổi (tạo / hoàn thành / báo cáo request,
+ * user mới, sự cố mới, cấp phát vật tư...). DailyStatsService sẽ dựng lại rollup của các ngày này.
+ */
+public record StatsDaysTouchedEvent(Set<LocalDate> days) {}
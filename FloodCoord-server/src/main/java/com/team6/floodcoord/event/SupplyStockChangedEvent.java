@@ -0,0 +1,8 @@
+package com.team6.floodcoord.event;
+
+import java.util.Collection;
+
+/**
+ * Phát ra khi tồn kho / danh mục vật tư thay đổi (CRUD qua JPA hoặc batch UPDATE trừ / hoàn kho).
+ */
+public record SupplyStockChangedEvent(Collection<Long> supplyIds) {}
@@ -0,0 +1,9 @@
+package com.team6.floodcoord.event;
+
+import com.team6.floodcoord.model.enums.TeamStatus;
+
+/**
+ * Phát ra mỗi khi 1 RescueTeam được tạo / cập nhật / xóa.
+ * removed = true khi đội bị xóa (status là trạng thái cuối cùng trước khi xóa).
+ */
+public record TeamStatusChangedEvent(Long teamId, TeamStatus status, boolean removed) {}
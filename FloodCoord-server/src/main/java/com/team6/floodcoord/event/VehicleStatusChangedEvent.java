@@ -0,0 +1,9 @@
+package com.team6.floodcoord.event;
+
+import com.team6.floodcoord.model.enums.VehicleStatus;
+
+/**
+ * Phát ra mỗi khi 1 Vehicle được tạo / cập nhật / xóa.
+ * removed = true khi xe bị xóa (status là trạng thái cuối cùng trước khi xóa).
+ */
+public record VehicleStatusChangedEvent(Long vehicleId, VehicleStatus status, boolean removed) {}
@@ -0,0 +1,61 @@
+package com.team6.floodcoord.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bảng rollup số liệu dashboard theo ngày (và theo đội).
+ *
+ * - Dòng team_id = ALL_TEAMS: số liệu toàn hệ thống (admin / coordinator dashboard)
+ * - Dòng team_id = id đội: số liệu nhiệm vụ của đội (team leader dashboard)
+ *
+ * Được DailyStatsService dựng lại theo từng ngày từ bảng gốc, không sửa tay.
+ */
+@Entity
+@Table(name = "daily_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyStats {
+
+    public static final long ALL_TEAMS = 0L;
+
+    @EmbeddedId
+    private DailyStatsId id;
+
+    // ---- Toàn hệ thống ----
+    @Builder.Default
+    private long newUsers = 0;
+
+    @Builder.Default
+    private long requestsCreated = 0;
+
+    @Builder.Default
+    private long requestsResolved = 0;   // status = COMPLETED, theo ngày completedAt
+
+    @Builder.Default
+    private long incidentsCreated = 0;
+
+    @Builder.Default
+    private long suppliesExported = 0;   // tổng số lượng vật tư cấp cho các request tạo trong ngày
+
+    // ---- Theo đội (status COMPLETED / REPORTED, theo ngày completedAt) ----
+    @Builder.Default
+    private long missionsCompleted = 0;
+
+    @Builder.Default
+    private long rescuedPeople = 0;
+
+    @Builder.Default
+    private long ratingSum = 0;
+
+    @Builder.Default
+    private long ratingCount = 0;
+
+    @Column(name = "refreshed_at")
+    private LocalDateTime refreshedAt;
+}
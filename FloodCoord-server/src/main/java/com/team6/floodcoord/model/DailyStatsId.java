@@ -0,0 +1,24 @@
+package com.team6.floodcoord.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class DailyStatsId implements Serializable {
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    // DailyStats.ALL_TEAMS (0) = dòng tổng toàn hệ thống
+    @Column(name = "team_id", nullable = false)
+    private Long teamId;
+}
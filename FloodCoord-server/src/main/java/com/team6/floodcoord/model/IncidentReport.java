@@ -2,6 +2,7 @@ package com.team6.floodcoord.model;
 
 import com.team6.floodcoord.model.enums.IncidentAction;
 import com.team6.floodcoord.model.enums.IncidentStatus;
+import com.team6.floodcoord.event.DailyStatsEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,6 +14,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "incident_reports")
+@EntityListeners(DailyStatsEntityListener.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,41 @@
+package com.team6.floodcoord.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A point polled by WeatherPollingScheduler every cycle (weather + flood + risk).
+ * Managed by admins; seeded with the default flood-prone locations on first start.
+ */
+@Entity
+@Table(name = "monitored_locations", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_monitored_location_coords",
+        columnNames = {"latitude", "longitude"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonitoredLocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private Double latitude;
+
+    @Column(nullable = false)
+    private Double longitude;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean active = true;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.team6.floodcoord.model;
 
+import com.team6.floodcoord.model.enums.MediaUploadStatus;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -20,8 +21,21 @@ public class RequestMedia {
     private RescueRequest request;
 
     private String mediaType;
-    @Column(nullable = false, length = 1000)
+
+    // null khi file còn đang chờ upload (PENDING_UPLOAD)
+    @Column(length = 1000)
     private String mediaUrl;
 
     private LocalDateTime uploadedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "upload_status", length = 20)
+    private MediaUploadStatus uploadStatus = MediaUploadStatus.UPLOADED;
+
+    // Số lần đã thử upload (kể cả lần thành công)
+    @Column(name = "upload_attempts")
+    private Integer uploadAttempts = 0;
+
+    @Column(name = "upload_error", length = 500)
+    private String uploadError;
 }
@@ -1,10 +1,12 @@
 package com.team6.floodcoord.model;
 
+import com.team6.floodcoord.event.DailyStatsEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
 @Table(name = "request_supplies")
+@EntityListeners(DailyStatsEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,5 +1,6 @@
 package com.team6.floodcoord.model;
 
+import com.team6.floodcoord.event.DailyStatsEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,6 +8,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "rescue_reports")
+@EntityListeners(DailyStatsEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
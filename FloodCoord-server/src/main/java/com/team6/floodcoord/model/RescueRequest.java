@@ -1,6 +1,7 @@
 package com.team6.floodcoord.model;
 
 import com.team6.floodcoord.model.enums.RequestStatus;
+import com.team6.floodcoord.event.DailyStatsEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -9,10 +10,54 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "rescue_requests")
+@Table(name = "rescue_requests", indexes = {
+        // Phục vụ keyset pagination của hàng đợi coordinator (lọc status, sắp xếp created_at, request_id)
+        @Index(name = "idx_rescue_request_status_created",
+                columnList = "status, created_at, request_id")
+})
+@EntityListeners(DailyStatsEntityListener.class)
 @Data
+@NamedEntityGraph(
+        // Danh sách (queue/admin): chỉ các quan hệ 1-1 / N-1, không fetch collection để phân trang đúng
+        name = RescueRequest.GRAPH_SUMMARY,
+        attributeNodes = {
+                @NamedAttributeNode(value = "citizen", subgraph = "user"),
+                @NamedAttributeNode(value = "verifiedBy", subgraph = "user"),
+                @NamedAttributeNode("location"),
+                @NamedAttributeNode(value = "report", subgraph = "report"),
+                @NamedAttributeNode("assignedTeam")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("role")),
+                @NamedSubgraph(name = "report", attributeNodes = @NamedAttributeNode(value = "leader", subgraph = "user"))
+        }
+)
+@NamedEntityGraph(
+        // Chi tiết / nhiệm vụ của leader: thêm leader của đội, xe và vật tư.
+        // mediaList được nạp theo batch (hibernate.default_batch_fetch_size) vì không thể fetch 2 List cùng lúc
+        name = RescueRequest.GRAPH_DETAIL,
+        attributeNodes = {
+                @NamedAttributeNode(value = "citizen", subgraph = "user"),
+                @NamedAttributeNode(value = "verifiedBy", subgraph = "user"),
+                @NamedAttributeNode("location"),
+                @NamedAttributeNode(value = "report", subgraph = "report"),
+                @NamedAttributeNode(value = "assignedTeam", subgraph = "team"),
+                @NamedAttributeNode("assignedVehicle"),
+                @NamedAttributeNode(value = "supplies", subgraph = "supplies")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("role")),
+                @NamedSubgraph(name = "report", attributeNodes = @NamedAttributeNode(value = "leader", subgraph = "user")),
+                @NamedSubgraph(name = "team", attributeNodes = @NamedAttributeNode(value = "leader", subgraph = "user")),
+                @NamedSubgraph(name = "supplies", attributeNodes = @NamedAttributeNode("supply"))
+        }
+)
 public class RescueRequest {
 
+    public static final String GRAPH_SUMMARY = "RescueRequest.summary";
+    public static final String GRAPH_DETAIL = "RescueRequest.detail";
+
+
     @Id
     @GeneratedValue
     private UUID requestId;
@@ -1,6 +1,7 @@
 package com.team6.floodcoord.model;
 
 import com.team6.floodcoord.model.enums.TeamStatus;
+import com.team6.floodcoord.event.ResourceStatusEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,6 +9,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "rescue_teams")
+@EntityListeners(ResourceStatusEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,6 +1,7 @@
 package com.team6.floodcoord.model;
 
 import com.team6.floodcoord.model.enums.SupplyType;
+import com.team6.floodcoord.event.ResourceStatusEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "supplies")
+@EntityListeners(ResourceStatusEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,4 +1,5 @@
 package com.team6.floodcoord.model;
+import com.team6.floodcoord.event.DailyStatsEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
@@ -11,6 +12,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(DailyStatsEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,11 +1,13 @@
 package com.team6.floodcoord.model;
 
 import com.team6.floodcoord.model.enums.VehicleStatus;
+import com.team6.floodcoord.event.ResourceStatusEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
 @Table(name = "vehicles")
+@EntityListeners(ResourceStatusEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
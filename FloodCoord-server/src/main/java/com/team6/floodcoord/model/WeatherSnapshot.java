@@ -9,13 +9,18 @@ import java.time.LocalDateTime;
 /**
  * Persists of weather+flood snapshot every 30 minutes per monitored location.
  * Used for historical analysis and rescue planning trend views.
+ * latitude/longitude are the GridCell center; rows written before GridCell keys keep the raw
+ * monitored coordinates, so history is looked up by the cell's lat/lon range.
+ * Written by WeatherSnapshotBuffer: one row per cell per time bucket (recordedAt = bucket start).
  */
 @Entity
 @Table(name = "weather_snapshots", indexes = {
         @Index(name = "idx_weather_snapshot_location",
         columnList = "latitude, longitude"),
         @Index(name = "idx_weather_snapshot_recorded_at",
-        columnList = "recorded_at")
+        columnList = "recorded_at"),
+        @Index(name = "idx_weather_snapshot_cell_bucket",
+        columnList = "latitude, longitude, recorded_at")
 })
 @Data
 @Builder
@@ -0,0 +1,7 @@
+package com.team6.floodcoord.model.enums;
+
+public enum MediaUploadStatus {
+    PENDING_UPLOAD, // Đã nhận file, đang chờ upload lên Cloudinary
+    UPLOADED,       // Upload thành công, đã có mediaUrl
+    FAILED          // Hết số lần thử lại mà vẫn lỗi
+}
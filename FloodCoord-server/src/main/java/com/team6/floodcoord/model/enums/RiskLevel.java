@@ -4,5 +4,7 @@ public enum RiskLevel {
     LOW,
     MEDIUM,
     HIGH,
-    CRITICAL
+    CRITICAL,
+    /** Weather or discharge data unavailable (upstream outage/timeout); never cached or persisted */
+    UNKNOWN
 }
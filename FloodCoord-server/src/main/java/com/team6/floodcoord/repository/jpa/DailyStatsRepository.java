@@ -0,0 +1,45 @@
+package com.team6.floodcoord.repository.jpa;
+
+import com.team6.floodcoord.model.DailyStats;
+import com.team6.floodcoord.model.DailyStatsId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface DailyStatsRepository extends JpaRepository<DailyStats, DailyStatsId> {
+
+    interface TotalsView {
+        long getNewUsers();
+        long getRequestsCreated();
+        long getRequestsResolved();
+        long getIncidentsCreated();
+        long getSuppliesExported();
+        long getMissionsCompleted();
+        long getRescuedPeople();
+        long getRatingSum();
+        long getRatingCount();
+    }
+
+    /** Cộng dồn rollup trong khoảng ngày: 1 query, không quét bảng gốc */
+    @Query("SELECT COALESCE(SUM(d.newUsers), 0) AS newUsers, " +
+            "COALESCE(SUM(d.requestsCreated), 0) AS requestsCreated, " +
+            "COALESCE(SUM(d.requestsResolved), 0) AS requestsResolved, " +
+            "COALESCE(SUM(d.incidentsCreated), 0) AS incidentsCreated, " +
+            "COALESCE(SUM(d.suppliesExported), 0) AS suppliesExported, " +
+            "COALESCE(SUM(d.missionsCompleted), 0) AS missionsCompleted, " +
+            "COALESCE(SUM(d.rescuedPeople), 0) AS rescuedPeople, " +
+            "COALESCE(SUM(d.ratingSum), 0) AS ratingSum, " +
+            "COALESCE(SUM(d.ratingCount), 0) AS ratingCount " +
+            "FROM DailyStats d " +
+            "WHERE d.id.teamId = :teamId AND d.id.statDate BETWEEN :start AND :end")
+    TotalsView sumRange(@Param("teamId") Long teamId,
+                        @Param("start") LocalDate start,
+                        @Param("end") LocalDate end);
+
+    @Modifying
+    @Query("DELETE FROM DailyStats d WHERE d.id.statDate = :day")
+    int deleteByDay(@Param("day") LocalDate day);
+}
@@ -0,0 +1,15 @@
+package com.team6.floodcoord.repository.jpa;
+
+import com.team6.floodcoord.model.MonitoredLocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MonitoredLocationRepository extends JpaRepository<MonitoredLocation, Long> {
+
+    List<MonitoredLocation> findByActiveTrueOrderByIdAsc();
+
+    boolean existsByLatitudeAndLongitude(Double latitude, Double longitude);
+}
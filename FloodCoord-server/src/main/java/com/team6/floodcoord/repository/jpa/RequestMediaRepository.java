@@ -1,10 +1,39 @@
 package com.team6.floodcoord.repository.jpa;
 
 import com.team6.floodcoord.model.RequestMedia;
+import com.team6.floodcoord.model.enums.MediaUploadStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 public interface RequestMediaRepository
         extends JpaRepository<RequestMedia, UUID> {
-}
\ No newline at end of file
+
+    // Dùng bởi MediaUploadPipeline (chạy ngoài request transaction) để cập nhật trạng thái upload
+    @Transactional
+    @Modifying
+    @Query("UPDATE RequestMedia m SET m.uploadStatus = :status, m.mediaUrl = :url, " +
+            "m.uploadAttempts = :attempts, m.uploadError = :error, m.uploadedAt = :uploadedAt " +
+            "WHERE m.mediaId = :mediaId")
+    int updateUploadState(@Param("mediaId") UUID mediaId,
+                          @Param("status") MediaUploadStatus status,
+                          @Param("url") String url,
+                          @Param("attempts") int attempts,
+                          @Param("error") String error,
+                          @Param("uploadedAt") LocalDateTime uploadedAt);
+
+    // Dùng bởi sweep của MediaUploadPipeline: file của các bản ghi này đã mất khi server restart
+    @Transactional
+    @Modifying
+    @Query("UPDATE RequestMedia m SET m.uploadStatus = com.team6.floodcoord.model.enums.MediaUploadStatus.FAILED, " +
+            "m.uploadError = :error " +
+            "WHERE m.uploadStatus = com.team6.floodcoord.model.enums.MediaUploadStatus.PENDING_UPLOAD " +
+            "AND m.request.requestId IN (SELECT r.requestId FROM RescueRequest r WHERE r.createdAt < :cutoff)")
+    int failPendingUploadsCreatedBefore(@Param("cutoff") LocalDateTime cutoff,
+                                        @Param("error") String error);
+}
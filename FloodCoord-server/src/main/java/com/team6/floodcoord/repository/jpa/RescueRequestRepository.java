@@ -2,10 +2,15 @@ package com.team6.floodcoord.repository.jpa;
 
 import com.team6.floodcoord.model.RescueRequest;
 import com.team6.floodcoord.model.enums.RequestStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
@@ -17,9 +22,58 @@ public interface RescueRequestRepository
         extends JpaRepository<RescueRequest, UUID> {
     Optional<RescueRequest> findByTrackingCode(String trackingCode);
 
+    /** Khóa yêu cầu khi điều phối để 1 request không bị gán 2 lần song song */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT r FROM RescueRequest r WHERE r.requestId = :requestId")
+    Optional<RescueRequest> findByIdForUpdate(@Param("requestId") UUID requestId);
+
     @Query("SELECT r FROM RescueRequest r WHERE (:status IS NULL OR r.status = :status)")
     Page<RescueRequest> findAllByStatusOptional(@Param("status") RequestStatus status, Pageable pageable);
 
+    // ---- Fetch-graph queries: nạp sẵn quan hệ để tránh N+1 khi map sang DTO ----
+
+    /** Trang danh sách cho coordinator/admin: 1 query dữ liệu + 1 query COUNT */
+    @EntityGraph(RescueRequest.GRAPH_SUMMARY)
+    @Query("SELECT r FROM RescueRequest r WHERE (:status IS NULL OR r.status = :status)")
+    Page<RescueRequest> findSummaryPage(@Param("status") RequestStatus status, Pageable pageable);
+
+    // ---- Keyset pagination (mới nhất trước): không OFFSET, không COUNT ----
+
+    /** Trang đầu của hàng đợi. Pageable chỉ dùng để giới hạn số dòng (page 0, size + 1) */
+    @EntityGraph(RescueRequest.GRAPH_SUMMARY)
+    @Query("SELECT r FROM RescueRequest r " +
+            "WHERE (:status IS NULL OR r.status = :status) " +
+            "AND (:level IS NULL OR r.emergencyLevel = :level) " +
+            "ORDER BY r.createdAt DESC, r.requestId DESC")
+    List<RescueRequest> findQueueFirstPage(@Param("status") RequestStatus status,
+                                           @Param("level") String emergencyLevel,
+                                           Pageable limit);
+
+    /** Các trang tiếp theo: bắt đầu ngay sau vị trí (createdAt, requestId) của dòng cuối trang trước */
+    @EntityGraph(RescueRequest.GRAPH_SUMMARY)
+    @Query("SELECT r FROM RescueRequest r " +
+            "WHERE (:status IS NULL OR r.status = :status) " +
+            "AND (:level IS NULL OR r.emergencyLevel = :level) " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.requestId < :requestId)) " +
+            "ORDER BY r.createdAt DESC, r.requestId DESC")
+    List<RescueRequest> findQueuePageAfter(@Param("status") RequestStatus status,
+                                           @Param("level") String emergencyLevel,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("requestId") UUID requestId,
+                                           Pageable limit);
+
+    /** Chi tiết 1 yêu cầu: request + team/leader/xe/vật tư trong 1 query, media thêm 1 query */
+    @EntityGraph(RescueRequest.GRAPH_DETAIL)
+    @Query("SELECT r FROM RescueRequest r WHERE r.requestId = :requestId")
+    Optional<RescueRequest> findDetailById(@Param("requestId") UUID requestId);
+
+    /** Nhiệm vụ của đội (leader view): cùng graph với chi tiết, media nạp theo batch */
+    @EntityGraph(RescueRequest.GRAPH_DETAIL)
+    @Query("SELECT r FROM RescueRequest r WHERE r.assignedTeam.id = :teamId AND r.status IN :statuses")
+    List<RescueRequest> findMissionsByTeam(@Param("teamId") Long teamId,
+                                           @Param("statuses") List<RequestStatus> statuses);
+
     List<RescueRequest> findByAssignedTeam_IdAndStatusIn(
             Long teamId,
             List<RequestStatus> statuses
@@ -63,4 +117,42 @@ public interface RescueRequestRepository
             @Param("statuses") List<RequestStatus> statuses,
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
+
+    // ---- Nguồn dựng rollup daily_stats (theo từng ngày, gom theo đội) ----
+
+    interface TeamMissionStatsView {
+        Long getTeamId();
+        long getMissions();
+        long getRatingSum();
+        long getRatingCount();
+    }
+
+    @Query("SELECT req.assignedTeam.id AS teamId, COUNT(req) AS missions, " +
+            "COALESCE(SUM(req.citizenRating), 0) AS ratingSum, COUNT(req.citizenRating) AS ratingCount " +
+            "FROM RescueRequest req " +
+            "WHERE req.assignedTeam IS NOT NULL AND req.status IN :statuses " +
+            "AND req.completedAt BETWEEN :startDate AND :endDate " +
+            "GROUP BY req.assignedTeam.id")
+    List<TeamMissionStatsView> aggregateMissionsByTeam(
+            @Param("statuses") List<RequestStatus> statuses,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    interface TeamRescuedView {
+        Long getTeamId();
+        long getRescued();
+    }
+
+    @Query("SELECT req.assignedTeam.id AS teamId, COALESCE(SUM(rep.rescuedPeople), 0) AS rescued " +
+            "FROM RescueReport rep JOIN rep.request req " +
+            "WHERE req.assignedTeam IS NOT NULL AND req.status IN :statuses " +
+            "AND req.completedAt BETWEEN :startDate AND :endDate " +
+            "GROUP BY req.assignedTeam.id")
+    List<TeamRescuedView> aggregateRescuedByTeam(
+            @Param("statuses") List<RequestStatus> statuses,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT MIN(r.createdAt) FROM RescueRequest r")
+    Optional<LocalDateTime> findEarliestCreatedAt();
 }
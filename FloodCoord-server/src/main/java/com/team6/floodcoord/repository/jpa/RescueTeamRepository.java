@@ -2,7 +2,13 @@ package com.team6.floodcoord.repository.jpa;
 
 import com.team6.floodcoord.model.RescueTeam;
 import com.team6.floodcoord.model.enums.TeamStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +22,26 @@ public interface RescueTeamRepository extends JpaRepository<RescueTeam, Long> {
 
     List<RescueTeam> findByStatus(TeamStatus status);
     long countByStatus(TeamStatus status);
+
+    /** Chỉ lấy (id, status) để nạp AvailabilityIndex */
+    interface IdStatusView {
+        Long getId();
+        TeamStatus getStatus();
+    }
+
+    List<IdStatusView> findAllProjectedBy();
+
+    interface StatusCountView {
+        TeamStatus getStatus();
+        long getTotal();
+    }
+
+    @Query("SELECT t.status AS status, COUNT(t) AS total FROM RescueTeam t GROUP BY t.status")
+    List<StatusCountView> countGroupByStatus();
+
+    /** SELECT ... FOR UPDATE: tránh 2 coordinator cùng gán 1 đội đang rảnh */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT t FROM RescueTeam t WHERE t.id = :id")
+    Optional<RescueTeam> findByIdForUpdate(@Param("id") Long id);
 }
@@ -2,14 +2,29 @@ package com.team6.floodcoord.repository.jpa;
 
 import com.team6.floodcoord.model.Supply;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface SupplyRepository extends JpaRepository<Supply, Long> {
+public interface SupplyRepository extends JpaRepository<Supply, Long>, SupplyStockRepository {
     boolean existsByName(String name);
     Optional<Supply> findByNameIgnoreCase(String name);
     long countByQuantity(int quantity);
     long countByQuantityBetween(int minQuantity, int maxQuantity);
+
+    interface StockHealthView {
+        long getTotal();
+        long getOutOfStock();
+        long getLowStock();
+    }
+
+    /** Tổng số loại vật tư, số loại hết hàng và sắp hết trong 1 lần quét bảng */
+    @Query("SELECT COUNT(s) AS total, " +
+            "COALESCE(SUM(CASE WHEN s.quantity = 0 THEN 1 ELSE 0 END), 0) AS outOfStock, " +
+            "COALESCE(SUM(CASE WHEN s.quantity BETWEEN 1 AND :lowThreshold THEN 1 ELSE 0 END), 0) AS lowStock " +
+            "FROM Supply s")
+    StockHealthView aggregateStockHealth(@Param("lowThreshold") int lowThreshold);
 }
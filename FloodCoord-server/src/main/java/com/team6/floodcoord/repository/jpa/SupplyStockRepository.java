@@ -0,0 +1,23 @@
+package com.team6.floodcoord.repository.jpa;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Điều chỉnh tồn kho bằng câu UPDATE có điều kiện, gửi theo lô (1 round trip / lô)
+ * thay cho đọc entity - sửa - save từng dòng.
+ */
+public interface SupplyStockRepository {
+
+    /**
+     * Trừ kho: UPDATE supplies SET quantity = quantity - n WHERE id = ? AND quantity >= n.
+     * Dòng nào không đủ tồn (hoặc không tồn tại) sẽ không bị trừ.
+     *
+     * @param quantities supplyId -> số lượng cần xuất (id trùng đã được cộng dồn)
+     * @return danh sách supplyId trừ kho thất bại; rỗng nếu tất cả thành công
+     */
+    List<Long> decrementStock(Map<Long, Integer> quantities);
+
+    /** Hoàn kho: UPDATE supplies SET quantity = quantity + n WHERE id = ? */
+    void incrementStock(Map<Long, Integer> quantities);
+}
@@ -0,0 +1,61 @@
+package com.team6.floodcoord.repository.jpa;
+
+import com.team6.floodcoord.event.SupplyStockChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class SupplyStockRepositoryImpl implements SupplyStockRepository {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE supplies SET quantity = quantity - ?, exported_date = ? WHERE id = ? AND quantity >= ?";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE supplies SET quantity = quantity + ? WHERE id = ?";
+
+    // Chạy chung connection/transaction với JPA (JpaTransactionManager expose JDBC connection)
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher publisher;
+
+    @Override
+    public List<Long> decrementStock(Map<Long, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) return List.of();
+
+        // Cập nhật theo thứ tự id để các transaction xuất kho song song không deadlock
+        List<Map.Entry<Long, Integer>> items = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> args = items.stream()
+                .map(e -> new Object[]{e.getValue(), now, e.getKey(), e.getValue()})
+                .toList();
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                failed.add(items.get(i).getKey());
+            }
+        }
+        publisher.publishEvent(new SupplyStockChangedEvent(List.copyOf(quantities.keySet())));
+        return failed;
+    }
+
+    @Override
+    public void incrementStock(Map<Long, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) return;
+
+        List<Object[]> args = new TreeMap<>(quantities).entrySet().stream()
+                .map(e -> new Object[]{e.getValue(), e.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+        publisher.publishEvent(new SupplyStockChangedEvent(List.copyOf(quantities.keySet())));
+    }
+}
@@ -24,4 +24,7 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     List<User> findByRole_RoleCodeAndRescueTeamIsNull(String roleCode);
     List<User> findByRescueTeam(RescueTeam rescueTeam);
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+
+    @Query("SELECT MIN(u.createdAt) FROM User u")
+    Optional<LocalDateTime> findEarliestCreatedAt();
 }
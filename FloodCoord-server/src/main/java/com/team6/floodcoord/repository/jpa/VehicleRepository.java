@@ -2,13 +2,43 @@ package com.team6.floodcoord.repository.jpa;
 
 import com.team6.floodcoord.model.Vehicle;
 import com.team6.floodcoord.model.enums.VehicleStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     boolean existsByName(String name);
     boolean existsByLicensePlate(String licensePlate);
     long countByStatus(VehicleStatus status);
 
+    /** Chỉ lấy (id, status) để nạp AvailabilityIndex */
+    interface IdStatusView {
+        Long getId();
+        VehicleStatus getStatus();
+    }
+
+    List<IdStatusView> findAllProjectedBy();
+
+    interface StatusCountView {
+        VehicleStatus getStatus();
+        long getTotal();
+    }
+
+    @Query("SELECT v.status AS status, COUNT(v) AS total FROM Vehicle v GROUP BY v.status")
+    List<StatusCountView> countGroupByStatus();
+
+    /** SELECT ... FOR UPDATE: giữ khóa dòng xe đến hết transaction điều phối */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT v FROM Vehicle v WHERE v.id = :id")
+    Optional<Vehicle> findByIdForUpdate(@Param("id") Long id);
 }
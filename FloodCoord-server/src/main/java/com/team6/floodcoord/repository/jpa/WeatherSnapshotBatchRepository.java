@@ -0,0 +1,17 @@
+package com.team6.floodcoord.repository.jpa;
+
+import com.team6.floodcoord.model.WeatherSnapshot;
+
+import java.util.List;
+
+/**
+ * Ghi snapshot theo lô bằng JDBC batch (1 round trip / lô) thay cho find-latest-then-save từng dòng.
+ */
+public interface WeatherSnapshotBatchRepository {
+
+    /**
+     * Mỗi dòng được xác định bởi (latitude, longitude, recordedAt = đầu time bucket).
+     * Dòng đã có: chỉ ghi đè các cột khác null; dòng chưa có: INSERT.
+     */
+    void upsertBuckets(List<WeatherSnapshot> snapshots);
+}
@@ -0,0 +1,68 @@
+package com.team6.floodcoord.repository.jpa;
+
+import com.team6.floodcoord.model.WeatherSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class WeatherSnapshotBatchRepositoryImpl implements WeatherSnapshotBatchRepository {
+
+    private static final String UPDATE_SQL =
+            "UPDATE weather_snapshots SET " +
+            "temperature = COALESCE(?, temperature), humidity = COALESCE(?, humidity), " +
+            "precipitation = COALESCE(?, precipitation), rain = COALESCE(?, rain), " +
+            "wind_speed = COALESCE(?, wind_speed), wind_gusts = COALESCE(?, wind_gusts), " +
+            "weather_code = COALESCE(?, weather_code), river_discharge = COALESCE(?, river_discharge), " +
+            "river_discharge_max = COALESCE(?, river_discharge_max), risk_level = COALESCE(?, risk_level) " +
+            "WHERE latitude = ? AND longitude = ? AND recorded_at = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO weather_snapshots (temperature, humidity, precipitation, rain, wind_speed, wind_gusts, " +
+            "weather_code, river_discharge, river_discharge_max, risk_level, latitude, longitude, recorded_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertBuckets(List<WeatherSnapshot> snapshots) {
+        if (snapshots == null || snapshots.isEmpty()) return;
+
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, snapshots, snapshots.size(),
+                WeatherSnapshotBatchRepositoryImpl::bind);
+
+        List<WeatherSnapshot> missing = new ArrayList<>();
+        for (int i = 0; i < snapshots.size(); i++) {
+            if (updated[0][i] == 0) {
+                missing.add(snapshots.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, missing, missing.size(),
+                    WeatherSnapshotBatchRepositoryImpl::bind);
+        }
+    }
+
+    /** Cùng thứ tự tham số cho UPDATE và INSERT: 10 cột dữ liệu, rồi latitude, longitude, recorded_at */
+    private static void bind(PreparedStatement ps, WeatherSnapshot s) throws SQLException {
+        ps.setObject(1, s.getTemperature(), Types.DOUBLE);
+        ps.setObject(2, s.getHumidity(), Types.INTEGER);
+        ps.setObject(3, s.getPrecipitation(), Types.DOUBLE);
+        ps.setObject(4, s.getRain(), Types.DOUBLE);
+        ps.setObject(5, s.getWindSpeed(), Types.DOUBLE);
+        ps.setObject(6, s.getWindGusts(), Types.DOUBLE);
+        ps.setObject(7, s.getWeatherCode(), Types.INTEGER);
+        ps.setObject(8, s.getRiverDischarge(), Types.DOUBLE);
+        ps.setObject(9, s.getRiverDischargeMax(), Types.DOUBLE);
+        ps.setObject(10, s.getRiskLevel() != null ? s.getRiskLevel().name() : null, Types.VARCHAR);
+        ps.setDouble(11, s.getLatitude());
+        ps.setDouble(12, s.getLongitude());
+        ps.setTimestamp(13, Timestamp.valueOf(s.getRecordedAt()));
+    }
+}
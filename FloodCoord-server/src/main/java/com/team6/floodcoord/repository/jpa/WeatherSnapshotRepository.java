@@ -1,7 +1,9 @@
 package com.team6.floodcoord.repository.jpa;
 
 
+import com.team6.floodcoord.dto.GridCell;
 import com.team6.floodcoord.model.WeatherSnapshot;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,12 +13,32 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface WeatherSnapshotRepository extends JpaRepository<WeatherSnapshot, Long> {
+public interface WeatherSnapshotRepository extends JpaRepository<WeatherSnapshot, Long>, WeatherSnapshotBatchRepository {
 
     /** Latest N snapshots for a location - for trend charts on the frontend */
     List<WeatherSnapshot> findTop24ByLatitudeAndLongitudeOrderByRecordedAtDesc(
             Double latitude, Double longitude);
 
+    /**
+     * Latest snapshots anywhere inside a GridCell - new rows sit at the cell center,
+     * rows written before GridCell keys at the raw monitored coordinates.
+     */
+    default List<WeatherSnapshot> findLatestInCell(GridCell cell, int limit) {
+        return findLatestInArea(cell.minLatitude(), cell.maxLatitude(),
+                cell.minLongitude(), cell.maxLongitude(), Limit.of(limit));
+    }
+
+    @Query("SELECT w FROM WeatherSnapshot w " +
+           "WHERE w.latitude >= :minLat AND w.latitude < :maxLat " +
+            "AND w.longitude >= :minLon AND w.longitude < :maxLon " +
+            "ORDER BY w.recordedAt DESC")
+    List<WeatherSnapshot> findLatestInArea(
+            @Param("minLat") double minLatitude,
+            @Param("maxLat") double maxLatitude,
+            @Param("minLon") double minLongitude,
+            @Param("maxLon") double maxLongitude,
+            Limit limit);
+
     /** All snapshots within a time range for a location */
     @Query("SELECT w FROM WeatherSnapshot w " +
            "WHERE w.latitude = :lat AND w.longitude = :lon " +
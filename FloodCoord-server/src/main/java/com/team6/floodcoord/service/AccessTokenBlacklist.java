@@ -0,0 +1,158 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.event.AccessTokenRevokedEvent;
+import com.team6.floodcoord.model.BlackListedAccessToken;
+import com.team6.floodcoord.repository.redis.BlacklistedAccessTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Near-cache cho blacklist access token (Redis: BlacklistedAccessToken).
+ *
+ * - Giữ tập jwtId đã bị thu hồi kèm thời điểm hết hạn của token, nạp từ Redis khi khởi động
+ * - Logout trên bất kỳ instance nào được phát qua Redis pub/sub để các instance khác cập nhật ngay
+ * - Định kỳ đồng bộ lại với Redis để bù các message pub/sub bị mất (mất kết nối, restart...)
+ *
+ * Trường hợp thường gặp (token không bị thu hồi) được trả lời tại chỗ, không gọi Redis.
+ * Chỉ khi jwtId có trong tập local mới hỏi lại Redis để xác nhận.
+ * Khi chưa nạp được từ Redis, isReady() = false và mọi lần kiểm tra đều đi thẳng Redis.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccessTokenBlacklist implements MessageListener {
+
+    public static final String REVOKED_CHANNEL = "auth:access-token-revoked";
+
+    private static final String PAYLOAD_SEPARATOR = "|";
+
+    private final BlacklistedAccessTokenRepository blacklistedAccessTokenRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // jwtId -> thời điểm token hết hạn (sau đó không cần giữ nữa)
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(REVOKED_CHANNEL));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        resync();
+    }
+
+    /**
+     * Chỉ gộp thêm, không thay cả tập: jwtId nhận qua pub/sub trong lúc đang đọc Redis không bị mất.
+     */
+    @Scheduled(fixedDelayString = "${jwt.blacklist.resync-interval:PT30S}", initialDelayString = "${jwt.blacklist.resync-interval:PT30S}")
+    public void resync() {
+        try {
+            Instant now = Instant.now();
+            int loaded = 0;
+            for (BlackListedAccessToken token : blacklistedAccessTokenRepository.findAll()) {
+                if (token == null || token.getJwtId() == null) continue;
+                long ttl = token.getTimeToLiveSeconds() != null && token.getTimeToLiveSeconds() > 0
+                        ? token.getTimeToLiveSeconds() : 0;
+                if (ttl > 0) {
+                    revoked.merge(token.getJwtId(), now.plusSeconds(ttl), (a, b) -> a.isAfter(b) ? a : b);
+                    loaded++;
+                }
+            }
+            revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+
+            if (!ready) {
+                ready = true;
+                log.info("Access token blacklist near-cache loaded: {} revoked tokens", loaded);
+            }
+        } catch (Exception e) {
+            log.warn("Access token blacklist resync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Thu hồi token: ghi Redis (nguồn chính), cập nhật tập local rồi báo cho các instance khác.
+     */
+    public void revoke(String jwtId, long ttlSeconds) {
+        if (ttlSeconds <= 0) return;
+        Instant expiresAt = Instant.now().plusSeconds(ttlSeconds);
+
+        blacklistedAccessTokenRepository.save(BlackListedAccessToken.builder()
+                .jwtId(jwtId)
+                .timeToLiveSeconds(ttlSeconds)
+                .build());
+        markRevoked(jwtId, expiresAt);
+
+        try {
+            stringRedisTemplate.convertAndSend(REVOKED_CHANNEL, jwtId + PAYLOAD_SEPARATOR + expiresAt.getEpochSecond());
+        } catch (Exception e) {
+            // Instance khác vẫn thấy token này ở lần resync kế tiếp
+            log.warn("Failed to publish access token revocation {}: {}", jwtId, e.getMessage());
+        }
+    }
+
+    public boolean isRevoked(String jwtId) {
+        if (!ready) {
+            return blacklistedAccessTokenRepository.existsById(jwtId);
+        }
+
+        Instant expiresAt = revoked.get(jwtId);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt.isBefore(Instant.now())) {
+            revoked.remove(jwtId);
+            return false;
+        }
+        // Có thể bị thu hồi - Redis quyết định
+        return blacklistedAccessTokenRepository.existsById(jwtId);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = payload.lastIndexOf(PAYLOAD_SEPARATOR);
+        if (separator <= 0) {
+            log.warn("Ignoring malformed revocation message: {}", payload);
+            return;
+        }
+
+        try {
+            String jwtId = payload.substring(0, separator);
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(payload.substring(separator + 1)));
+            markRevoked(jwtId, expiresAt);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed revocation message: {}", payload);
+        }
+    }
+
+    private void markRevoked(String jwtId, Instant expiresAt) {
+        revoked.merge(jwtId, expiresAt, (a, b) -> a.isAfter(b) ? a : b);
+        // Bỏ token khỏi cache verify của JwtDecoder để lần gọi kế tiếp bị chặn ngay
+        eventPublisher.publishEvent(new AccessTokenRevokedEvent(jwtId));
+    }
+}
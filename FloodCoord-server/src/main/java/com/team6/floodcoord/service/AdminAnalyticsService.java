@@ -3,45 +3,41 @@ package com.team6.floodcoord.service;
 import com.team6.floodcoord.dto.MonthlyStatDTO;
 import com.team6.floodcoord.dto.VehicleStatDTO;
 import com.team6.floodcoord.dto.response.AdminDashboardResponse;
+import com.team6.floodcoord.model.DailyStats;
 import com.team6.floodcoord.model.enums.VehicleStatus;
-import com.team6.floodcoord.repository.jpa.RescueRequestRepository;
-import com.team6.floodcoord.repository.jpa.UserRepository;
+import com.team6.floodcoord.repository.jpa.DailyStatsRepository;
 import com.team6.floodcoord.repository.jpa.VehicleRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.YearMonth;
 
 @Service
 @RequiredArgsConstructor
 public class AdminAnalyticsService {
-    private final UserRepository userRepository;
-    private final RescueRequestRepository rescueRequestRepository;
+    private final DailyStatsRepository dailyStatsRepository;
     private final VehicleRepository vehicleRepository;
+    private final AvailabilityIndex availabilityIndex;
 
     public AdminDashboardResponse getDashboardStats(LocalDate startDate, LocalDate endDate, LocalDate compareStartDate, LocalDate compareEndDate) {
 
-        // Convert LocalDate (Ngày) sang LocalDateTime (Ngày + Giờ) để so sánh chính xác trong DB
-        LocalDateTime startTarget = startDate.atStartOfDay(); // 00:00:00
-        LocalDateTime endTarget = endDate.atTime(23, 59, 59); // 23:59:59
+        // Đọc từ rollup daily_stats: 1 query / kỳ, không phụ thuộc độ dài khoảng ngày
+        DailyStatsRepository.TotalsView current = dailyStatsRepository.sumRange(DailyStats.ALL_TEAMS, startDate, endDate);
+        DailyStatsRepository.TotalsView compare = dailyStatsRepository.sumRange(DailyStats.ALL_TEAMS, compareStartDate, compareEndDate);
 
-        LocalDateTime startCompare = compareStartDate.atStartOfDay();
-        LocalDateTime endCompare = compareEndDate.atTime(23, 59, 59);
-
-        // 1. Thống kê User (Truyền startTarget, endTarget thay vì hardcode)
-        long currentMonthUsers = userRepository.countByCreatedAtBetween(startTarget, endTarget);
-        long lastMonthUsers = userRepository.countByCreatedAtBetween(startCompare, endCompare);
+        // 1. Thống kê User
+        long currentMonthUsers = current.getNewUsers();
+        long lastMonthUsers = compare.getNewUsers();
 
         // 2. Thống kê Yêu cầu cứu hộ
-        long currentMonthRequests = rescueRequestRepository.countByCreatedAtBetween(startTarget, endTarget);
-        long lastMonthRequests = rescueRequestRepository.countByCreatedAtBetween(startCompare, endCompare);
+        long currentMonthRequests = current.getRequestsCreated();
+        long lastMonthRequests = compare.getRequestsCreated();
 
         // 3. Thống kê Phương tiện (Cái này là Real-time tại thời điểm xem, nên không cần tham số ngày tháng)
-        long available = vehicleRepository.countByStatus(VehicleStatus.AVAILABLE);
-        long inUse = vehicleRepository.countByStatus(VehicleStatus.IN_USE);
-        long maintenance = vehicleRepository.countByStatus(VehicleStatus.MAINTENANCE);
+        long available = countVehicles(VehicleStatus.AVAILABLE);
+        long inUse = countVehicles(VehicleStatus.IN_USE);
+        long maintenance = countVehicles(VehicleStatus.MAINTENANCE);
 
         return AdminDashboardResponse.builder()
                 .newUsers(buildMonthlyStat(currentMonthUsers, lastMonthUsers))
@@ -54,6 +50,12 @@ public class AdminAnalyticsService {
                         .build())
                 .build();
     }
+    private long countVehicles(VehicleStatus status) {
+        return availabilityIndex.isReady()
+                ? availabilityIndex.countVehicles(status)
+                : vehicleRepository.countByStatus(status);
+    }
+
     private MonthlyStatDTO buildMonthlyStat(long current, long last) {
         double growthRate = 0.0;
         if (last > 0){
@@ -1,16 +1,23 @@
 package com.team6.floodcoord.service;
 
+import com.team6.floodcoord.dto.Coord;
 import com.team6.floodcoord.dto.FloodDischargeDTO;
+import com.team6.floodcoord.dto.GridCell;
 import com.team6.floodcoord.dto.RiskLevelDTO;
 import com.team6.floodcoord.dto.WeatherCurrentDTO;
-import com.team6.floodcoord.model.WeatherSnapshot;
 import com.team6.floodcoord.model.enums.RiskLevel;
-import com.team6.floodcoord.repository.jpa.WeatherSnapshotRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Slf4j
 @Service
@@ -20,7 +27,10 @@ public class AlertService {
     private final WeatherService weatherService;
     private final FloodService floodService;
     private final CacheService cacheService;
-    private final WeatherSnapshotRepository snapshotRepository;
+    private final WeatherSnapshotBuffer snapshotBuffer;
+
+    @Value("${weather.cache.risk-ttl-minutes:15}")
+    private long riskTtlMinutes;
 
     // ─── Vietnamese flood thresholds ───────────────────────────────────────────
     // Tuned for Vietnam river systems (Mekong, Red River, Thu Bon, etc.)
@@ -37,27 +47,128 @@ public class AlertService {
 
     // ─── Public API ────────────────────────────────────────────────────────────
 
+    /**
+     * Cached per GridCell for risk-ttl-minutes; served stale while a refresh runs.
+     * A risk computed while weather or discharge data is unavailable is returned but never cached,
+     * so a cached (even stale) complete result keeps being served and the next call tries again.
+     */
     public RiskLevelDTO evaluateRisk(double lat, double lon) {
-        WeatherCurrentDTO weather = weatherService.getCurrentWeather(lat, lon);
-        FloodDischargeDTO flood   = floodService.getRiverDischarge(lat, lon);
+        GridCell cell = GridCell.of(lat, lon);
+        try {
+            return cacheService.getOrFetch(
+                    cacheService.riskLevelKey(cell),
+                    Duration.ofMinutes(riskTtlMinutes),
+                    () -> completeRisk(cell),
+                    RiskLevelDTO.class
+            );
+        } catch (IncompleteRiskException e) {
+            return e.getRisk();
+        }
+    }
+
+    /**
+     * Recompute now and overwrite the cached risk (poller), so request paths stay cache hits.
+     * An incomplete result is returned without replacing the cached one.
+     */
+    public RiskLevelDTO refreshRisk(double lat, double lon) {
+        GridCell cell = GridCell.of(lat, lon);
+        RiskLevelDTO risk = computeRisk(cell);
+        if (risk.isInputsComplete()) {
+            cacheService.put(cacheService.riskLevelKey(cell), risk, Duration.ofMinutes(riskTtlMinutes));
+        } else {
+            log.warn("Risk inputs unavailable at [{},{}] - keeping the cached risk", cell.latitude(), cell.longitude());
+        }
+        return risk;
+    }
 
-        double discharge   = (flood != null && flood.getLatestDischarge() != null)
-                ? flood.getLatestDischarge() : 0.0;
-        double maxDischarge = (flood != null && flood.getMaxForecastDischarge() != null)
-                ? flood.getMaxForecastDischarge() : 0.0;
+    /**
+     * Warm the weather + discharge caches for many points with batched Open-Meteo calls,
+     * so the following per-point evaluateRisk calls are cache hits.
+     */
+    public void prefetch(List<Coord> coords) {
+        if (coords.isEmpty()) return;
+        weatherService.getCurrentWeatherBatch(coords);
+        floodService.getRiverDischargeBatch(coords);
+    }
+
+    /** Risk for many points (map view): one batched fetch for all misses, then per-point evaluation */
+    public List<RiskLevelDTO> evaluateRiskBatch(List<Coord> coords) {
+        prefetch(coords);
+        return coords.stream()
+                .map(c -> evaluateRisk(c.latitude(), c.longitude()))
+                .toList();
+    }
+
+    // ─── Risk computation ──────────────────────────────────────────────────────
+
+    /** Thrown out of the cache loader so a risk built on missing inputs is not stored */
+    private static final class IncompleteRiskException extends RuntimeException {
+
+        private final RiskLevelDTO risk;
+
+        IncompleteRiskException(RiskLevelDTO risk) {
+            super("Risk inputs unavailable", null, false, false);
+            this.risk = risk;
+        }
+
+        RiskLevelDTO getRisk() {
+            return risk;
+        }
+    }
+
+    private RiskLevelDTO completeRisk(GridCell cell) {
+        RiskLevelDTO risk = computeRisk(cell);
+        if (!risk.isInputsComplete()) {
+            throw new IncompleteRiskException(risk);
+        }
+        return risk;
+    }
+
+    private RiskLevelDTO computeRisk(GridCell cell) {
+        double lat = cell.latitude();
+        double lon = cell.longitude();
+
+        // Weather and discharge are independent: fetch both in parallel, close() waits for both to finish
+        WeatherCurrentDTO weather;
+        FloodDischargeDTO flood;
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<WeatherCurrentDTO> weatherCall = scope.submit(() -> weatherService.getCurrentWeather(lat, lon));
+            Future<FloodDischargeDTO> floodCall = scope.submit(() -> floodService.getRiverDischarge(lat, lon));
+            weather = join(weatherCall, floodCall);
+            flood   = join(floodCall, weatherCall);
+        }
+
+        // null = the fetch failed or timed out; a cell without a river comes back as an empty DTO
+        boolean weatherMissing = weather == null || weather.getCurrent() == null;
+        boolean floodMissing = flood == null;
+
+        // Computed straight from the daily series double[] arrays, no boxing
+        double discharge    = flood != null ? flood.getLatestDischarge() : 0.0;
+        double maxDischarge = flood != null ? flood.getMaxForecastDischarge() : 0.0;
         double rain        = extractRain(weather);
         double wind        = extractWind(weather);
         double temp        = extractTemp(weather);
 
+        boolean complete = !weatherMissing && !floodMissing;
         RiskLevel level = computeRiskLevel(discharge, rain, wind);
+        if (!complete && level == RiskLevel.LOW) {
+            // With an input missing, a higher level is still a lower bound; LOW would be a guess
+            level = RiskLevel.UNKNOWN;
+        }
         String recommendation        = buildRecommendation(level);
 
-        log.info("Risk evaluated [{},{}]: {} (discharge={}, rain={}, wind={})",
-                lat, lon, level, discharge, rain, wind);
+        log.info("Risk evaluated [{},{}]: {} (discharge={}, rain={}, wind={}, weatherMissing={}, dischargeMissing={})",
+                lat, lon, level, discharge, rain, wind, weatherMissing, floodMissing);
 
-        // Persist to snapshot
-        persistRiskSnapshot(lat, lon, weather, flood, level);
+        // Persist to snapshot - merged per grid cell / time bucket, written in batches in the background
+        if (complete) {
+            snapshotBuffer.recordRisk(lat, lon,
+                    flood.getLatestDischarge(),
+                    flood.getMaxForecastDischarge(),
+                    level);
+        }
 
+        LocalDateTime now = LocalDateTime.now();
         return RiskLevelDTO.builder()
                 .latitude(lat)
                 .longitude(lon)
@@ -68,11 +179,27 @@ public class AlertService {
                 .currentPrecipitation(rain)
                 .currentTemperature(temp)
                 .windSpeed(wind)
-                .evaluatedAt(LocalDateTime.now())
+                .inputsComplete(complete)
+                .evaluatedAt(now)
+                .cacheUntil(complete ? now.plusMinutes(riskTtlMinutes).toString() : null)
                 .build();
     }
 
-    // ─── Risk computation ──────────────────────────────────────────────────────
+    /** Result of one branch; if it failed or we were interrupted, the sibling is cancelled too */
+    private static <T> T join(Future<T> call, Future<?> sibling) {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            sibling.cancel(true);
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            call.cancel(true);
+            sibling.cancel(true);
+            throw new IllegalStateException("Risk evaluation interrupted", e);
+        }
+    }
 
     private RiskLevel computeRiskLevel(double discharge,
                                                     double rain,
@@ -102,6 +229,8 @@ public class AlertService {
             case MEDIUM   -> "Chuẩn bị sẵn sàng các nguồn lực cứu hộ. " +
                     "Thông báo cho chính quyền địa phương. Tăng tần suất giám sát.";
             case LOW      -> "Thời tiết bình thường. Không cần hành động ngay lúc này.";
+            case UNKNOWN  -> "Không lấy được dữ liệu thời tiết / mực nước. " +
+                    "Chưa đánh giá được mức độ rủi ro, vui lòng kiểm tra lại sau hoặc theo dõi thực địa.";
         };
     }
 
@@ -124,32 +253,4 @@ public class AlertService {
         Double temp = dto.getCurrent().getTemperature2m();
         return temp != null ? temp : 0.0;
     }
-
-    private void persistRiskSnapshot(double lat, double lon,
-                                     WeatherCurrentDTO weather,
-                                     FloodDischargeDTO flood,
-                                     RiskLevel level) {
-        try {
-//            WeatherSnapshot snap = snapshotRepository
-//                    .findTop24ByLatitudeAndLongitudeOrderByRecordedAtDesc(lat, lon)
-//                    .stream().findFirst().orElse(new WeatherSnapshot());
-            WeatherSnapshot snap = snapshotRepository
-                    .findTopByLatitudeAndLongitudeOrderByRecordedAtDesc(lat, lon);
-
-            if (snap == null) {
-                snap = new WeatherSnapshot();
-            }
-
-
-            snap.setLatitude(lat);
-            snap.setLongitude(lon);
-            snap.setRiverDischarge(flood != null ? flood.getLatestDischarge() : null);
-            snap.setRiverDischargeMax(flood != null ? flood.getMaxForecastDischarge() : null);
-            snap.setRiskLevel(RiskLevel.valueOf(level.name()));
-            snap.setRecordedAt(LocalDateTime.now());
-            snapshotRepository.save(snap);
-        } catch (Exception e) {
-            log.warn("Failed to persist risk snapshot: {}", e.getMessage());
-        }
-    }
 }
@@ -8,7 +8,6 @@ import com.team6.floodcoord.dto.response.LoginResponse;
 import com.team6.floodcoord.dto.response.UserResponse;
 import com.team6.floodcoord.model.*;
 import com.team6.floodcoord.repository.jpa.*;
-import com.team6.floodcoord.repository.redis.BlacklistedAccessTokenRepository;
 import com.team6.floodcoord.utils.PasswordUtils;
 import com.team6.floodcoord.utils.UserMapper;
 import lombok.RequiredArgsConstructor;
@@ -36,7 +35,7 @@ public class AuthenticationServiceImpl implements AuthenticationService{
     private final UserRepository userRepository;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
-    private final BlacklistedAccessTokenRepository blacklistedAccessTokenRepository;
+    private final AccessTokenBlacklist accessTokenBlacklist;
     private final ValidRefreshTokenRepository validRefreshTokenRepository;
     private final PasswordEncoder passwordEncoder;
     private static final int PASSWORD_RESET_TOKEN_VALIDITY_MINUTES = 5;
@@ -60,12 +59,8 @@ public class AuthenticationServiceImpl implements AuthenticationService{
             return;
         }
 
-        // Add access token to blacklist in Redis
-        BlackListedAccessToken blacklistedToken = BlackListedAccessToken.builder()
-                .jwtId(jwtId)
-                .timeToLiveSeconds(ttlSeconds)
-                .build();
-        blacklistedAccessTokenRepository.save(blacklistedToken);
+        // Add access token to blacklist in Redis and notify the other instances
+        accessTokenBlacklist.revoke(jwtId, ttlSeconds);
 
         log.info("Logout successful - Access token blacklisted with TTL: {} seconds", ttlSeconds);
     }
@@ -0,0 +1,183 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.event.TeamStatusChangedEvent;
+import com.team6.floodcoord.event.VehicleStatusChangedEvent;
+import com.team6.floodcoord.model.enums.TeamStatus;
+import com.team6.floodcoord.model.enums.VehicleStatus;
+import com.team6.floodcoord.repository.jpa.RescueTeamRepository;
+import com.team6.floodcoord.repository.jpa.VehicleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index: trạng thái -> tập id của đội cứu hộ / phương tiện.
+ *
+ * - Nạp toàn bộ (id, status) khi ứng dụng khởi động
+ * - Cập nhật sau mỗi commit qua TeamStatusChangedEvent / VehicleStatusChangedEvent
+ * - Định kỳ đối soát lại với DB để sửa sai lệch (update ngoài ứng dụng, event bị mất...)
+ *
+ * Đọc (count / lấy danh sách id) không khóa; ghi được đồng bộ hóa vì tần suất thấp.
+ * Khi chưa nạp xong, isReady() = false và caller nên đọc thẳng từ DB.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AvailabilityIndex {
+
+    private final RescueTeamRepository teamRepo;
+    private final VehicleRepository vehicleRepo;
+
+    private final StatusIndex<TeamStatus> teams = new StatusIndex<>(TeamStatus.class);
+    private final StatusIndex<VehicleStatus> vehicles = new StatusIndex<>(VehicleStatus.class);
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+        ready = true;
+        log.info("Availability index loaded: {} teams, {} vehicles", teams.total(), vehicles.total());
+    }
+
+    /**
+     * Commit xảy ra giữa lúc đọc DB và lúc thay snapshot có thể bị ghi đè bằng giá trị cũ;
+     * lần đối soát kế tiếp sẽ sửa lại.
+     */
+    @Scheduled(fixedDelayString = "${availability.reconcile-interval:PT5M}", initialDelayString = "${availability.reconcile-interval:PT5M}")
+    public void reconcile() {
+        long drift = reload();
+        if (drift > 0) {
+            log.warn("Availability index reconciled {} drifted entries against DB", drift);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTeamStatusChanged(TeamStatusChangedEvent event) {
+        if (event.removed()) {
+            teams.remove(event.teamId());
+        } else {
+            teams.put(event.teamId(), event.status());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVehicleStatusChanged(VehicleStatusChangedEvent event) {
+        if (event.removed()) {
+            vehicles.remove(event.vehicleId());
+        } else {
+            vehicles.put(event.vehicleId(), event.status());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Set<Long> teamIds(TeamStatus status) {
+        return teams.ids(status);
+    }
+
+    public long countTeams(TeamStatus status) {
+        return teams.count(status);
+    }
+
+    public long totalTeams() {
+        return teams.total();
+    }
+
+    public Set<Long> vehicleIds(VehicleStatus status) {
+        return vehicles.ids(status);
+    }
+
+    public long countVehicles(VehicleStatus status) {
+        return vehicles.count(status);
+    }
+
+    public long totalVehicles() {
+        return vehicles.total();
+    }
+
+    /** @return số entry bị sai lệch so với DB */
+    private long reload() {
+        Map<Long, TeamStatus> teamSnapshot = new HashMap<>();
+        teamRepo.findAllProjectedBy().forEach(t -> teamSnapshot.put(t.getId(), t.getStatus()));
+
+        Map<Long, VehicleStatus> vehicleSnapshot = new HashMap<>();
+        vehicleRepo.findAllProjectedBy().forEach(v -> vehicleSnapshot.put(v.getId(), v.getStatus()));
+
+        return teams.replaceAll(teamSnapshot) + vehicles.replaceAll(vehicleSnapshot);
+    }
+
+    /** EnumMap<status, Set<id>> kèm map ngược id -> status để chuyển id giữa các tập trong O(1). */
+    private static final class StatusIndex<S extends Enum<S>> {
+
+        private final EnumMap<S, Set<Long>> byStatus;
+        private final Map<Long, S> statusById = new ConcurrentHashMap<>();
+
+        StatusIndex(Class<S> type) {
+            byStatus = new EnumMap<>(type);
+            for (S status : type.getEnumConstants()) {
+                byStatus.put(status, ConcurrentHashMap.newKeySet());
+            }
+        }
+
+        synchronized void put(Long id, S status) {
+            if (id == null || status == null) return;
+            S previous = statusById.put(id, status);
+            if (previous != null && previous != status) {
+                byStatus.get(previous).remove(id);
+            }
+            byStatus.get(status).add(id);
+        }
+
+        synchronized void remove(Long id) {
+            S previous = statusById.remove(id);
+            if (previous != null) {
+                byStatus.get(previous).remove(id);
+            }
+        }
+
+        synchronized long replaceAll(Map<Long, S> snapshot) {
+            long drift = 0;
+            for (Long id : Set.copyOf(statusById.keySet())) {
+                if (!snapshot.containsKey(id)) {
+                    remove(id);
+                    drift++;
+                }
+            }
+            for (Map.Entry<Long, S> entry : snapshot.entrySet()) {
+                if (!Objects.equals(statusById.get(entry.getKey()), entry.getValue())) {
+                    put(entry.getKey(), entry.getValue());
+                    drift++;
+                }
+            }
+            return drift;
+        }
+
+        Set<Long> ids(S status) {
+            return Collections.unmodifiableSet(byStatus.get(status));
+        }
+
+        long count(S status) {
+            return byStatus.get(status).size();
+        }
+
+        long total() {
+            return statusById.size();
+        }
+    }
+}
@@ -2,50 +2,296 @@ package com.team6.floodcoord.service;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team6.floodcoord.dto.CacheFreshness;
+import com.team6.floodcoord.dto.CacheFreshnessAware;
+import com.team6.floodcoord.dto.GridCell;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
  * Generic cache-aside service for all weather/flood data.
  *
  * Pattern:
- *  1. Check Redis for key
- *  2. HIT -> deserialize and return
- *  3. MISS -> call supplier (Open-Meteo API), store in Redis, return
+ *  1. Check L1 (in-process Caffeine, already-typed DTOs)
+ *  2. Check L2 (Redis) - HIT -> deserialize, promote to L1, return
+ *  3. MISS -> call supplier (Open-Meteo API), store in Redis + L1, return
+ *
+ * Every value carries a soft expiry (fetchedAt + ttl). Past it the value is stale but is
+ * still served for the grace window while a background refresh replaces it; Redis and L1
+ * keep it until soft expiry + grace. Responses report their age via {@link CacheFreshness}.
+ *
+ * Concurrent misses for the same key are coalesced: one caller (the leader) loads,
+ * the others wait on its in-flight future. Across nodes, the leader also takes a short
+ * Redis lock (lock:{key}) so only one node calls Open-Meteo; the others poll Redis
+ * for the value and fetch themselves only if it does not show up in time.
+ *
+ * Evictions delete from Redis and are broadcast on {@link #INVALIDATION_CHANNEL}
+ * so every other node drops its L1 copy too. Each message starts with the sender's node id,
+ * so a node ignores its own broadcasts instead of evicting what it has just written.
+ *
+ * Batch reads go out as one MGET. Batch writes go out as async SET PX commands on the shared
+ * Lettuce connection in small chunks, without waiting between commands: a 100-key batch costs a
+ * few round trips rather than 100 under load, no dedicated connection is opened (as a Spring
+ * pipeline would), and no single command holds Redis for the whole batch. Per-command latency is
+ * published as lettuce.command.completion, the health probe as weather.cache.redis.ping.
  *
  * Redis failures are caught and logged - they NEVER break the app.
- * During a flood emergency, stale/missing cache falls through to live API data.
+ * During a flood emergency, stale data beats no data: an Open-Meteo outage is bridged
+ * by the grace window, and only a full miss falls through to the live API.
  * */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class CacheService {
+public class CacheService implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidate";
+
+    /** Invalidation payload meaning "drop every L1 entry" */
+    private static final String INVALIDATE_ALL = "*";
+
+    /** Separates the sender's node id and the keys of an invalidation message */
+    private static final String INVALIDATION_SEPARATOR = "\n";
+
+    private static final String LOCK_PREFIX = "lock:";
+    /** Namespaces cleared by evictAll - lock:, river-cell: and the JWT blacklist are left alone */
+    private static final List<String> EVICTABLE_NAMESPACES = List.of("weather:", "flood:");
+
+    /** Delete the lock only if this node still owns it */
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final long PEER_POLL_INTERVAL_MS = 50;
+
     private final RedisTemplate<String, Object> redisTemplate;
     private final ObjectMapper objectMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    /** Identifies this instance's invalidation broadcasts */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${weather.cache.l1.max-size:2000}")
+    private long l1MaxSize;
+
+    @Value("${weather.cache.refresh-lock.enabled:true}")
+    private boolean refreshLockEnabled;
+
+    /** Upper bound of one upstream fetch; the lock expires on its own if the holder dies */
+    @Value("${weather.cache.refresh-lock.ttl:PT10S}")
+    private Duration refreshLockTtl;
+
+    /** How long a node waits for the lock holder's value before fetching itself */
+    @Value("${weather.cache.refresh-lock.wait:PT2S}")
+    private Duration refreshLockWait;
+
+    /** How long past soft expiry a value may still be served while it is refreshed */
+    @Value("${weather.cache.stale-grace:PT1H}")
+    private Duration staleGrace;
+
+    @Value("${weather.cache.evict-scan-count:500}")
+    private int evictScanCount;
+
+    /** XFetch beta; 0 disables early refresh, higher refreshes earlier */
+    @Value("${weather.cache.early-refresh-beta:1.0}")
+    private double earlyRefreshBeta;
+
+    @Value("${weather.cache.batch-write-size:50}")
+    private int batchWriteSize;
+
+    /** Upper bound for awaiting one batch write (same as the Lettuce command timeout) */
+    @Value("${data.redis.command-timeout:PT2S}")
+    private Duration commandTimeout;
+
+    @Value("${data.redis.health-cache-ttl:PT1S}")
+    private Duration healthCacheTtl;
+
+    // key -> in-flight load of the leader on this node
+    private final Map<String, CompletableFuture<LocalEntry>> inFlight = new ConcurrentHashMap<>();
+
+    // keys with a background refresh running on this node
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** L1 entry: typed value + the timestamps stored with it in Redis */
+    private record LocalEntry(Object value, long fetchedAtMillis, long softExpiresAtMillis, long fetchMillis) {}
+
+    /** Redis envelope: the value plus its soft expiry (Redis TTL = soft expiry + grace) */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CachedValue {
+        private Object data;
+        private long fetchedAt;
+        private long softExpiresAt;
+        /** How long the upstream fetch took; drives probabilistic early refresh */
+        private long fetchMillis;
+    }
+
+    private Cache<String, LocalEntry> l1;
+
+    private Counter l1Hits;
+    private Counter l1Misses;
+    private Counter l2Hits;
+    private Counter l2Misses;
+    private Counter coalescedLocal;
+    private Counter coalescedPeer;
+    private Counter staleServed;
+    private Counter earlyRefreshes;
+    private Counter refreshFailures;
+    private Timer pingTimer;
+
+    private volatile RedisHealth lastHealth;
+
+    @PostConstruct
+    public void init() {
+        // Caffeine's default eviction policy is W-TinyLFU
+        this.l1 = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfter(new Expiry<String, LocalEntry>() {
+                    @Override
+                    public long expireAfterCreate(String key, LocalEntry entry, long currentTime) {
+                        return hardTtlNanos(entry);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, LocalEntry entry, long currentTime, long currentDuration) {
+                        return hardTtlNanos(entry);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, LocalEntry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        l1Hits = tierCounter("l1", "hit");
+        l1Misses = tierCounter("l1", "miss");
+        l2Hits = tierCounter("l2", "hit");
+        l2Misses = tierCounter("l2", "miss");
+        coalescedLocal = Counter.builder("weather.cache.coalesced").tag("scope", "local").register(meterRegistry);
+        coalescedPeer = Counter.builder("weather.cache.coalesced").tag("scope", "peer").register(meterRegistry);
+        staleServed = Counter.builder("weather.cache.stale.served").register(meterRegistry);
+        earlyRefreshes = Counter.builder("weather.cache.refresh.early").register(meterRegistry);
+        refreshFailures = Counter.builder("weather.cache.refresh.failures").register(meterRegistry);
+        Gauge.builder("weather.cache.l1.size", l1, Cache::estimatedSize).register(meterRegistry);
+        pingTimer = Timer.builder("weather.cache.redis.ping")
+                .description("Health probe round trip over the shared Redis connection")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /** L1 keeps an entry exactly as long as Redis does: until soft expiry + grace */
+    private long hardTtlNanos(LocalEntry entry) {
+        long millis = entry.softExpiresAtMillis() + staleGrace.toMillis() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private Counter tierCounter(String tier, String result) {
+        return Counter.builder("weather.cache.requests")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
 
     //----------------- Key builders --------------------------
 
-    /** Rounds to 2dp so nearby locations share cache entries */
+    /** Nearby locations in the same GridCell share cache entries */
     public String weatherCurrentKey(double lat, double lon) {
-        return String.format("weather:forecast:%.2f:%.2f", lat, lon);
+        return weatherCurrentKey(GridCell.of(lat, lon));
+    }
+
+    public String weatherCurrentKey(GridCell cell) {
+        return cell.key("weather:current:");
     }
 
     public String weatherForecastKey(double lat, double lon, int days) {
-        return String.format("weather:forecast:%.2f:%.2f:%d", lat, lon, days);
+        return weatherForecastKey(GridCell.of(lat, lon), days);
+    }
+
+    public String weatherForecastKey(GridCell cell, int days) {
+        return cell.key("weather:forecast:", days);
     }
 
     public String floodDischargeKey(double lat, double lon) {
-        return String.format("flood:discharge:%.2f:%.2f", lat, lon);
+        return floodDischargeKey(GridCell.of(lat, lon));
+    }
+
+    public String floodDischargeKey(GridCell cell) {
+        return cell.key("flood:discharge:");
     }
 
     public String riskLevelKey(double lat, double lon) {
-        return String.format("flood:risk:%.2f:%.2f", lat, lon);
+        return riskLevelKey(GridCell.of(lat, lon));
+    }
+
+    public String riskLevelKey(GridCell cell) {
+        return cell.key("flood:risk:");
     }
 
     //----------------- Core cache-aside ---------------------
@@ -53,40 +299,444 @@ public class CacheService {
     /**
      * Generic get-or-fetch.
      *
+     * Entries are fresh for {@code ttl}; after that they are served as stale for up to
+     * weather.cache.stale-grace while one background refresh runs. If that refresh fails
+     * (Open-Meteo down), the stale value keeps being served until the grace window ends.
+     * Hot keys are also refreshed early, with a probability that rises as expiry nears.
+     *
      * @param key Redis key
-     * @param ttl Time-to-live for new entries
+     * @param ttl Freshness window for new entries
      * @param fetchFn Supplier called on cache miss (e.g. WebClient APi call
      * @param type Deserialization target class
      */
     public <T> T getOrFetch(String key, Duration ttl,
                             Supplier<T> fetchFn, Class<T> type) {
-        // 1. Try cache
+        // 1. Try L1
+        LocalEntry local = l1.getIfPresent(key);
+        if (local != null && type.isInstance(local.value())) {
+            l1Hits.increment();
+            return serve(key, local, ttl, fetchFn, type);
+        }
+        l1Misses.increment();
+
+        // 2. Single-flight: only one caller per key loads, the rest share its result
+        CompletableFuture<LocalEntry> flight = new CompletableFuture<>();
+        CompletableFuture<LocalEntry> leader = inFlight.putIfAbsent(key, flight);
+        LocalEntry entry;
+        if (leader != null) {
+            coalescedLocal.increment();
+            entry = awaitFlight(leader);
+        } else {
+            try {
+                entry = load(key, ttl, fetchFn, type);
+                flight.complete(entry);
+            } catch (RuntimeException e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+        return entry == null ? null : serve(key, entry, ttl, fetchFn, type);
+    }
+
+    /**
+     * Batch get-or-fetch for many keys of the same kind.
+     *
+     * Hits are read from L1, then with one Redis MGET for the rest; only the keys still
+     * missing are passed to {@code batchFetchFn} in a single call (the caller chunks them
+     * into multi-location upstream requests). Each result is stored under its own key, so
+     * later single-key reads hit the cache. Stale hits are refreshed per key in the background.
+     *
+     * @param batchFetchFn missing keys -> fetched values by key (keys without data may be absent)
+     * @return values by key, in the order of {@code keys}; keys with no data are absent
+     */
+    public <T> Map<String, T> getOrFetchAll(List<String> keys, Duration ttl,
+                                            Function<List<String>, Map<String, T>> batchFetchFn,
+                                            Class<T> type) {
+        Map<String, LocalEntry> entries = new LinkedHashMap<>();
+        List<String> missing = lookupAll(keys, ttl, type, entries);
+
+        if (!missing.isEmpty()) {
+            log.debug("Cache MISS: {} keys, fetching as batch", missing.size());
+            long started = System.currentTimeMillis();
+            Map<String, T> fetched = batchFetchFn.apply(missing);
+            long fetchMillis = System.currentTimeMillis() - started;
+            if (fetched != null) {
+                Map<String, T> found = new LinkedHashMap<>();
+                for (String key : missing) {
+                    T value = fetched.get(key);
+                    if (value != null) found.put(key, value);
+                }
+                entries.putAll(storeAll(found, ttl, fetchMillis));
+            }
+        }
+
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            LocalEntry entry = entries.get(key);
+            if (entry != null && !result.containsKey(key)) {
+                Supplier<T> single = () -> {
+                    Map<String, T> one = batchFetchFn.apply(List.of(key));
+                    return one != null ? one.get(key) : null;
+                };
+                result.put(key, serve(key, entry, ttl, single, type));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Typed values for many keys without calling upstream: L1 first, then one MGET for the rest.
+     * Keys found in neither tier are absent from the result; stale values are returned flagged as stale.
+     */
+    public <T> Map<String, T> getAll(Collection<String> keys, Duration ttl, Class<T> type) {
+        Map<String, LocalEntry> entries = new LinkedHashMap<>();
+        lookupAll(keys, ttl, type, entries);
+        long now = System.currentTimeMillis();
+        Map<String, T> result = new LinkedHashMap<>();
+        entries.forEach((key, entry) -> result.put(key, present(entry, now, type)));
+        return result;
+    }
+
+    /** L1, then a single MGET for the L1 misses; fills entries and returns the keys found nowhere */
+    private <T> List<String> lookupAll(Collection<String> keys, Duration ttl, Class<T> type,
+                                       Map<String, LocalEntry> entries) {
+        List<String> l1Missing = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            LocalEntry local = l1.getIfPresent(key);
+            if (local != null && type.isInstance(local.value())) {
+                l1Hits.increment();
+                entries.put(key, local);
+            } else {
+                l1Misses.increment();
+                l1Missing.add(key);
+            }
+        }
+
+        List<String> missing = new ArrayList<>();
+        if (!l1Missing.isEmpty()) {
+            List<Object> cached = null;
+            try {
+                cached = redisTemplate.opsForValue().multiGet(l1Missing);
+            } catch (Exception e) {
+                log.warn("Redis multi-read failed for {} keys: {} - falling through to API",
+                        l1Missing.size(), e.getMessage());
+            }
+            for (int i = 0; i < l1Missing.size(); i++) {
+                String key = l1Missing.get(i);
+                Object raw = cached != null && i < cached.size() ? cached.get(i) : null;
+                if (raw != null) {
+                    l2Hits.increment();
+                    entries.put(key, promote(key, raw, ttl, type));
+                } else {
+                    l2Misses.increment();
+                    missing.add(key);
+                }
+            }
+        }
+        return missing;
+    }
+
+    private LocalEntry awaitFlight(CompletableFuture<LocalEntry> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /** Stale / early-refresh decision, then hand out a copy carrying its freshness */
+    private <T> T serve(String key, LocalEntry entry, Duration ttl, Supplier<T> fetchFn, Class<T> type) {
+        long now = System.currentTimeMillis();
+        boolean stale = now >= entry.softExpiresAtMillis();
+        if (stale) {
+            staleServed.increment();
+            refreshInBackground(key, entry, ttl, fetchFn, type);
+        } else if (shouldRefreshEarly(entry, now)) {
+            earlyRefreshes.increment();
+            refreshInBackground(key, entry, ttl, fetchFn, type);
+        }
+
+        return present(entry, now, type);
+    }
+
+    /** Typed copy of the entry carrying its freshness */
+    private <T> T present(LocalEntry entry, long now, Class<T> type) {
+        T value = type.isInstance(entry.value())
+                ? type.cast(entry.value())
+                : objectMapper.convertValue(entry.value(), type);
+        if (value instanceof CacheFreshnessAware<?> aware) {
+            CacheFreshness freshness = new CacheFreshness(
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.fetchedAtMillis()), ZoneId.systemDefault()),
+                    Math.max(0, (now - entry.fetchedAtMillis()) / 1000),
+                    now >= entry.softExpiresAtMillis());
+            return type.cast(aware.withFreshness(freshness));
+        }
+        return value;
+    }
+
+    /**
+     * Probabilistic early expiration (XFetch): refresh when
+     * now + fetchTime * beta * -ln(rand) >= softExpiry, so keys that are slow to fetch
+     * and read often get refreshed shortly before they go stale, by one caller only.
+     */
+    private boolean shouldRefreshEarly(LocalEntry entry, long now) {
+        if (earlyRefreshBeta <= 0 || entry.fetchMillis() <= 0) return false;
+        double gap = entry.fetchMillis() * earlyRefreshBeta * -Math.log(ThreadLocalRandom.current().nextDouble());
+        return now + gap >= entry.softExpiresAtMillis();
+    }
+
+    private <T> void refreshInBackground(String key, LocalEntry served, Duration ttl,
+                                         Supplier<T> fetchFn, Class<T> type) {
+        if (!refreshing.add(key)) return;
+        try {
+            refreshExecutor.submit(() -> {
+                try {
+                    refresh(key, served, ttl, fetchFn, type);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private <T> void refresh(String key, LocalEntry served, Duration ttl, Supplier<T> fetchFn, Class<T> type) {
+        // Another node may already have refreshed Redis
+        LocalEntry current = readL2(key, ttl, type);
+        if (current != null && current.fetchedAtMillis() > served.fetchedAtMillis()) {
+            return;
+        }
+
+        String lockKey = LOCK_PREFIX + key;
+        String lockToken = UUID.randomUUID().toString();
+        if (!tryLock(lockKey, lockToken)) {
+            // Lock holder is refreshing; the next read picks its value up from Redis
+            return;
+        }
+        try {
+            if (fetchAndStore(key, ttl, fetchFn) == null) {
+                refreshFailures.increment();
+                log.warn("Background refresh returned nothing [key={}] - serving stale data", key);
+            }
+        } catch (Exception e) {
+            refreshFailures.increment();
+            log.warn("Background refresh failed [key={}]: {} - serving stale data", key, e.getMessage());
+        } finally {
+            unlock(lockKey, lockToken);
+        }
+    }
+
+    /** L2 lookup, then upstream fetch under the cross-node refresh lock */
+    private <T> LocalEntry load(String key, Duration ttl, Supplier<T> fetchFn, Class<T> type) {
+        // 3. Try L2 (Redis)
+        LocalEntry cached = readL2(key, ttl, type);
+        if (cached != null) {
+            l2Hits.increment();
+            return cached;
+        }
+        l2Misses.increment();
+
+        String lockKey = LOCK_PREFIX + key;
+        String lockToken = UUID.randomUUID().toString();
+        boolean locked = tryLock(lockKey, lockToken);
+        if (!locked) {
+            // Another node is fetching this key - wait for its result
+            LocalEntry fromPeer = awaitPeer(key, ttl, type);
+            if (fromPeer != null) {
+                coalescedPeer.increment();
+                return fromPeer;
+            }
+        }
+
+        try {
+            // 4. Cache miss - call API
+            log.debug("Cache MISS: {}", key);
+            return fetchAndStore(key, ttl, fetchFn);
+        } finally {
+            if (locked) {
+                unlock(lockKey, lockToken);
+            }
+        }
+    }
+
+    private <T> LocalEntry fetchAndStore(String key, Duration ttl, Supplier<T> fetchFn) {
+        long started = System.currentTimeMillis();
+        T result = fetchFn.get();
+        return result == null ? null : store(key, ttl, result, System.currentTimeMillis() - started);
+    }
+
+    private LocalEntry store(String key, Duration ttl, Object result, long fetchMillis) {
+        // 5. Store result (failures are non-fatal); Redis keeps it through the grace window
+        long fetchedAt = System.currentTimeMillis();
+        LocalEntry entry = new LocalEntry(result, fetchedAt, fetchedAt + ttl.toMillis(), fetchMillis);
+        l1.put(key, entry);
+        try {
+            redisTemplate.opsForValue().set(key,
+                    new CachedValue(result, entry.fetchedAtMillis(), entry.softExpiresAtMillis(), entry.fetchMillis()),
+                    ttl.plus(staleGrace));
+            log.debug("Cache SET: {} (TTL={}, grace={})", key, ttl, staleGrace);
+        } catch (Exception e){
+            log.warn("Redis write failed [key={}]: {}", key, e.getMessage());
+        }
+        return entry;
+    }
+
+    /** Batch counterpart of store(): L1 for each value, Redis in one round of async SET PX per chunk */
+    private Map<String, LocalEntry> storeAll(Map<String, ?> values, Duration ttl, long fetchMillis) {
+        long fetchedAt = System.currentTimeMillis();
+        Map<String, LocalEntry> stored = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (value == null) return;
+            LocalEntry entry = new LocalEntry(value, fetchedAt, fetchedAt + ttl.toMillis(), fetchMillis);
+            l1.put(key, entry);
+            stored.put(key, entry);
+        });
+
+        List<String> keys = new ArrayList<>(stored.keySet());
+        for (int from = 0; from < keys.size(); from += batchWriteSize) {
+            List<String> chunk = keys.subList(from, Math.min(keys.size(), from + batchWriteSize));
+            try {
+                writeChunk(chunk, stored, ttl.plus(staleGrace));
+                log.debug("Cache SET: {} keys (TTL={}, grace={})", chunk.size(), ttl, staleGrace);
+            } catch (Exception e) {
+                log.warn("Redis batch write of {} keys failed: {}", chunk.size(), e.getMessage());
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Plain SET PX commands sent back to back on the shared native connection, then awaited together,
+     * so the chunk costs one round trip. MSET has no TTL, a Lua script would hold the Redis event loop
+     * for the whole chunk, and executePipelined would open a dedicated connection per call (no pool).
+     */
+    @SuppressWarnings("unchecked")
+    private void writeChunk(List<String> keys, Map<String, LocalEntry> entries, Duration redisTtl) {
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        SetArgs px = SetArgs.Builder.px(redisTtl.toMillis());
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            // Outside a pipeline / MULTI, LettuceConnection hands out the shared connection's async commands
+            RedisClusterAsyncCommands<byte[], byte[]> commands =
+                    (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+            List<RedisFuture<String>> writes = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                LocalEntry entry = entries.get(key);
+                writes.add(commands.set(RedisSerializer.string().serialize(key),
+                        valueSerializer.serialize(new CachedValue(entry.value(),
+                                entry.fetchedAtMillis(), entry.softExpiresAtMillis(), entry.fetchMillis())),
+                        px));
+            }
+            if (!LettuceFutures.awaitAll(commandTimeout, writes.toArray(new RedisFuture[0]))) {
+                throw new RedisCommandTimeoutException("Batch write of " + keys.size() + " keys timed out");
+            }
+            return null;
+        });
+    }
+
+    private <T> LocalEntry readL2(String key, Duration ttl, Class<T> type) {
         try {
             Object cached = redisTemplate.opsForValue().get(key);
-            if (cached != null) {
-                log.debug("Cache HIT: {}", key);
-                return objectMapper.convertValue(cached, type);
+            if (cached == null) {
+                return null;
             }
+            log.debug("Cache HIT: {}", key);
+            return promote(key, cached, ttl, type);
         } catch (Exception e) {
             log.warn("Redis read failed [key={}]: {} - falling through to API",
                     key, e.getMessage());
         }
+        return null;
+    }
 
-        // 2. Cache miss - call API
-        log.debug("Cache MISS: {}", key);
-        T result = fetchFn.get();
+    /** Turn a raw Redis value into an L1 entry and keep it in L1 */
+    private <T> LocalEntry promote(String key, Object cached, Duration ttl, Class<T> type) {
+        LocalEntry entry;
+        if (cached instanceof CachedValue envelope) {
+            entry = new LocalEntry(toType(envelope.getData(), type),
+                    envelope.getFetchedAt(), envelope.getSoftExpiresAt(), envelope.getFetchMillis());
+        } else {
+            // Entry written before soft expiry existed: derive its age from the remaining TTL
+            long now = System.currentTimeMillis();
+            long fetchedAt = now - (ttl.toMillis() - remainingTtl(key, ttl).toMillis());
+            entry = new LocalEntry(toType(cached, type), fetchedAt, fetchedAt + ttl.toMillis(), 0);
+        }
+        l1.put(key, entry);
+        return entry;
+    }
 
-        // 3. Store result (failures are non-fatal)
+    private <T> T toType(Object value, Class<T> type) {
+        return type.isInstance(value) ? type.cast(value) : objectMapper.convertValue(value, type);
+    }
+
+    /** @return true if this node may fetch (lock taken, lock disabled, or Redis unavailable) */
+    private boolean tryLock(String lockKey, String token) {
+        if (!refreshLockEnabled) return true;
         try {
-            if (result != null) {
-                redisTemplate.opsForValue().set(key, result, ttl);
-                log.debug("Cache SET: {} (TTL={})", key, ttl);
+            return !Boolean.FALSE.equals(
+                    stringRedisTemplate.opsForValue().setIfAbsent(lockKey, token, refreshLockTtl));
+        } catch (Exception e) {
+            log.debug("Refresh lock unavailable [key={}]: {}", lockKey, e.getMessage());
+            return true;
+        }
+    }
+
+    private void unlock(String lockKey, String token) {
+        if (!refreshLockEnabled) return;
+        try {
+            stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.debug("Refresh lock release failed [key={}]: {}", lockKey, e.getMessage());
+        }
+    }
+
+    private <T> LocalEntry awaitPeer(String key, Duration ttl, Class<T> type) {
+        long deadline = System.nanoTime() + refreshLockWait.toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            try {
+                Thread.sleep(PEER_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
             }
-        } catch (Exception e){
-            log.warn("Redis write failed [key={}]: {}", key, e.getMessage());
+            LocalEntry entry = readL2(key, ttl, type);
+            if (entry != null) return entry;
         }
+        log.debug("Refresh lock holder did not publish [key={}] in time - fetching", key);
+        return null;
+    }
 
-        return result;
+    /** Remaining Redis TTL for the key; falls back to the data type's default TTL */
+    private Duration remainingTtl(String key, Duration fallback) {
+        try {
+            Long millis = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+            if (millis != null && millis > 0) {
+                return Duration.ofMillis(millis);
+            }
+        } catch (Exception e) {
+            log.debug("Redis TTL read failed [key={}]: {}", key, e.getMessage());
+        }
+        return fallback;
+    }
+
+    /**
+     * Write a freshly computed value (e.g. by the poller) so readers never wait for it.
+     * This node keeps the value in L1; other nodes drop their copy and pick the new value up from Redis.
+     */
+    public void put(String key, Object value, Duration ttl) {
+        store(key, ttl, value, 0);
+        publishInvalidation(key);
+    }
+
+    /** Batch put: one round of async writes per chunk and a single invalidation message for all keys */
+    public void putAll(Map<String, ?> values, Duration ttl) {
+        Map<String, LocalEntry> stored = storeAll(values, ttl, 0);
+        if (!stored.isEmpty()) {
+            publishInvalidation(String.join(INVALIDATION_SEPARATOR, stored.keySet()));
+        }
     }
 
     //--------------- Eviction ----------------------------
@@ -99,43 +749,145 @@ public class CacheService {
         } catch (Exception e) {
             log.warn("Cache evict failed: [key={}]: {}", key, e.getMessage());
         }
+        // After the Redis delete, so a concurrent read cannot re-promote the old value
+        l1.invalidate(key);
+        publishInvalidation(key);
     }
 
     /** Evict all weather + flood cache entries for a specific location */
     public void evictLocation(double lat, double lon) {
-        evict(weatherCurrentKey(lat, lon));
-        evict(weatherForecastKey(lat, lon, 7));
-        evict(weatherForecastKey(lat, lon, 16));
-        evict(floodDischargeKey(lat, lon));
-        evict(riskLevelKey(lat, lon));
+        GridCell cell = GridCell.of(lat, lon);
+        evict(weatherCurrentKey(cell));
+        evict(weatherForecastKey(cell, 7));
+        evict(weatherForecastKey(cell, 16));
+        evict(floodDischargeKey(cell));
+        evict(riskLevelKey(cell));
         log.info("All cache evicted for location [{}, {}]", lat, lon);
     }
 
-    /** Evict all weather-related keys across all locations */
-    public void evictAll() {
-        try {
-            Set<String> weatherKeys = redisTemplate.keys("weather:*");
-            Set<String> floodKeys = redisTemplate.keys("flood:*");
-            if (weatherKeys != null && !weatherKeys.isEmpty()) {
-                redisTemplate.delete(weatherKeys);
-                log.info("Evicted {} weather cache entries", weatherKeys.size());
+    /**
+     * Evict all weather-related keys across all locations.
+     *
+     * Keys are walked with a SCAN cursor and removed with UNLINK in chunks of evict-scan-count,
+     * so Redis never blocks on a full KEYS walk and frees the values in the background.
+     * Keys written while the scan runs may survive - they are fresh anyway.
+     */
+    public long evictAll() {
+        long evicted = 0;
+        for (String namespace : EVICTABLE_NAMESPACES) {
+            try {
+                long count = unlinkMatching(namespace + "*");
+                evicted += count;
+                log.info("Evicted {} {} cache entries", count, namespace);
+            } catch (Exception e) {
+                log.warn("Cache evict-all of {}* failed: {}", namespace, e.getMessage());
             }
-            if (floodKeys != null && !floodKeys.isEmpty()) {
-                redisTemplate.delete(floodKeys);
-                log.info("Evicted {} flood cache entries", floodKeys.size());
+        }
+        l1.invalidateAll();
+        publishInvalidation(INVALIDATE_ALL);
+        return evicted;
+    }
+
+    private long unlinkMatching(String pattern) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(evictScanCount).build();
+        long unlinked = 0;
+        List<String> chunk = new ArrayList<>(evictScanCount);
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() >= evictScanCount) {
+                    unlinked += unlink(chunk);
+                    chunk = new ArrayList<>(evictScanCount);
+                }
             }
+        }
+        return chunk.isEmpty() ? unlinked : unlinked + unlink(chunk);
+    }
+
+    private long unlink(List<String> chunk) {
+        Long removed = stringRedisTemplate.unlink(chunk);
+        return removed != null ? removed : 0;
+    }
+
+    /** @param payload one key, several keys joined by the separator, or {@link #INVALIDATE_ALL} */
+    private void publishInvalidation(String payload) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + INVALIDATION_SEPARATOR + payload);
         } catch (Exception e) {
-            log.warn("Cache evict-all failed: {}", e.getMessage());
+            // Other nodes keep their L1 copy until it expires
+            log.warn("Cache invalidation broadcast failed [{}]: {}", payload, e.getMessage());
         }
     }
 
+    /**
+     * Invalidation from another node - drop the L1 copy.
+     * Own broadcasts are skipped: the sender already updated or invalidated its L1 before publishing.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        List<String> parts = List.of(new String(message.getBody(), StandardCharsets.UTF_8).split(INVALIDATION_SEPARATOR));
+        if (parts.size() < 2 || nodeId.equals(parts.get(0))) {
+            return;
+        }
+        List<String> keys = parts.subList(1, parts.size());
+        if (keys.equals(List.of(INVALIDATE_ALL))) {
+            l1.invalidateAll();
+        } else {
+            l1.invalidateAll(keys);
+        }
+    }
+
+    //-------------- Stats ----------------------
+
+    /** Per-tier hit/miss and refresh counters (same values as the weather.cache.* meters) */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("l1Size", l1.estimatedSize());
+        stats.put("l1Hits", (long) l1Hits.count());
+        stats.put("l1Misses", (long) l1Misses.count());
+        stats.put("l2Hits", (long) l2Hits.count());
+        stats.put("l2Misses", (long) l2Misses.count());
+        stats.put("coalescedLocal", (long) coalescedLocal.count());
+        stats.put("coalescedPeer", (long) coalescedPeer.count());
+        stats.put("staleServed", (long) staleServed.count());
+        stats.put("earlyRefreshes", (long) earlyRefreshes.count());
+        stats.put("refreshFailures", (long) refreshFailures.count());
+        return stats;
+    }
+
     //-------------- Health ----------------------
-    public boolean isRedisAvailable() {
+
+    /** Result of the last PING over the shared connection */
+    public record RedisHealth(boolean available, long latencyMicros, Instant checkedAt) {}
+
+    /**
+     * PING over the shared Lettuce connection (no connection opened per probe). The result is reused
+     * for health-cache-ttl, so frequent status polling adds at most one PING per interval under load.
+     */
+    public RedisHealth redisHealth() {
+        RedisHealth last = lastHealth;
+        Instant now = Instant.now();
+        if (last != null && now.isBefore(last.checkedAt().plus(healthCacheTtl))) {
+            return last;
+        }
+        long started = System.nanoTime();
+        boolean available;
         try {
-            redisTemplate.getConnectionFactory().getConnection().ping();
-            return true;
+            available = "PONG".equalsIgnoreCase(redisTemplate.execute((RedisCallback<String>) RedisConnection::ping));
         } catch (Exception e) {
-            return false;
+            log.debug("Redis health probe failed: {}", e.getMessage());
+            available = false;
+        }
+        long latencyNanos = System.nanoTime() - started;
+        if (available) {
+            pingTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
         }
+        RedisHealth health = new RedisHealth(available, TimeUnit.NANOSECONDS.toMicros(latencyNanos), now);
+        lastHealth = health;
+        return health;
+    }
+
+    public boolean isRedisAvailable() {
+        return redisHealth().available();
     }
 }
@@ -6,6 +6,7 @@ import com.cloudinary.utils.ObjectUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 import java.util.UUID;
@@ -30,10 +31,16 @@ public class CloudinaryService {
             throw new RuntimeException("File is empty");
         }
 
-        String contentType = file.getContentType();
-        long fileSize = file.getSize();
+        String resourceType = resolveResourceType(file.getContentType(), file.getSize());
 
-        String resourceType;
+        return uploadBytes(file.getBytes(), resourceType);
+    }
+
+    /**
+     * Validate content type / size and return the Cloudinary resource type ("image" | "video").
+     * Called on the request thread so invalid files are rejected before anything is saved.
+     */
+    public String resolveResourceType(String contentType, long fileSize) {
 
         if (contentType != null && contentType.startsWith("image/")) {
 
@@ -41,7 +48,7 @@ public class CloudinaryService {
                 throw new RuntimeException("Image must be <= 5MB");
             }
 
-            resourceType = "image";
+            return "image";
 
         } else if (contentType != null && contentType.startsWith("video/")) {
 
@@ -49,14 +56,26 @@ public class CloudinaryService {
                 throw new RuntimeException("Video must be <= 25MB");
             }
 
-            resourceType = "video";
+            return "video";
 
         } else {
             throw new RuntimeException("Only image and video files allowed");
         }
+    }
+
+    /** Upload already-validated bytes. Used by the background media pipeline. */
+    public String uploadBytes(byte[] bytes, String resourceType) throws IOException {
+        return uploadValidated(bytes, resourceType);
+    }
+
+    /** Upload an already-validated file the media pipeline spilled to disk; streamed, not loaded into the heap. */
+    public String uploadFile(File file, String resourceType) throws IOException {
+        return uploadValidated(file, resourceType);
+    }
 
+    private String uploadValidated(Object source, String resourceType) throws IOException {
         Map<?, ?> result = cloudinary.uploader().upload(
-                file.getBytes(),
+                source,
                 ObjectUtils.asMap(
                         "folder", "floodcoord/rescue_requests",
                         "public_id", UUID.randomUUID().toString(),
@@ -68,4 +87,4 @@ public class CloudinaryService {
 
         return result.get("secure_url").toString();
     }
-}
\ No newline at end of file
+}
@@ -2,45 +2,36 @@ package com.team6.floodcoord.service;
 
 import com.team6.floodcoord.dto.MonthlyStatDTO;
 import com.team6.floodcoord.dto.response.CoordinatorDashboardResponse;
-import com.team6.floodcoord.model.enums.RequestStatus;
-import com.team6.floodcoord.repository.jpa.IncidentReportRepository;
-import com.team6.floodcoord.repository.jpa.RequestSupplyRepository;
-import com.team6.floodcoord.repository.jpa.RescueRequestRepository;
+import com.team6.floodcoord.model.DailyStats;
+import com.team6.floodcoord.repository.jpa.DailyStatsRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.YearMonth;
 
 @Service
 @RequiredArgsConstructor
 public class CoordinatorAnalyticsService {
-    private final RescueRequestRepository rescueRequestRepository;
-    private final IncidentReportRepository incidentReportRepository;
-    private final RequestSupplyRepository requestSupplyRepository;
+    private final DailyStatsRepository dailyStatsRepository;
 
     public CoordinatorDashboardResponse getDashboardStats(LocalDate startDate, LocalDate endDate, LocalDate compareStartDate, LocalDate compareEndDate) {
 
-        // Convert sang LocalDateTime
-        LocalDateTime startTarget = startDate.atStartOfDay();
-        LocalDateTime endTarget = endDate.atTime(23, 59, 59);
-        LocalDateTime startCompare = compareStartDate.atStartOfDay();
-        LocalDateTime endCompare = compareEndDate.atTime(23, 59, 59);
+        // Đọc từ rollup daily_stats: 1 query / kỳ, không phụ thuộc độ dài khoảng ngày
+        DailyStatsRepository.TotalsView current = dailyStatsRepository.sumRange(DailyStats.ALL_TEAMS, startDate, endDate);
+        DailyStatsRepository.TotalsView compare = dailyStatsRepository.sumRange(DailyStats.ALL_TEAMS, compareStartDate, compareEndDate);
 
         // 1. Số ca giải quyết xong (COMPLETED)
-        long currentResolved = rescueRequestRepository.countByStatusAndCompletedAtBetween(
-                RequestStatus.COMPLETED, startTarget, endTarget);
-        long lastResolved = rescueRequestRepository.countByStatusAndCompletedAtBetween(
-                RequestStatus.COMPLETED, startCompare, endCompare);
+        long currentResolved = current.getRequestsResolved();
+        long lastResolved = compare.getRequestsResolved();
 
         // 2. Số lượng báo cáo sự cố
-        long currentIncidents = incidentReportRepository.countByCreatedAtBetween(startTarget, endTarget);
-        long lastIncidents = incidentReportRepository.countByCreatedAtBetween(startCompare, endCompare);
+        long currentIncidents = current.getIncidentsCreated();
+        long lastIncidents = compare.getIncidentsCreated();
 
         // 3. Tổng vật tư xuất kho
-        long currentSupplies = requestSupplyRepository.sumSupplyQuantityByDateRange(startTarget, endTarget);
-        long lastSupplies = requestSupplyRepository.sumSupplyQuantityByDateRange(startCompare, endCompare);
+        long currentSupplies = current.getSuppliesExported();
+        long lastSupplies = compare.getSuppliesExported();
 
         return CoordinatorDashboardResponse.builder()
                 .resolvedRequests(buildMonthlyStat(currentResolved, lastResolved))
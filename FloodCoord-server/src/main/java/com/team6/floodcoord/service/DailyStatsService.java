@@ -0,0 +1,141 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.event.StatsDaysTouchedEvent;
+import com.team6.floodcoord.model.DailyStats;
+import com.team6.floodcoord.model.DailyStatsId;
+import com.team6.floodcoord.model.enums.RequestStatus;
+import com.team6.floodcoord.repository.jpa.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Duy trì bảng rollup daily_stats.
+ *
+ * - Tăng dần: mỗi commit làm thay đổi số liệu sẽ đánh dấu ngày liên quan (StatsDaysTouchedEvent),
+ *   các ngày "bẩn" được dựng lại theo lô mỗi daily-stats.flush-interval
+ * - Compaction hằng đêm: dựng lại daily-stats.compaction-days ngày gần nhất để bù event bị mất
+ * - Lần đầu chạy (bảng rỗng): backfill từ ngày có dữ liệu sớm nhất
+ *
+ * Mỗi ngày được dựng lại từ bảng gốc (delete + insert trong 1 transaction) nên kết quả luôn khớp
+ * với các query gốc, kể cả khi request đổi trạng thái COMPLETED -> REPORTED hay được chấm điểm sau.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyStatsService {
+
+    private static final List<RequestStatus> MISSION_STATUSES = List.of(RequestStatus.COMPLETED, RequestStatus.REPORTED);
+
+    private final DailyStatsRepository dailyStatsRepository;
+    private final UserRepository userRepository;
+    private final RescueRequestRepository rescueRequestRepository;
+    private final IncidentReportRepository incidentReportRepository;
+    private final RequestSupplyRepository requestSupplyRepository;
+    private final TransactionRetryExecutor transactionRetryExecutor;
+
+    private final Set<LocalDate> dirtyDays = ConcurrentHashMap.newKeySet();
+
+    @Value("${daily-stats.compaction-days:3}")
+    private int compactionDays;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatsDaysTouched(StatsDaysTouchedEvent event) {
+        dirtyDays.addAll(event.days());
+    }
+
+    @Scheduled(fixedDelayString = "${daily-stats.flush-interval:PT30S}", initialDelayString = "${daily-stats.flush-interval:PT30S}")
+    public void flushDirtyDays() {
+        if (dirtyDays.isEmpty()) return;
+
+        List<LocalDate> days = new ArrayList<>(dirtyDays);
+        dirtyDays.removeAll(days);
+        rebuildDays(days);
+    }
+
+    @Scheduled(cron = "${daily-stats.compaction-cron:0 30 2 * * *}")
+    public void nightlyCompaction() {
+        LocalDate today = LocalDate.now();
+        List<LocalDate> days = today.minusDays(compactionDays).datesUntil(today.plusDays(1)).toList();
+        rebuildDays(days);
+        log.info("daily_stats compaction rebuilt {} days", days.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (dailyStatsRepository.count() > 0) return;
+
+        Optional<LocalDate> earliest = Stream.of(
+                        rescueRequestRepository.findEarliestCreatedAt(),
+                        userRepository.findEarliestCreatedAt())
+                .flatMap(Optional::stream)
+                .map(LocalDateTime::toLocalDate)
+                .min(Comparator.naturalOrder());
+        if (earliest.isEmpty()) return;
+
+        List<LocalDate> days = earliest.get().datesUntil(LocalDate.now().plusDays(1)).toList();
+        log.info("daily_stats is empty, backfilling {} days from {}", days.size(), earliest.get());
+        rebuildDays(days);
+    }
+
+    /** Dựng lại từng ngày; ngày lỗi được đưa lại vào hàng đợi bẩn để thử ở lần flush sau. */
+    public synchronized void rebuildDays(Collection<LocalDate> days) {
+        for (LocalDate day : days) {
+            try {
+                transactionRetryExecutor.run("rebuild daily_stats " + day, () -> rebuildDay(day));
+            } catch (Exception e) {
+                log.warn("daily_stats rebuild failed for {}: {}", day, e.getMessage());
+                dirtyDays.add(day);
+            }
+        }
+    }
+
+    private void rebuildDay(LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.atTime(LocalTime.MAX);
+        LocalDateTime now = LocalDateTime.now();
+
+        DailyStats global = newRow(day, DailyStats.ALL_TEAMS, now);
+        global.setNewUsers(userRepository.countByCreatedAtBetween(start, end));
+        global.setRequestsCreated(rescueRequestRepository.countByCreatedAtBetween(start, end));
+        global.setRequestsResolved(rescueRequestRepository.countByStatusAndCompletedAtBetween(RequestStatus.COMPLETED, start, end));
+        global.setIncidentsCreated(incidentReportRepository.countByCreatedAtBetween(start, end));
+        global.setSuppliesExported(requestSupplyRepository.sumSupplyQuantityByDateRange(start, end));
+
+        Map<Long, DailyStats> teamRows = new HashMap<>();
+        rescueRequestRepository.aggregateMissionsByTeam(MISSION_STATUSES, start, end).forEach(row -> {
+            DailyStats stats = teamRows.computeIfAbsent(row.getTeamId(), id -> newRow(day, id, now));
+            stats.setMissionsCompleted(row.getMissions());
+            stats.setRatingSum(row.getRatingSum());
+            stats.setRatingCount(row.getRatingCount());
+        });
+        rescueRequestRepository.aggregateRescuedByTeam(MISSION_STATUSES, start, end).forEach(row ->
+                teamRows.computeIfAbsent(row.getTeamId(), id -> newRow(day, id, now))
+                        .setRescuedPeople(row.getRescued()));
+
+        dailyStatsRepository.deleteByDay(day);
+        dailyStatsRepository.flush();
+        dailyStatsRepository.save(global);
+        dailyStatsRepository.saveAll(teamRows.values());
+    }
+
+    private DailyStats newRow(LocalDate day, Long teamId, LocalDateTime refreshedAt) {
+        return DailyStats.builder()
+                .id(new DailyStatsId(day, teamId))
+                .refreshedAt(refreshedAt)
+                .build();
+    }
+}
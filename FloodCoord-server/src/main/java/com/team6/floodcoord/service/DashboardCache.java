@@ -0,0 +1,67 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.event.SupplyStockChangedEvent;
+import com.team6.floodcoord.event.TeamStatusChangedEvent;
+import com.team6.floodcoord.event.VehicleStatusChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache in-process, TTL ngắn, cho số liệu dashboard (mỗi dashboard 1 key).
+ *
+ * Toàn bộ entry bị xóa ngay khi có thay đổi trạng thái đội / xe / tồn kho được commit,
+ * nên TTL chỉ là lưới an toàn cho các thay đổi không phát event.
+ */
+@Slf4j
+@Component
+public class DashboardCache {
+
+    private record Entry(Object value, long expiresAtNanos) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public DashboardCache(@Value("${dashboard.cache.ttl:PT30S}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.expiresAtNanos() < 0) {
+            return (T) entry.value();
+        }
+
+        T value = loader.get();
+        entries.put(key, new Entry(value, now + ttlNanos));
+        return value;
+    }
+
+    public void evictAll() {
+        entries.clear();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTeamStatusChanged(TeamStatusChangedEvent event) {
+        evictAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVehicleStatusChanged(VehicleStatusChangedEvent event) {
+        evictAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSupplyStockChanged(SupplyStockChangedEvent event) {
+        evictAll();
+    }
+}
@@ -1,24 +1,46 @@
 package com.team6.floodcoord.service;
 
+import com.team6.floodcoord.dto.Coord;
 import com.team6.floodcoord.dto.FloodDischargeDTO;
+import com.team6.floodcoord.dto.GridCell;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
-import org.springframework.web.client.RestClientException;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FloodService {
 
+    /** Learned grid cell -> river cell mapping; outside "flood:*" so evictAll keeps it */
+    private static final String RIVER_CELL_PREFIX = "river-cell:";
+    /** Marker for a cell where no nudge found a river */
+    private static final String NO_RIVER = "none";
+
     private final CacheService cacheService;
-    private final RestClient restClient = RestClient.create();
+    private final StringRedisTemplate redisTemplate;
+    private final OpenMeteoClient openMeteoClient;
+    private final ExecutorService nudgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     @Value("${weather.open-meteo.flood-url}")
     private String floodUrl;
@@ -26,85 +48,307 @@ public class FloodService {
     @Value("${weather.cache.ttl-minutes:30}")
     private long ttlMinutes;
 
+    /** Max coordinates per multi-location Open-Meteo request */
+    @Value("${weather.open-meteo.batch-size:50}")
+    private int batchSize;
+
+    @Value("${weather.flood.nudge-timeout:PT20S}")
+    private Duration nudgeTimeout;
+
+    @Value("${weather.flood.river-cell-ttl:P30D}")
+    private Duration riverCellTtl;
+
+    @Value("${weather.flood.no-river-ttl:P1D}")
+    private Duration noRiverTtl;
+
     // ─── Public API ────────────────────────────────────────────────────────────
 
+    /**
+     * @return discharge data (served stale from the cache while the API is down), an empty DTO for a cell
+     *         without a river, or null when the API failed and nothing is cached
+     */
     public FloodDischargeDTO getRiverDischarge(double lat, double lon) {
-        String key = cacheService.floodDischargeKey(lat, lon);
+        GridCell cell = GridCell.of(lat, lon);
         return cacheService.getOrFetch(
-                key,
+                cacheService.floodDischargeKey(cell),
+                Duration.ofMinutes(ttlMinutes),
+                () -> fetchWithFallback(cell.latitude(), cell.longitude()),
+                FloodDischargeDTO.class
+        );
+    }
+
+    /**
+     * River discharge for many points. Misses are fetched with chunked multi-location
+     * requests; points without river data there fall back to coordinate nudging one by one.
+     */
+    public Map<Coord, FloodDischargeDTO> getRiverDischargeBatch(List<Coord> coords) {
+        Map<String, Coord> coordsByKey = new LinkedHashMap<>();
+        for (Coord c : coords) {
+            GridCell cell = GridCell.of(c);
+            coordsByKey.putIfAbsent(cacheService.floodDischargeKey(cell), cell.center());
+        }
+
+        Map<String, FloodDischargeDTO> byKey = cacheService.getOrFetchAll(
+                new ArrayList<>(coordsByKey.keySet()),
                 Duration.ofMinutes(ttlMinutes),
-                () -> fetchWithFallback(lat, lon),
+                missing -> fetchBatchWithFallback(missing, coordsByKey),
                 FloodDischargeDTO.class
         );
+
+        Map<Coord, FloodDischargeDTO> result = new LinkedHashMap<>();
+        for (Coord c : coords) {
+            FloodDischargeDTO dto = byKey.get(cacheService.floodDischargeKey(GridCell.of(c)));
+            if (dto != null) {
+                result.put(c, dto);
+            }
+        }
+        return result;
     }
 
     // ─── Private fetcher with coordinate nudging ───────────────────────────────
 
     /**
      * GloFAS has 5 km resolution — if no river is found at exact coordinates,
-     * we nudge by ±0.05° in four directions and retry.
+     * we nudge by ±0.05° in four directions at once and keep the first valid answer.
+     * The winning coordinate is remembered per grid cell, so later lookups go straight there.
      */
 
+    private record Nudge(Coord coord, FloodDischargeDTO result) {}
+
     private boolean isValid(FloodDischargeDTO dto) {
-        return dto != null && dto.getLatestDischarge() != null && dto.getLatestDischarge() > 0;
+        return dto != null && dto.getLatestDischarge() > 0;
     }
 
+    /**
+     * @return discharge data, an empty DTO when the API answered cleanly that there is no river nearby,
+     *         or null when a call failed or timed out (the result is unknown and must not be cached)
+     */
     private FloodDischargeDTO fetchWithFallback(double lat, double lon) {
+        String learned = findRiverCell(lat, lon);
+        Coord riverCell = parseRiverCell(learned);
+        if (riverCell != null) {
+            FloodDischargeDTO mapped = fetchFromAPI(riverCell.latitude(), riverCell.longitude());
+            if (mapped == null) {
+                return null;
+            }
+            if (isValid(mapped)) {
+                return mapped;
+            }
+            log.info("Learned river cell [{},{}] no longer has data — relearning",
+                    riverCell.latitude(), riverCell.longitude());
+        }
+
         FloodDischargeDTO result = fetchFromAPI(lat, lon);
 
-        if (isValid(result)) {
+        if (result == null || isValid(result) || NO_RIVER.equals(learned)) {
             return result;
         }
+        return fetchNudged(lat, lon);
+    }
 
+    /** @return the first valid nudge, an empty DTO if all four answered without data, otherwise null */
+    private FloodDischargeDTO fetchNudged(double lat, double lon) {
         log.warn("No river data at [{},{}] — trying coordinate nudges", lat, lon);
-        double[][] nudges = {
-                {lat + 0.05, lon},
-                {lat - 0.05, lon},
-                {lat, lon + 0.05},
-                {lat, lon - 0.05}
-//                {lat + 0.05, lon},
-//                {lat, lon + 0.05}
-        };
-
-        for (double[] nudge : nudges) {
-            FloodDischargeDTO nudged = fetchFromAPI(nudge[0], nudge[1]);
-
-            if (isValid(nudged)) {
-                log.info("River data found at nudged coords [{},{}]",
-                        nudge[0], nudge[1]);
-                return nudged;
+        List<Coord> nudges = List.of(
+                new Coord(lat + 0.05, lon),
+                new Coord(lat - 0.05, lon),
+                new Coord(lat, lon + 0.05),
+                new Coord(lat, lon - 0.05)
+        );
+
+        CompletionService<Nudge> completion = new ExecutorCompletionService<>(nudgeExecutor);
+        List<Future<Nudge>> futures = nudges.stream()
+                .map(n -> completion.submit(() -> new Nudge(n, fetchFromAPI(n.latitude(), n.longitude()))))
+                .toList();
+
+        // Remember "no river" only if all four nudges answered cleanly (no API error or timeout)
+        boolean conclusive = true;
+        long deadline = System.nanoTime() + nudgeTimeout.toNanos();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                Future<Nudge> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    log.warn("Coordinate nudges for [{},{}] timed out after {}", lat, lon, nudgeTimeout);
+                    conclusive = false;
+                    break;
+                }
+                Nudge nudge = done.get();
+                if (isValid(nudge.result())) {
+                    log.info("River data found at nudged coords [{},{}]",
+                            nudge.coord().latitude(), nudge.coord().longitude());
+                    rememberRiverCell(lat, lon, nudge.coord());
+                    return nudge.result();
+                }
+                if (nudge.result() == null) {
+                    conclusive = false;
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            conclusive = false;
+        } catch (ExecutionException e) {
+            log.error("Coordinate nudge failed for [{},{}]: {}", lat, lon, e.getMessage());
+            conclusive = false;
+        } finally {
+            futures.forEach(f -> f.cancel(true));
         }
 
+        if (!conclusive) {
+            log.warn("River discharge near [{},{}] unknown - a nudge failed or timed out", lat, lon);
+            return null;
+        }
         log.warn("No river discharge data found near [{},{}]", lat, lon);
+        rememberNoRiver(lat, lon);
         return new FloodDischargeDTO();
     }
 
-    private FloodDischargeDTO fetchFromAPI(double lat, double lon) {
+    /**
+     * One request per chunk of up to batchSize points (Open-Meteo returns a JSON array
+     * in coordinate order). Points with a learned river cell are requested at that cell.
+     * Points with no river there, and whole chunks that fail, fall back to the single-point path.
+     * Points whose lookup failed are left out of the result, so they are not cached.
+     */
+    private Map<String, FloodDischargeDTO> fetchBatchWithFallback(List<String> keys,
+                                                                  Map<String, Coord> coordsByKey) {
+        Map<String, FloodDischargeDTO> results = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<String> chunk = keys.subList(from, Math.min(from + batchSize, keys.size()));
+            List<Coord> coords = chunk.stream().map(coordsByKey::get).toList();
+            List<String> learned = findRiverCells(coords);
+
+            List<Coord> targets = new ArrayList<>(coords.size());
+            for (int i = 0; i < coords.size(); i++) {
+                Coord riverCell = parseRiverCell(learned.get(i));
+                targets.add(riverCell != null ? riverCell : coords.get(i));
+            }
+
+            FloodDischargeDTO[] body = chunk.size() > 1 ? fetchBatchFromAPI(targets) : null;
+            for (int i = 0; i < chunk.size(); i++) {
+                Coord c = coords.get(i);
+                FloodDischargeDTO dto = body != null ? body[i] : null;
+                if (body == null || (!isValid(dto) && !targets.get(i).equals(c))) {
+                    // Lỗi cả chunk, hoặc river cell đã học không còn dữ liệu
+                    dto = fetchWithFallback(c.latitude(), c.longitude());
+                } else if (!isValid(dto) && !NO_RIVER.equals(learned.get(i))) {
+                    dto = fetchNudged(c.latitude(), c.longitude());
+                }
+                if (dto != null) {
+                    results.put(chunk.get(i), dto);
+                }
+            }
+        }
+        return results;
+    }
+
+    // ─── Learned river cells (Redis) ───────────────────────────────────────────
+
+    private String riverCellKey(double lat, double lon) {
+        return GridCell.of(lat, lon).key(RIVER_CELL_PREFIX);
+    }
+
+    private String findRiverCell(double lat, double lon) {
+        try {
+            return redisTemplate.opsForValue().get(riverCellKey(lat, lon));
+        } catch (Exception e) {
+            log.debug("River cell lookup failed for [{},{}]: {}", lat, lon, e.getMessage());
+            return null;
+        }
+    }
+
+    /** @return one entry per coordinate, null where nothing was learned */
+    private List<String> findRiverCells(List<Coord> coords) {
+        List<String> keys = coords.stream().map(c -> riverCellKey(c.latitude(), c.longitude())).toList();
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            if (values != null && values.size() == keys.size()) {
+                return values;
+            }
+        } catch (Exception e) {
+            log.debug("River cell lookup failed for {} locations: {}", keys.size(), e.getMessage());
+        }
+        return Collections.nCopies(keys.size(), null);
+    }
+
+    private Coord parseRiverCell(String value) {
+        if (value == null || NO_RIVER.equals(value)) return null;
+        int comma = value.indexOf(',');
+        try {
+            return new Coord(Double.parseDouble(value.substring(0, comma)),
+                    Double.parseDouble(value.substring(comma + 1)));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed river cell value '{}'", value);
+            return null;
+        }
+    }
+
+    private void rememberRiverCell(double lat, double lon, Coord riverCell) {
+        saveRiverCell(lat, lon, riverCell.latitude() + "," + riverCell.longitude(), riverCellTtl);
+    }
+
+    private void rememberNoRiver(double lat, double lon) {
+        saveRiverCell(lat, lon, NO_RIVER, noRiverTtl);
+    }
+
+    private void saveRiverCell(double lat, double lon, String value, Duration ttl) {
+        try {
+            redisTemplate.opsForValue().set(riverCellKey(lat, lon), value, ttl);
+        } catch (Exception e) {
+            log.warn("Could not save river cell for [{},{}]: {}", lat, lon, e.getMessage());
+        }
+    }
+
+    private FloodDischargeDTO[] fetchBatchFromAPI(List<Coord> coords) {
+        URI uri = floodUri(Coord.joinLatitudes(coords), Coord.joinLongitudes(coords));
+        try {
+            log.info("Fetching river discharge for {} locations", coords.size());
+            FloodDischargeDTO[] body = openMeteoClient.fetch(uri, FloodDischargeDTO[].class);
+            if (body == null || body.length != coords.size()) {
+                log.warn("Batch flood response size mismatch: expected {}, got {}",
+                        coords.size(), body == null ? 0 : body.length);
+                return null;
+            }
+            return body;
+        } catch (Exception e) {
+            log.error("Flood API batch call failed for {} locations: {}", coords.size(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param latitudes  one latitude, or a comma-separated list for a multi-location request
+     * @param longitudes matching longitude(s)
+     */
+    private URI floodUri(String latitudes, String longitudes) {
         // UriComponentsBuilder for correct URL construction
-        URI uri = UriComponentsBuilder
+        return UriComponentsBuilder
                 .fromHttpUrl(floodUrl)
-                .queryParam("latitude", lat)
-                .queryParam("longitude", lon)
+                .queryParam("latitude", latitudes)
+                .queryParam("longitude", longitudes)
                 .queryParam("daily",
                         "river_discharge,river_discharge_max,river_discharge_median")
                 .queryParam("forecast_days", 16)
                 .build(true)
                 .toUri();
+    }
+
+    private FloodDischargeDTO fetchFromAPI(double lat, double lon) {
+        URI uri = floodUri(String.valueOf(lat), String.valueOf(lon));
 
         try {
             log.info("Fetching river discharge: {}", uri);
-             FloodDischargeDTO respone = restClient.get()
-                    .uri(uri)
-                    .retrieve()
-                    .body(FloodDischargeDTO.class);
+             FloodDischargeDTO respone = openMeteoClient.fetch(uri, FloodDischargeDTO.class);
              return respone != null ? respone : new FloodDischargeDTO();
-        } catch (RestClientException e) {
+        } catch (OpenMeteoClient.OpenMeteoException e) {
             log.error("Flood API error for [{},{}]: {}", lat, lon, e.getMessage());
             return null;
         } catch (Exception e) {
             log.error("Flood API call failed for [{},{}]: {}", lat, lon, e.getMessage());
-            return new FloodDischargeDTO();
+            return null;
         }
     }
+
+    @PreDestroy
+    public void shutdown() {
+        nudgeExecutor.shutdownNow();
+    }
 }
@@ -20,7 +20,10 @@ import org.springframework.web.multipart.MultipartFile;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -174,11 +177,11 @@ public class IncidentReportServiceImpl implements IncidentReportService {
 
                 // BƯỚC 3: Vật tư hoàn lại kho
                 List<RequestSupply> oldSupplies = requestSupplyRepo.findByRequest(rescueRequest);
+                Map<Long, Integer> restock = new HashMap<>();
                 for (RequestSupply rs : oldSupplies) {
-                    Supply supply = rs.getSupply();
-                    supply.setQuantity(supply.getQuantity() + rs.getQuantity());
-                    supplyRepo.save(supply);
+                    restock.merge(rs.getSupply().getId(), rs.getQuantity(), Integer::sum);
                 }
+                supplyRepo.incrementStock(restock);
                 requestSupplyRepo.deleteAll(oldSupplies);
 
                 // Lưu ghi chú
@@ -279,26 +282,34 @@ public class IncidentReportServiceImpl implements IncidentReportService {
 
         // Cấp phát vật tư (nếu có)
         if (request.getNewSupplies() != null && !request.getNewSupplies().isEmpty()) {
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
             for (com.team6.floodcoord.dto.request.AssignSupplyDTO sd : request.getNewSupplies()) {
                 if (sd.getQuantity() == null || sd.getQuantity() <= 0) continue;
+                quantities.merge(sd.getSupplyId(), sd.getQuantity(), Integer::sum);
+            }
 
-                Supply supply = supplyRepo.findById(sd.getSupplyId())
-                        .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy vật tư."));
+            // Trừ kho có điều kiện cho cả lô, không bao giờ xuống âm dù có cấp phát song song
+            List<Long> failed = supplyRepo.decrementStock(quantities);
+            if (!failed.isEmpty()) {
+                Map<Long, Supply> found = new HashMap<>();
+                supplyRepo.findAllById(failed).forEach(sp -> found.put(sp.getId(), sp));
 
-                if (supply.getQuantity() < sd.getQuantity()) {
-                    throw new IllegalStateException(
-                        "Không đủ tồn kho cho vật tư: " + supply.getName()
-                        + " (Còn: " + supply.getQuantity() + ", Cần: " + sd.getQuantity() + ")"
-                    );
+                Long firstFailed = failed.get(0);
+                Supply supply = found.get(firstFailed);
+                if (supply == null) {
+                    throw new IllegalArgumentException("Không tìm thấy vật tư.");
                 }
+                throw new IllegalStateException(
+                    "Không đủ tồn kho cho vật tư: " + supply.getName()
+                    + " (Còn: " + supply.getQuantity() + ", Cần: " + quantities.get(firstFailed) + ")"
+                );
+            }
 
-                supply.setQuantity(supply.getQuantity() - sd.getQuantity());
-                supplyRepo.save(supply);
-
+            for (Map.Entry<Long, Integer> item : quantities.entrySet()) {
                 RequestSupply requestSupply = RequestSupply.builder()
                         .request(rescueRequest)
-                        .supply(supply)
-                        .quantity(sd.getQuantity())
+                        .supply(supplyRepo.getReferenceById(item.getKey()))
+                        .quantity(item.getValue())
                         .build();
                 requestSupplyRepo.save(requestSupply);
             }
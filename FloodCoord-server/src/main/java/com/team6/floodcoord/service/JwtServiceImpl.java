@@ -8,7 +8,7 @@ import com.nimbusds.jwt.SignedJWT;
 import com.team6.floodcoord.dto.JwtInfo;
 import com.team6.floodcoord.dto.TokenPayLoad;
 import com.team6.floodcoord.model.User;
-import com.team6.floodcoord.repository.redis.BlacklistedAccessTokenRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,7 +32,17 @@ public class JwtServiceImpl implements JwtService {
     @Value("${jwt.secret-key}")
     private String secretKey;
 
-    private final BlacklistedAccessTokenRepository blacklistedAccessTokenRepository;
+    private final AccessTokenBlacklist accessTokenBlacklist;
+
+    // MACSigner / MACVerifier là thread-safe: tạo 1 lần thay vì mỗi token
+    private MACSigner macSigner;
+    private MACVerifier macVerifier;
+
+    @PostConstruct
+    public void initCrypto() throws JOSEException {
+        this.macSigner = new MACSigner(secretKey);
+        this.macVerifier = new MACVerifier(secretKey);
+    }
 
     @Override
     public TokenPayLoad generateAccessToken(User user) {
@@ -82,7 +92,7 @@ public class JwtServiceImpl implements JwtService {
         JWSObject jwsObject = new JWSObject(header, payload);
 
         try {
-            jwsObject.sign(new MACSigner(secretKey));
+            jwsObject.sign(macSigner);
         } catch (JOSEException e) {
             log.error("Failed to sign JWT token", e);
             throw new RuntimeException("Failed to sign JWT token", e);
@@ -105,33 +115,46 @@ public class JwtServiceImpl implements JwtService {
     @Override
     public boolean verifyToken(String token, boolean checkBlacklist) throws ParseException, JOSEException {
         try {
-            SignedJWT signedJWT = SignedJWT.parse(token);
+            return verifyToken(SignedJWT.parse(token), checkBlacklist);
+        } catch (ParseException e) {
+            log.error("Error verifying token", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Verify an already-parsed token so callers that also need the claims parse it only once.
+     * Order: expiry, signature (local HMAC), then blacklist (Redis) - forged or expired
+     * tokens never cost a Redis round trip.
+     */
+    public boolean verifyToken(SignedJWT signedJWT, boolean checkBlacklist) throws ParseException, JOSEException {
+        try {
+            JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
 
-            Date expirationTime = signedJWT.getJWTClaimsSet().getExpirationTime();
+            Date expirationTime = claims.getExpirationTime();
             if (expirationTime == null || expirationTime.before(new Date())){
                 log.debug("Token has expired");
                 return false;
             }
 
+            if (!signedJWT.verify(macVerifier)) {
+                log.debug("Token verification failed");
+                return false;
+            }
+
             if (checkBlacklist) {
-                String jwtId = signedJWT.getJWTClaimsSet().getJWTID();
+                String jwtId = claims.getJWTID();
                 if (jwtId == null) {
                     log.warn("Token does not contain JWT ID");
                     throw new IllegalArgumentException("Token must contain a JWT ID");
                 }
 
-                if (blacklistedAccessTokenRepository.existsById(jwtId)) {
+                if (accessTokenBlacklist.isRevoked(jwtId)) {
                     log.debug("Token is blacklisted: {}", jwtId);
                     return false;
                 }
             }
-
-            boolean verified = signedJWT.verify(new MACVerifier(secretKey));
-
-            if (!verified) {
-                log.debug("Token verification failed");
-            }
-            return verified;
+            return true;
         } catch (ParseException | JOSEException e) {
             log.error("Error verifying token", e);
             throw e;
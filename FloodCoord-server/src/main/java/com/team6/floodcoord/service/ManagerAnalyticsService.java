@@ -12,47 +12,72 @@ import com.team6.floodcoord.repository.jpa.VehicleRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 public class ManagerAnalyticsService {
     private final RescueTeamRepository rescueTeamRepository;
     private final VehicleRepository vehicleRepository;
     private final SupplyRepository supplyRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final DashboardCache dashboardCache;
 
     private static final int LOW_STOCK_THRESHOLD = 20;
+    private static final String CACHE_KEY = "manager";
 
+    /**
+     * Cache hit: 0 query. Cache miss: 1 query vật tư (đội / xe đếm từ AvailabilityIndex),
+     * tối đa 3 query khi index chưa sẵn sàng.
+     */
     public ManagerDashboardResponse getDashboardStats() {
-        long totalTeams = rescueTeamRepository.count();
-        long availableTeams = rescueTeamRepository.countByStatus(TeamStatus.AVAILABLE);
-        long busyTeams = rescueTeamRepository.countByStatus(TeamStatus.BUSY);
-        long offDutyTeams = rescueTeamRepository.countByStatus(TeamStatus.OFF_DUTY);
+        return dashboardCache.get(CACHE_KEY, this::computeDashboardStats);
+    }
+
+    private ManagerDashboardResponse computeDashboardStats() {
+        Map<TeamStatus, Long> teams = new EnumMap<>(TeamStatus.class);
+        Map<VehicleStatus, Long> vehicles = new EnumMap<>(VehicleStatus.class);
+        long totalTeams;
+        long totalVehicles;
 
-        long totalVehicles = vehicleRepository.count();
-        long availableVehicles = vehicleRepository.countByStatus(VehicleStatus.AVAILABLE);
-        long inUseVehicles = vehicleRepository.countByStatus(VehicleStatus.IN_USE);
-        long maintenanceVehicles = vehicleRepository.countByStatus(VehicleStatus.MAINTENANCE);
+        // Đội / xe: đếm từ AvailabilityIndex (in-memory), chỉ xuống DB khi index chưa nạp xong
+        if (availabilityIndex.isReady()) {
+            for (TeamStatus status : TeamStatus.values()) {
+                teams.put(status, availabilityIndex.countTeams(status));
+            }
+            for (VehicleStatus status : VehicleStatus.values()) {
+                vehicles.put(status, availabilityIndex.countVehicles(status));
+            }
+            totalTeams = availabilityIndex.totalTeams();
+            totalVehicles = availabilityIndex.totalVehicles();
+        } else {
+            // 1 query GROUP BY cho mỗi bảng thay cho count() + countByStatus() từng trạng thái
+            rescueTeamRepository.countGroupByStatus().forEach(row -> teams.put(row.getStatus(), row.getTotal()));
+            vehicleRepository.countGroupByStatus().forEach(row -> vehicles.put(row.getStatus(), row.getTotal()));
+            totalTeams = teams.values().stream().mapToLong(Long::longValue).sum();
+            totalVehicles = vehicles.values().stream().mapToLong(Long::longValue).sum();
+        }
 
-        long totalSupplies = supplyRepository.count();
-        long outOfStock = supplyRepository.countByQuantity(0);
-        long lowStock = supplyRepository.countByQuantityBetween(1, LOW_STOCK_THRESHOLD);
+        SupplyRepository.StockHealthView stock = supplyRepository.aggregateStockHealth(LOW_STOCK_THRESHOLD);
 
         return ManagerDashboardResponse.builder()
                 .teamReadiness(TeamReadinessDTO.builder()
                         .totalTeams(totalTeams)
-                        .availableCount(availableTeams)
-                        .busyCount(busyTeams)
-                        .offDutyCount(offDutyTeams)
+                        .availableCount(teams.getOrDefault(TeamStatus.AVAILABLE, 0L))
+                        .busyCount(teams.getOrDefault(TeamStatus.BUSY, 0L))
+                        .offDutyCount(teams.getOrDefault(TeamStatus.OFF_DUTY, 0L))
                         .build())
                 .vehicleFleet(VehicleFleetDTO.builder()
                         .totalVehicles(totalVehicles)
-                        .availableCount(availableVehicles)
-                        .inUseCount(inUseVehicles)
-                        .maintenanceCount(maintenanceVehicles)
+                        .availableCount(vehicles.getOrDefault(VehicleStatus.AVAILABLE, 0L))
+                        .inUseCount(vehicles.getOrDefault(VehicleStatus.IN_USE, 0L))
+                        .maintenanceCount(vehicles.getOrDefault(VehicleStatus.MAINTENANCE, 0L))
                         .build())
                 .supplyHealth(SupplyHealthDTO.builder()
-                        .totalSupplyTypes(totalSupplies)
-                        .lowStockCount(lowStock)
-                        .outOfStockCount(outOfStock)
+                        .totalSupplyTypes(stock.getTotal())
+                        .lowStockCount(stock.getLowStock())
+                        .outOfStockCount(stock.getOutOfStock())
                         .build())
                 .build();
     }
@@ -0,0 +1,292 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.model.enums.MediaUploadStatus;
+import com.team6.floodcoord.repository.jpa.RequestMediaRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Background uploader for rescue-request media.
+ *
+ * Flow:
+ *  1. createRescueRequest saves RequestMedia rows as PENDING_UPLOAD and hands the bytes here
+ *  2. After the DB transaction commits, each file is uploaded on its own virtual thread
+ *  3. A semaphore caps how many Cloudinary uploads run at once across the whole app
+ *  4. Each file is retried with backoff; the row ends as UPLOADED (with mediaUrl) or FAILED
+ *
+ * The request thread and its DB connection are released before any upload starts.
+ *
+ * Files waiting for upload are held in the heap only up to media.upload.max-buffered-bytes in total;
+ * past that, capture() streams them to media.upload.spill-dir and the upload reads them back from disk.
+ * Queued bytes do not survive a restart, so a periodic sweep marks rows stuck in PENDING_UPLOAD
+ * for longer than media.upload.stale-after as FAILED.
+ */
+@Slf4j
+@Service
+public class MediaUploadPipeline {
+
+    static final String STALE_UPLOAD_ERROR = "Upload lost: the server restarted before it finished";
+
+    /**
+     * File content captured on the request thread (MultipartFile is gone once the request ends):
+     * either in the heap (bytes) or on disk (spillFile) when the heap budget is used up.
+     */
+    public record PendingUpload(UUID mediaId, byte[] bytes, Path spillFile, String resourceType) {
+
+        long bufferedBytes() {
+            return bytes != null ? bytes.length : 0;
+        }
+    }
+
+    private final CloudinaryService cloudinaryService;
+    private final RequestMediaRepository mediaRepo;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore uploadPermits;
+
+    // bytes of files held in the heap between capture() and the end of their upload
+    private final AtomicLong bufferedBytes = new AtomicLong();
+
+    @Value("${media.upload.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${media.upload.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${media.upload.max-buffered-bytes:128MB}")
+    private DataSize maxBufferedBytes;
+
+    @Value("${media.upload.spill-dir:${java.io.tmpdir}/floodcoord-media}")
+    private Path spillDir;
+
+    @Value("${media.upload.stale-after:PT30M}")
+    private Duration staleAfter;
+
+    public MediaUploadPipeline(CloudinaryService cloudinaryService,
+                               RequestMediaRepository mediaRepo,
+                               @Value("${media.upload.max-concurrency:8}") int maxConcurrency) {
+        this.cloudinaryService = cloudinaryService;
+        this.mediaRepo = mediaRepo;
+        this.uploadPermits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Take the content of an uploaded file for a saved PENDING_UPLOAD row.
+     * Kept in the heap while the buffer has room, otherwise written to the spill directory.
+     */
+    public PendingUpload capture(UUID mediaId, MultipartFile file, String resourceType) {
+        long size = file.getSize();
+        try {
+            if (reserve(size)) {
+                try {
+                    return new PendingUpload(mediaId, file.getBytes(), null, resourceType);
+                } catch (IOException | RuntimeException e) {
+                    bufferedBytes.addAndGet(-size);
+                    throw e;
+                }
+            }
+            Files.createDirectories(spillDir);
+            Path target = Files.createTempFile(spillDir, mediaId.toString(), ".upload");
+            file.transferTo(target);
+            log.debug("Media {} ({} bytes) spilled to {}", mediaId, size, target);
+            return new PendingUpload(mediaId, null, target, resourceType);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean reserve(long size) {
+        long limit = maxBufferedBytes.toBytes();
+        for (;;) {
+            long current = bufferedBytes.get();
+            if (current + size > limit) return false;
+            if (bufferedBytes.compareAndSet(current, current + size)) return true;
+        }
+    }
+
+    /** Release captured files that will never be uploaded (the request failed or rolled back). */
+    public void discard(List<PendingUpload> uploads) {
+        uploads.forEach(this::release);
+    }
+
+    private void release(PendingUpload upload) {
+        bufferedBytes.addAndGet(-upload.bufferedBytes());
+        if (upload.spillFile() != null) {
+            try {
+                Files.deleteIfExists(upload.spillFile());
+            } catch (IOException e) {
+                log.warn("Failed to delete spilled media {}: {}", upload.spillFile(), e.getMessage());
+            }
+        }
+    }
+
+    long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * Queue uploads. If called inside a transaction, they start only after commit
+     * so the worker never races the INSERT of the PENDING_UPLOAD rows; on rollback they are discarded.
+     */
+    public void submit(List<PendingUpload> uploads) {
+        if (uploads == null || uploads.isEmpty()) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        dispatch(uploads);
+                    } else {
+                        discard(uploads);
+                    }
+                }
+            });
+        } else {
+            dispatch(uploads);
+        }
+    }
+
+    private void dispatch(List<PendingUpload> uploads) {
+        for (PendingUpload upload : uploads) {
+            executor.submit(() -> upload(upload));
+        }
+    }
+
+    private void upload(PendingUpload upload) {
+        try {
+            uploadWithRetry(upload);
+        } finally {
+            release(upload);
+        }
+    }
+
+    private void uploadWithRetry(PendingUpload upload) {
+        String lastError = null;
+        int attemptsMade = 0;
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            attemptsMade = attempt;
+            try {
+                uploadPermits.acquire();
+                String url;
+                try {
+                    url = upload.spillFile() != null
+                            ? cloudinaryService.uploadFile(upload.spillFile().toFile(), upload.resourceType())
+                            : cloudinaryService.uploadBytes(upload.bytes(), upload.resourceType());
+                } finally {
+                    uploadPermits.release();
+                }
+
+                mediaRepo.updateUploadState(upload.mediaId(), MediaUploadStatus.UPLOADED,
+                        url, attempt, null, LocalDateTime.now());
+                log.debug("Media {} uploaded on attempt {}", upload.mediaId(), attempt);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lastError = "Upload interrupted";
+                break;
+            } catch (Exception e) {
+                lastError = truncate(e.getMessage());
+                log.warn("Media {} upload attempt {}/{} failed: {}",
+                        upload.mediaId(), attempt, maxAttempts, e.getMessage());
+
+                if (attempt < maxAttempts) {
+                    // Ghi lại số lần thử để getRequestDetail thấy được tiến độ retry
+                    mediaRepo.updateUploadState(upload.mediaId(), MediaUploadStatus.PENDING_UPLOAD,
+                            null, attempt, lastError, null);
+                    if (!sleep(retryBackoffMs * attempt)) {
+                        lastError = "Upload interrupted";
+                        break;
+                    }
+                }
+            }
+        }
+
+        log.error("Media {} upload gave up: {}", upload.mediaId(), lastError);
+        mediaRepo.updateUploadState(upload.mediaId(), MediaUploadStatus.FAILED,
+                null, attemptsMade, lastError, null);
+    }
+
+    /**
+     * Rows still PENDING_UPLOAD long after their request was created lost their bytes in a restart
+     * (nothing in this process will ever finish them): mark them FAILED and drop leftover spill files.
+     * The age threshold keeps uploads still running on other instances untouched.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${media.upload.stale-sweep-interval:PT5M}",
+            initialDelayString = "${media.upload.stale-sweep-interval:PT5M}")
+    public void failStaleUploads() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(staleAfter);
+            int failed = mediaRepo.failPendingUploadsCreatedBefore(cutoff, STALE_UPLOAD_ERROR);
+            if (failed > 0) {
+                log.warn("Marked {} media uploads stuck in PENDING_UPLOAD as FAILED", failed);
+            }
+            deleteStaleSpillFiles(Instant.now().minus(staleAfter));
+        } catch (Exception e) {
+            log.warn("Stale media upload sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private void deleteStaleSpillFiles(Instant cutoff) throws IOException {
+        if (!Files.isDirectory(spillDir)) return;
+        try (Stream<Path> files = Files.list(spillDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                FileTime modified = Files.getLastModifiedTime(file);
+                if (modified.toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String truncate(String message) {
+        if (message == null) return "Unknown error";
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(20, TimeUnit.SECONDS)) {
+            log.warn("Media upload pipeline did not drain before shutdown");
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.dto.request.MonitoredLocationRequest;
+import com.team6.floodcoord.model.MonitoredLocation;
+import com.team6.floodcoord.repository.jpa.MonitoredLocationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Registry of locations polled by WeatherPollingScheduler.
+ * Stored in DB so the monitored set can grow to hundreds of points without a redeploy.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MonitoredLocationService {
+
+    private final MonitoredLocationRepository locationRepo;
+
+    /** Key flood-prone and rescue-relevant locations across Vietnam, seeded when the table is empty */
+    private static final List<MonitoredLocation> DEFAULT_LOCATIONS = List.of(
+            // Central Vietnam — most flood-prone region
+            seed("Da Nang", 16.047, 108.206),
+            seed("Hue", 16.463, 107.585),
+            seed("Hoi An", 15.880, 108.335),
+            seed("Kon Tum", 14.058, 108.278),
+
+            // Southern Vietnam — Mekong Delta
+            seed("Ho Chi Minh City", 10.823, 106.630),
+            seed("Can Tho", 10.045, 105.746),
+            seed("Long Xuyen", 10.370, 105.438),
+            seed("My Tho", 10.539, 106.413),
+
+            // Northern Vietnam
+            seed("Hanoi", 21.028, 105.834),
+            seed("Hai Phong", 20.844, 106.688),
+
+            // North Central Coast
+            seed("Vinh", 18.679, 105.681),
+            seed("Dong Hoi", 17.467, 106.622)
+    );
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void seedDefaults() {
+        if (locationRepo.count() > 0) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        locationRepo.saveAll(DEFAULT_LOCATIONS.stream()
+                .map(l -> MonitoredLocation.builder()
+                        .name(l.getName())
+                        .latitude(l.getLatitude())
+                        .longitude(l.getLongitude())
+                        .active(true)
+                        .createdAt(now)
+                        .build())
+                .toList());
+        log.info("Seeded {} default monitored locations", DEFAULT_LOCATIONS.size());
+    }
+
+    @Transactional(readOnly = true)
+    public List<MonitoredLocation> getActiveLocations() {
+        return locationRepo.findByActiveTrueOrderByIdAsc();
+    }
+
+    @Transactional(readOnly = true)
+    public List<MonitoredLocation> getAllLocations() {
+        return locationRepo.findAll();
+    }
+
+    @Transactional
+    public MonitoredLocation createLocation(MonitoredLocationRequest request) {
+        if (request.getLatitude() == null || request.getLongitude() == null
+                || Math.abs(request.getLatitude()) > 90 || Math.abs(request.getLongitude()) > 180) {
+            throw new IllegalArgumentException("Invalid coordinates");
+        }
+        if (locationRepo.existsByLatitudeAndLongitude(request.getLatitude(), request.getLongitude())) {
+            throw new IllegalArgumentException("Location is already monitored");
+        }
+
+        return locationRepo.save(MonitoredLocation.builder()
+                .name(request.getName() != null ? request.getName()
+                        : request.getLatitude() + "," + request.getLongitude())
+                .latitude(request.getLatitude())
+                .longitude(request.getLongitude())
+                .active(true)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Transactional
+    public MonitoredLocation setActive(Long id, boolean active) {
+        MonitoredLocation location = locationRepo.findById(id)
+                .orElseThrow(() -> new RuntimeException("Monitored location not found"));
+        location.setActive(active);
+        return location;
+    }
+
+    @Transactional
+    public void deleteLocation(Long id) {
+        if (!locationRepo.existsById(id)) {
+            throw new RuntimeException("Monitored location not found");
+        }
+        locationRepo.deleteById(id);
+    }
+
+    private static MonitoredLocation seed(String name, double lat, double lon) {
+        return MonitoredLocation.builder().name(name).latitude(lat).longitude(lon).build();
+    }
+}
@@ -0,0 +1,194 @@
+package com.team6.floodcoord.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking client for the Open-Meteo APIs, on the pooled openMeteoWebClient.
+ *
+ * - Transient failures (I/O, timeout, 5xx, 429) are retried with exponential backoff + jitter
+ * - One circuit breaker per host: after failure-threshold consecutive failed calls the host is
+ *   skipped for open-duration, then a single trial call decides whether to close it again
+ * - 4xx answers are not retried and do not count against the breaker
+ *
+ * get() composes with other Monos; fetch() blocks and suits the cache suppliers, which
+ * already run on request / virtual threads.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OpenMeteoClient {
+
+    /** Upstream call failed after retries, or the circuit for that host is open */
+    public static class OpenMeteoException extends RuntimeException {
+        public OpenMeteoException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final WebClient openMeteoWebClient;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    @Value("${weather.open-meteo.client.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${weather.open-meteo.client.retry.min-backoff:PT0.2S}")
+    private Duration minBackoff;
+
+    @Value("${weather.open-meteo.client.retry.max-backoff:PT2S}")
+    private Duration maxBackoff;
+
+    @Value("${weather.open-meteo.client.retry.jitter:0.5}")
+    private double jitter;
+
+    @Value("${weather.open-meteo.client.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${weather.open-meteo.client.circuit-breaker.open-duration:PT30S}")
+    private Duration openDuration;
+
+    public <T> Mono<T> get(URI uri, Class<T> type) {
+        String host = uri.getHost();
+        CircuitBreaker breaker = breaker(host);
+
+        return Mono.defer(() -> {
+            Permit permit = breaker.tryAcquire();
+            if (permit == Permit.REJECTED) {
+                result(host, "rejected").increment();
+                return Mono.error(new OpenMeteoException("Circuit open for " + host, null));
+            }
+
+            return openMeteoWebClient.get()
+                    .uri(uri)
+                    .retrieve()
+                    .bodyToMono(type)
+                    .retryWhen(Retry.backoff(Math.max(0, maxAttempts - 1), minBackoff)
+                            .maxBackoff(maxBackoff)
+                            .jitter(jitter)
+                            .filter(OpenMeteoClient::isTransient)
+                            .doBeforeRetry(s -> log.warn("Open-Meteo call to {} failed (attempt {}): {} - retrying",
+                                    host, s.totalRetries() + 1, s.failure().getMessage()))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .doOnSuccess(body -> {
+                        breaker.onSuccess(permit);
+                        result(host, "success").increment();
+                    })
+                    .doOnCancel(() -> breaker.release(permit))
+                    .onErrorMap(e -> !(e instanceof OpenMeteoException), e -> {
+                        if (isTransient(e)) {
+                            breaker.onFailure(permit);
+                        } else {
+                            breaker.onSuccess(permit);
+                        }
+                        result(host, "failure").increment();
+                        return new OpenMeteoException("Open-Meteo call to " + host + " failed: " + e.getMessage(), e);
+                    });
+        });
+    }
+
+    /** Blocking variant for callers that are not reactive (cache suppliers, batch fetchers) */
+    public <T> T fetch(URI uri, Class<T> type) {
+        return get(uri, type).block();
+    }
+
+    private static boolean isTransient(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+
+    private CircuitBreaker breaker(String host) {
+        return breakers.computeIfAbsent(host, h -> {
+            CircuitBreaker breaker = new CircuitBreaker(failureThreshold, openDuration);
+            Gauge.builder("weather.upstream.circuit.state", breaker, CircuitBreaker::state)
+                    .description("0 = closed, 1 = open, 2 = half-open")
+                    .tag("host", h)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private Counter result(String host, String result) {
+        return Counter.builder("weather.upstream.requests")
+                .tag("host", host)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private enum Permit { REJECTED, CLOSED, TRIAL }
+
+    /** Consecutive-failure breaker: CLOSED -> OPEN for openDuration -> one TRIAL call -> CLOSED / OPEN */
+    private static final class CircuitBreaker {
+
+        private final int failureThreshold;
+        private final long openNanos;
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicBoolean trialInFlight = new AtomicBoolean();
+        private volatile long openUntil; // 0 = closed
+
+        CircuitBreaker(int failureThreshold, Duration openDuration) {
+            this.failureThreshold = failureThreshold;
+            this.openNanos = openDuration.toNanos();
+        }
+
+        Permit tryAcquire() {
+            long until = openUntil;
+            if (until == 0) return Permit.CLOSED;
+            if (System.nanoTime() - until < 0) return Permit.REJECTED;
+            return trialInFlight.compareAndSet(false, true) ? Permit.TRIAL : Permit.REJECTED;
+        }
+
+        void onSuccess(Permit permit) {
+            consecutiveFailures.set(0);
+            if (permit == Permit.TRIAL) {
+                openUntil = 0;
+            }
+            release(permit);
+        }
+
+        void onFailure(Permit permit) {
+            if (permit == Permit.TRIAL || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                if (openUntil == 0) {
+                    log.warn("Open-Meteo circuit opened for {}s after {} consecutive failures",
+                            openNanos / 1_000_000_000, consecutiveFailures.get());
+                }
+                openUntil = System.nanoTime() + openNanos;
+            }
+            release(permit);
+        }
+
+        void release(Permit permit) {
+            if (permit == Permit.TRIAL) {
+                trialInFlight.set(false);
+            }
+        }
+
+        double state() {
+            long until = openUntil;
+            if (until == 0) return 0;
+            return System.nanoTime() - until < 0 ? 1 : 2;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.dto.request.CreateRescueRequestDTO;
+import com.team6.floodcoord.dto.request.LocationDTO;
+import com.team6.floodcoord.dto.response.CreateRequestResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Idempotency-Key cho POST /api/rescue-requests.
+ *
+ * Mạng di động ở vùng lũ chập chờn, app gửi lại cùng 1 yêu cầu nhiều lần: lần đầu giữ key trên Redis (SET NX, PENDING),
+ * tạo xong thì lưu requestId + tracking code; các lần gửi lại nhận đúng response đó, không tạo hồ sơ / tracking code mới.
+ *
+ * Key được tách theo client (số điện thoại liên hệ, không có thì IP): client khác dùng trùng key không đọc được
+ * hồ sơ của nhau. Kèm theo key là SHA-256 của nội dung yêu cầu; cùng key nhưng nội dung khác thì trả 422
+ * thay vì trả lại hồ sơ cũ.
+ *
+ * Không có header thì xử lý như trước. Redis lỗi thì bỏ qua idempotency (fail open), không chặn SOS.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RescueRequestIdempotency {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String KEY_PREFIX = "idempotency:rescue-request:";
+    private static final String PENDING = "PENDING";
+    private static final String VALUE_SEPARATOR = "|";
+    private static final Pattern VALID_KEY = Pattern.compile("[A-Za-z0-9_-]{8,128}");
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /** Thời gian giữ key khi lần đầu còn đang xử lý (lần đầu chết giữa chừng thì key tự hết hạn) */
+    @Value("${sos.idempotency.pending-ttl:PT2M}")
+    private Duration pendingTtl;
+
+    /** Thời gian nhớ response để trả lại cho các lần gửi lại */
+    @Value("${sos.idempotency.ttl:P1D}")
+    private Duration ttl;
+
+    /**
+     * Giữ key cho lần xử lý này.
+     *
+     * @param client      số điện thoại liên hệ hoặc IP của người gửi
+     * @param fingerprint {@link #fingerprint} của nội dung yêu cầu
+     * @return response đã lưu nếu key đã được xử lý xong (gửi lại), rỗng nếu lần này được tạo mới
+     * @throws IdempotencyConflictException nếu 1 request khác cùng key đang được xử lý
+     * @throws IdempotencyKeyReuseException nếu key đã được dùng cho 1 yêu cầu có nội dung khác
+     */
+    public Optional<CreateRequestResponse> claim(String idempotencyKey, String client, String fingerprint) {
+        if (idempotencyKey == null) {
+            return Optional.empty();
+        }
+        if (!VALID_KEY.matcher(idempotencyKey).matches()) {
+            throw new IllegalArgumentException("Idempotency-Key không hợp lệ (8-128 ký tự chữ, số, '-' hoặc '_')");
+        }
+
+        String key = redisKey(idempotencyKey, client);
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(key, PENDING + VALUE_SEPARATOR + fingerprint, pendingTtl))) {
+                return Optional.empty();
+            }
+            String stored = stringRedisTemplate.opsForValue().get(key);
+            if (stored == null) {
+                // Key vừa hết hạn / bị release giữa 2 lệnh: xử lý như lần đầu
+                return Optional.empty();
+            }
+            // PENDING|hash hoặc requestId|trackingCode|hash
+            String[] parts = stored.split(Pattern.quote(VALUE_SEPARATOR));
+            if (!fingerprint.equals(parts[parts.length - 1])) {
+                throw new IdempotencyKeyReuseException();
+            }
+            if (PENDING.equals(parts[0])) {
+                throw new IdempotencyConflictException();
+            }
+            return Optional.of(CreateRequestResponse.builder()
+                    .requestId(UUID.fromString(parts[0]))
+                    .trackingCode(parts[1])
+                    .build());
+        } catch (IdempotencyConflictException | IdempotencyKeyReuseException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("Idempotency claim for {} failed, processing without it: {}", idempotencyKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /** Lưu kết quả sau khi tạo thành công */
+    public void complete(String idempotencyKey, String client, String fingerprint, CreateRequestResponse response) {
+        if (idempotencyKey == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(redisKey(idempotencyKey, client),
+                    response.getRequestId() + VALUE_SEPARATOR + response.getTrackingCode() + VALUE_SEPARATOR + fingerprint,
+                    ttl);
+        } catch (Exception e) {
+            log.warn("Failed to store idempotent response for {}: {}", idempotencyKey, e.getMessage());
+        }
+    }
+
+    /** Tạo thất bại: bỏ key để client gửi lại được ngay */
+    public void release(String idempotencyKey, String client) {
+        if (idempotencyKey == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.delete(redisKey(idempotencyKey, client));
+        } catch (Exception e) {
+            log.warn("Failed to release idempotency key {}: {}", idempotencyKey, e.getMessage());
+        }
+    }
+
+    /**
+     * SHA-256 (hex) của nội dung yêu cầu. Ảnh đính kèm chỉ tính tên file + kích thước,
+     * không băm cả nội dung ảnh.
+     */
+    public static String fingerprint(CreateRescueRequestDTO dto, String contactPhone) {
+        StringBuilder content = new StringBuilder()
+                .append(dto.getTitle()).append('\0')
+                .append(dto.getDescription()).append('\0')
+                .append(dto.getEmergencyLevel()).append('\0')
+                .append(dto.getPeopleCount()).append('\0')
+                .append(dto.getContactName()).append('\0')
+                .append(SosRateLimiter.normalizePhone(contactPhone)).append('\0');
+        LocationDTO location = dto.getLocation();
+        if (location != null) {
+            content.append(location.getLatitude()).append('\0')
+                    .append(location.getLongitude()).append('\0')
+                    .append(location.getAddressText()).append('\0')
+                    .append(location.getFloodDepth()).append('\0');
+        }
+        if (dto.getFiles() != null) {
+            for (MultipartFile file : dto.getFiles()) {
+                content.append(file.getOriginalFilename()).append('\0').append(file.getSize()).append('\0');
+            }
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Phạm vi của key: số điện thoại liên hệ (đã chuẩn hoá), không có thì IP */
+    public static String client(String contactPhone, String clientIp) {
+        return contactPhone != null && !contactPhone.isBlank()
+                ? "phone:" + SosRateLimiter.normalizePhone(contactPhone)
+                : "ip:" + clientIp;
+    }
+
+    private static String redisKey(String idempotencyKey, String client) {
+        return KEY_PREFIX + client + ":" + idempotencyKey;
+    }
+
+    public static class IdempotencyConflictException extends RuntimeException {
+        public IdempotencyConflictException() {
+            super("Yêu cầu với Idempotency-Key này đang được xử lý, vui lòng thử lại sau");
+        }
+    }
+
+    public static class IdempotencyKeyReuseException extends RuntimeException {
+        public IdempotencyKeyReuseException() {
+            super("Idempotency-Key này đã được dùng cho một yêu cầu có nội dung khác");
+        }
+    }
+}
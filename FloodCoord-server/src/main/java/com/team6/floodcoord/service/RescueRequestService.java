@@ -21,6 +21,7 @@ public interface RescueRequestService {
     Page<RescueRequestSummaryResponse> getAllRescueRequests(Pageable pageable);
     RescueRequestDetailResponse getRequestDetail(UUID requestId);
     Page<RescueRequestSummaryResponse> getAllRequestsForAdmin(RequestStatus status, Pageable pageable);
+    CursorPageResponse<RescueRequestSummaryResponse> getRequestQueue(RequestStatus status, String emergencyLevel, String cursor, int size);
     List<RescueRequestLeaderDTO> getMyAssignedRescueRequests();
     void claimGuestRequests(List<String> trackingCodes, User currentUser);
     List<RescueRequestSummaryResponse> getMyRescueRequests(User currentUser);
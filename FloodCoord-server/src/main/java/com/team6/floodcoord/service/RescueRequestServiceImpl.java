@@ -5,25 +5,33 @@ import com.team6.floodcoord.dto.response.*;
 import com.team6.floodcoord.mapper.RescueReportMapper;
 
 import com.team6.floodcoord.model.*;
+import com.team6.floodcoord.model.enums.MediaUploadStatus;
 import com.team6.floodcoord.model.enums.RequestStatus;
 import com.team6.floodcoord.model.enums.TeamStatus;
 import com.team6.floodcoord.model.enums.VehicleStatus;
 
 import com.team6.floodcoord.repository.jpa.*;
+import com.team6.floodcoord.utils.RequestCursorUtils;
 import com.team6.floodcoord.utils.RescueRequestMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -38,6 +46,8 @@ public class RescueRequestServiceImpl implements RescueRequestService {
     private final SupplyRepository supplyRepo;
     private final RequestSupplyRepository requestSupplyRepo;
     private final CloudinaryService cloudinaryService;
+    private final MediaUploadPipeline mediaUploadPipeline;
+    private final TransactionRetryExecutor transactionRetryExecutor;
     private final RescueRequestMapper requestMapper;
     private final UserRepository userRepo;
     private final RescueReportRepository rescueReportRepository;
@@ -45,6 +55,8 @@ public class RescueRequestServiceImpl implements RescueRequestService {
     private final com.team6.floodcoord.mapper.RescueRequestMapper rescueRequestMapper;
     private final RescueReportMapper rescueReportMapper;
 
+    private static final int MAX_QUEUE_PAGE_SIZE = 100;
+
     @Override
     public CreateRequestResponse createRescueRequest(CreateRescueRequestDTO dto, User currentUser) {
 
@@ -105,25 +117,34 @@ public class RescueRequestServiceImpl implements RescueRequestService {
         }
 
         // 6. Lưu Media (Hình ảnh/Video)
+        // Chỉ tạo bản ghi PENDING_UPLOAD, việc upload lên Cloudinary chạy nền sau khi commit
         if (dto.getFiles() != null && dto.getFiles().length > 0) {
 
-            for (MultipartFile file : dto.getFiles()) {
+            List<MediaUploadPipeline.PendingUpload> uploads = new ArrayList<>();
 
-                String imageUrl = null;
-                try {
-                    imageUrl = cloudinaryService.uploadMedia(file);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
+            try {
+                for (MultipartFile file : dto.getFiles()) {
 
-                RequestMedia media = new RequestMedia();
-                media.setRequest(request);
-                media.setMediaType("IMAGE");
-                media.setMediaUrl(imageUrl);
-                media.setUploadedAt(LocalDateTime.now());
+                    if (file == null || file.isEmpty()) {
+                        throw new RuntimeException("File is empty");
+                    }
+                    String resourceType = cloudinaryService.resolveResourceType(file.getContentType(), file.getSize());
 
-                mediaRepo.save(media);
+                    RequestMedia media = new RequestMedia();
+                    media.setRequest(request);
+                    media.setMediaType("video".equals(resourceType) ? "VIDEO" : "IMAGE");
+                    media.setUploadStatus(MediaUploadStatus.PENDING_UPLOAD);
+                    media = mediaRepo.save(media);
+
+                    // Giữ nội dung file trong heap hoặc ghi ra đĩa khi bộ đệm upload đã đầy
+                    uploads.add(mediaUploadPipeline.capture(media.getMediaId(), file, resourceType));
+                }
+            } catch (RuntimeException e) {
+                mediaUploadPipeline.discard(uploads);
+                throw e;
             }
+
+            mediaUploadPipeline.submit(uploads);
         }
 
         // 7. Trả về Response chứa Tracking Code
@@ -134,9 +155,20 @@ public class RescueRequestServiceImpl implements RescueRequestService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void assignTask(UUID requestId, AssignTaskRequest dto, User coordinator) {
+        // Mỗi lần thử chạy trong transaction riêng; chỉ retry khi đụng khóa (timeout/deadlock)
+        transactionRetryExecutor.run("assignTask " + requestId,
+                () -> doAssignTask(requestId, dto, coordinator));
+    }
+
+    /**
+     * Khóa dòng theo thứ tự cố định: request -> team -> vehicle, sau đó trừ kho bằng UPDATE có điều kiện.
+     * Transaction đến sau sẽ chờ, rồi đọc lại trạng thái mới nhất (BUSY / IN_USE / tồn kho đã trừ).
+     */
+    private void doAssignTask(UUID requestId, AssignTaskRequest dto, User coordinator) {
         // 1. Lấy Request
-        RescueRequest request = requestRepo.findById(requestId)
+        RescueRequest request = requestRepo.findByIdForUpdate(requestId)
                 .orElseThrow(() -> new RuntimeException("Request not found"));
 
         // Chỉ cho phép điều phối nếu chưa hoàn thành hoặc hủy
@@ -146,7 +178,7 @@ public class RescueRequestServiceImpl implements RescueRequestService {
 
         // 2. Gán Đội Cứu Hộ
         if (dto.getRescueTeamId() != null) {
-            RescueTeam team = teamRepo.findById(dto.getRescueTeamId())
+            RescueTeam team = teamRepo.findByIdForUpdate(dto.getRescueTeamId())
                     .orElseThrow(() -> new RuntimeException("Rescue Team not found"));
 
             //CHECK BẬN/RẢNH
@@ -168,7 +200,7 @@ public class RescueRequestServiceImpl implements RescueRequestService {
 
         // 3. Gán & Khóa Phương Tiện (Nếu có)
         if (dto.getVehicleId() != null) {
-            Vehicle vehicle = vehicleRepo.findById(dto.getVehicleId())
+            Vehicle vehicle = vehicleRepo.findByIdForUpdate(dto.getVehicleId())
                     .orElseThrow(() -> new RuntimeException("Vehicle not found"));
 
             if (vehicle.getStatus() != VehicleStatus.AVAILABLE) {
@@ -185,25 +217,26 @@ public class RescueRequestServiceImpl implements RescueRequestService {
 
         // 4. Cấp phát Vật tư (Trừ kho)
         if (dto.getSupplies() != null && !dto.getSupplies().isEmpty()) {
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
             for (AssignSupplyDTO supplyDTO : dto.getSupplies()) {
-                Supply supply = supplyRepo.findById(supplyDTO.getSupplyId())
-                        .orElseThrow(() -> new RuntimeException("Supply ID " + supplyDTO.getSupplyId() + " not found"));
-
-                // Check tồn kho
-                if (supply.getQuantity() < supplyDTO.getQuantity()) {
-                    throw new IllegalStateException("Not enough quantity for supply: " + supply.getName()
-                            + " (Available: " + supply.getQuantity() + ")");
+                if (supplyDTO.getQuantity() == null || supplyDTO.getQuantity() <= 0) {
+                    throw new IllegalArgumentException("Supply quantity must be positive (Supply ID " + supplyDTO.getSupplyId() + ")");
                 }
+                quantities.merge(supplyDTO.getSupplyId(), supplyDTO.getQuantity(), Integer::sum);
+            }
 
-                // Trừ kho
-                supply.setQuantity(supply.getQuantity() - supplyDTO.getQuantity());
-                supply.setExportedDate(LocalDateTime.now()); // Cập nhật ngày xuất gần nhất
-                supplyRepo.save(supply);
+            // Trừ kho có điều kiện cho cả lô trong 1 round trip; dòng không đủ tồn sẽ không bị trừ
+            List<Long> failed = supplyRepo.decrementStock(quantities);
+            if (!failed.isEmpty()) {
+                // Exception -> rollback toàn bộ, kể cả các dòng đã trừ thành công
+                throw new IllegalStateException(describeStockFailures(failed));
+            }
 
-                // Lưu lịch sử cấp phát
+            // Lưu lịch sử cấp phát
+            for (AssignSupplyDTO supplyDTO : dto.getSupplies()) {
                 RequestSupply requestSupply = RequestSupply.builder()
                         .request(request)
-                        .supply(supply)
+                        .supply(supplyRepo.getReferenceById(supplyDTO.getSupplyId()))
                         .quantity(supplyDTO.getQuantity())
                         .build();
                 requestSupplyRepo.save(requestSupply);
@@ -221,6 +254,18 @@ public class RescueRequestServiceImpl implements RescueRequestService {
         requestRepo.save(request);
     }
 
+    private String describeStockFailures(List<Long> failedSupplyIds) {
+        Map<Long, Supply> found = supplyRepo.findAllById(failedSupplyIds).stream()
+                .collect(Collectors.toMap(Supply::getId, Function.identity()));
+
+        return failedSupplyIds.stream()
+                .map(id -> found.containsKey(id)
+                        ? "Not enough quantity for supply: " + found.get(id).getName()
+                                + " (Available: " + found.get(id).getQuantity() + ")"
+                        : "Supply ID " + id + " not found")
+                .collect(Collectors.joining("; "));
+    }
+
     @Override
     public void verifyRequest(UUID requestId, VerifyRequestDTO dto, User coordinator) {
         // 1. Tìm Request
@@ -391,13 +436,13 @@ public class RescueRequestServiceImpl implements RescueRequestService {
 
     @Override
     public Page<RescueRequestSummaryResponse> getAllRescueRequests(Pageable pageable) {
-        return requestRepo.findAll(pageable)
+        return requestRepo.findSummaryPage(null, pageable)
                 .map(requestMapper::toSummaryResponse);
     }
 
     @Override
     public RescueRequestDetailResponse getRequestDetail(UUID requestId) {
-        RescueRequest request = requestRepo.findById(requestId)
+        RescueRequest request = requestRepo.findDetailById(requestId)
                 .orElseThrow(() -> new RuntimeException("Rescue request not found"));
 
         RescueRequestDetailResponse dto = new RescueRequestDetailResponse();
@@ -430,6 +475,8 @@ public class RescueRequestServiceImpl implements RescueRequestService {
                 media.setMediaType(m.getMediaType());
                 media.setMediaUrl(m.getMediaUrl());
                 media.setUploadedAt(m.getUploadedAt());
+                media.setUploadStatus(m.getUploadStatus());
+                media.setUploadAttempts(m.getUploadAttempts());
                 return media;
             }).toList();
 
@@ -468,10 +515,41 @@ public class RescueRequestServiceImpl implements RescueRequestService {
 
     @Override
     public Page<RescueRequestSummaryResponse> getAllRequestsForAdmin(RequestStatus status, Pageable pageable) {
-        return requestRepo.findAllByStatusOptional(status, pageable)
+        return requestRepo.findSummaryPage(status, pageable)
                 .map(requestMapper::toSummaryResponse);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<RescueRequestSummaryResponse> getRequestQueue(RequestStatus status, String emergencyLevel,
+                                                                          String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_QUEUE_PAGE_SIZE));
+        String level = (emergencyLevel == null || emergencyLevel.isBlank()) ? null : emergencyLevel;
+        RequestCursorUtils.Position position = RequestCursorUtils.decode(cursor);
+
+        // Lấy dư 1 dòng để biết còn trang sau hay không (thay cho COUNT(*))
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<RescueRequest> rows = position == null
+                ? requestRepo.findQueueFirstPage(status, level, limit)
+                : requestRepo.findQueuePageAfter(status, level, position.createdAt(), position.requestId(), limit);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<RescueRequest> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            RescueRequest last = pageRows.get(pageRows.size() - 1);
+            nextCursor = RequestCursorUtils.encode(last.getCreatedAt(), last.getRequestId());
+        }
+
+        return CursorPageResponse.<RescueRequestSummaryResponse>builder()
+                .content(pageRows.stream().map(requestMapper::toSummaryResponse).toList())
+                .size(pageRows.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<RescueRequestLeaderDTO> getMyAssignedRescueRequests() {
@@ -497,7 +575,7 @@ public class RescueRequestServiceImpl implements RescueRequestService {
 
         // 4️⃣ Lấy rescue request của team
         return requestRepo
-                .findByAssignedTeam_IdAndStatusIn(
+                .findMissionsByTeam(
                         team.getId(),
                         List.of(
                                 RequestStatus.IN_PROGRESS,
@@ -529,6 +607,8 @@ public class RescueRequestServiceImpl implements RescueRequestService {
                                     media.setMediaType(m.getMediaType());
                                     media.setMediaUrl(m.getMediaUrl());
                                     media.setUploadedAt(m.getUploadedAt());
+                                    media.setUploadStatus(m.getUploadStatus());
+                                    media.setUploadAttempts(m.getUploadAttempts());
                                     return media;
                                 })
                                 .toList();
@@ -26,6 +26,7 @@ public class RescueTeamServiceImpl implements RescueTeamService{
     private final VehicleRepository vehicleRepo;
     private final SupplyRepository supplyRepo;
     private final RequestSupplyRepository requestSupplyRepo;
+    private final AvailabilityIndex availabilityIndex;
 
     @Override
     public RescueTeamResponse createTeam(RescueTeamRequest request) {
@@ -105,7 +106,11 @@ public class RescueTeamServiceImpl implements RescueTeamService{
 
     @Override
     public List<RescueTeamResponse> getAvailableTeams() {
-        List<RescueTeamResponse> availableTeams = teamRepo.findByStatus(com.team6.floodcoord.model.enums.TeamStatus.AVAILABLE).stream()
+        // Lấy id từ AvailabilityIndex (in-memory), chỉ nạp chi tiết đội theo khóa chính
+        List<RescueTeam> teams = availabilityIndex.isReady()
+                ? teamRepo.findAllById(availabilityIndex.teamIds(com.team6.floodcoord.model.enums.TeamStatus.AVAILABLE))
+                : teamRepo.findByStatus(com.team6.floodcoord.model.enums.TeamStatus.AVAILABLE);
+        List<RescueTeamResponse> availableTeams = teams.stream()
                 .map(RescueTeamMapper::mapToResponse)
                 .collect(Collectors.toList());
         log.info("Found {} available teams", availableTeams.size());
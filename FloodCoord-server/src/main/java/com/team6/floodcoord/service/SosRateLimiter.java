@@ -0,0 +1,353 @@
+package com.team6.floodcoord.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn tần suất cho các endpoint SOS công khai (tạo yêu cầu cứu hộ, tra cứu tracking code).
+ *
+ * Mỗi key (IP hoặc số điện thoại liên hệ) đi qua 2 tầng:
+ *  1. Token bucket trong bộ nhớ (Caffeine): burst vượt giới hạn bị chặn ngay tại node, không tốn round trip Redis
+ *  2. Sliding window trên Redis (cửa sổ hiện tại + cửa sổ trước có trọng số, 1 script Lua): giới hạn chung cho mọi node
+ *
+ * Một request phải qua mọi giới hạn của nó (IP và số điện thoại) mới bị trừ lượt: tầng local kiểm tra đủ các bucket
+ * rồi mới lấy lượt, tầng Redis tính lượt từng key và trả lại các lượt đã tính nếu key sau từ chối.
+ * Giới hạn theo IP còn được kiểm tra (không trừ lượt) trong {@code SosRateLimitFilter}, trước khi parse body multipart.
+ *
+ * Redis lỗi thì chỉ còn tầng 1 (fail open): người dân vẫn gửi được SOS khi Redis gặp sự cố.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SosRateLimiter {
+
+    public enum Policy {
+        CREATE_PER_IP("create:ip"),
+        CREATE_PER_PHONE("create:phone"),
+        TRACK_PER_IP("track:ip");
+
+        private final String key;
+
+        Policy(String key) {
+            this.key = key;
+        }
+    }
+
+    private record Limit(int permits, Duration window) {}
+
+    /** 1 giới hạn áp cho 1 request: policy + key (policy:id) */
+    private record Target(Policy policy, String key, Limit limit) {}
+
+    private static final String KEY_PREFIX = "ratelimit:sos:";
+
+    /**
+     * KEYS[1] = cửa sổ hiện tại, KEYS[2] = cửa sổ trước; ARGV = trọng số cửa sổ trước, giới hạn, TTL (ms), 1 = tính lượt.
+     * Chỉ tăng bộ đếm khi còn hạn mức và ARGV[4] = 1; trả 1 nếu cho qua, 0 nếu từ chối.
+     */
+    private static final RedisScript<Long> SLIDING_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('get', KEYS[1]) or '0') "
+                    + "local previous = tonumber(redis.call('get', KEYS[2]) or '0') "
+                    + "if previous * tonumber(ARGV[1]) + current >= tonumber(ARGV[2]) then return 0 end "
+                    + "if ARGV[4] == '1' then "
+                    + "redis.call('incr', KEYS[1]) "
+                    + "redis.call('pexpire', KEYS[1], ARGV[3]) "
+                    + "end "
+                    + "return 1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sos.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sos.rate-limit.create-per-ip.permits:30}")
+    private int createPerIpPermits;
+
+    @Value("${sos.rate-limit.create-per-ip.window:PT1M}")
+    private Duration createPerIpWindow;
+
+    @Value("${sos.rate-limit.create-per-phone.permits:5}")
+    private int createPerPhonePermits;
+
+    @Value("${sos.rate-limit.create-per-phone.window:PT10M}")
+    private Duration createPerPhoneWindow;
+
+    @Value("${sos.rate-limit.track-per-ip.permits:120}")
+    private int trackPerIpPermits;
+
+    @Value("${sos.rate-limit.track-per-ip.window:PT1M}")
+    private Duration trackPerIpWindow;
+
+    @Value("${sos.rate-limit.local.max-keys:100000}")
+    private long localMaxKeys;
+
+    private final Map<Policy, Limit> limits = new EnumMap<>(Policy.class);
+
+    // policy:id -> bucket của node này
+    private Cache<String, TokenBucket> buckets;
+
+    private Counter localRejections;
+    private Counter redisRejections;
+    private Counter redisErrors;
+
+    @PostConstruct
+    public void init() {
+        limits.put(Policy.CREATE_PER_IP, new Limit(createPerIpPermits, createPerIpWindow));
+        limits.put(Policy.CREATE_PER_PHONE, new Limit(createPerPhonePermits, createPerPhoneWindow));
+        limits.put(Policy.TRACK_PER_IP, new Limit(trackPerIpPermits, trackPerIpWindow));
+
+        Duration longestWindow = limits.values().stream()
+                .map(Limit::window)
+                .max(Duration::compareTo)
+                .orElse(Duration.ofMinutes(1));
+        // Bucket không dùng tới trong 1 cửa sổ đã đầy lại -> bỏ được
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(localMaxKeys)
+                .expireAfterAccess(longestWindow)
+                .build();
+
+        localRejections = rejectionCounter("local");
+        redisRejections = rejectionCounter("redis");
+        redisErrors = Counter.builder("sos.rate-limit.redis.errors").register(meterRegistry);
+    }
+
+    private Counter rejectionCounter(String tier) {
+        return Counter.builder("sos.rate-limit.rejected")
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    /** POST /api/rescue-requests: theo IP và theo số điện thoại liên hệ (nếu có), chỉ trừ lượt khi cả hai cho qua */
+    public void checkCreate(String clientIp, String contactPhone) {
+        acquire(target(Policy.CREATE_PER_IP, clientIp), target(Policy.CREATE_PER_PHONE, normalizePhone(contactPhone)));
+    }
+
+    /**
+     * POST /api/rescue-requests trước khi parse body: IP đã hết lượt thì chặn luôn, không trừ lượt
+     * (lượt được trừ ở {@link #checkCreate}, cùng lúc với giới hạn theo số điện thoại).
+     */
+    public void precheckCreate(String clientIp) {
+        Target ip = target(Policy.CREATE_PER_IP, clientIp);
+        if (ip == null) {
+            return;
+        }
+        long waitNanos = bucket(ip).nanosUntilAvailable(System.nanoTime());
+        if (waitNanos > 0) {
+            localRejections.increment();
+            throw new RateLimitExceededException(ip.policy(), Duration.ofNanos(waitNanos));
+        }
+        Duration retryAfter = checkRedis(ip, false, System.currentTimeMillis());
+        if (retryAfter != null) {
+            redisRejections.increment();
+            throw new RateLimitExceededException(ip.policy(), retryAfter);
+        }
+    }
+
+    /** GET /api/rescue-requests/track: theo IP (chặn dò tracking code) */
+    public void checkTrack(String clientIp) {
+        acquire(target(Policy.TRACK_PER_IP, clientIp));
+    }
+
+    /** @return null nếu tắt giới hạn hoặc không có id (vd. không có số điện thoại) */
+    private Target target(Policy policy, String id) {
+        if (!enabled || id == null || id.isBlank()) {
+            return null;
+        }
+        return new Target(policy, policy.key + ":" + id, limits.get(policy));
+    }
+
+    private TokenBucket bucket(Target target) {
+        return buckets.get(target.key(), k -> new TokenBucket(target.limit()));
+    }
+
+    /**
+     * Trừ 1 lượt ở mọi target, hoặc không trừ lượt nào.
+     *
+     * @throws RateLimitExceededException khi 1 target vượt giới hạn ở tầng local hoặc Redis
+     */
+    private void acquire(Target... targets) {
+        List<Target> active = Arrays.stream(targets).filter(Objects::nonNull).toList();
+        if (active.isEmpty()) {
+            return;
+        }
+
+        // 1. Tầng local: kiểm tra đủ các bucket trước rồi mới lấy lượt
+        long now = System.nanoTime();
+        for (Target target : active) {
+            long waitNanos = bucket(target).nanosUntilAvailable(now);
+            if (waitNanos > 0) {
+                localRejections.increment();
+                throw new RateLimitExceededException(target.policy(), Duration.ofNanos(waitNanos));
+            }
+        }
+        List<Target> taken = new ArrayList<>(active.size());
+        for (Target target : active) {
+            long waitNanos = bucket(target).tryAcquire(now);
+            if (waitNanos > 0) {
+                // Request song song vừa lấy lượt cuối giữa lúc kiểm tra và lúc lấy
+                taken.forEach(t -> bucket(t).release());
+                localRejections.increment();
+                throw new RateLimitExceededException(target.policy(), Duration.ofNanos(waitNanos));
+            }
+            taken.add(target);
+        }
+
+        // 2. Tầng Redis: mỗi key 1 script (các key khác slot); key sau từ chối thì trả lại lượt của key trước
+        List<String> counted = new ArrayList<>(active.size());
+        long nowMillis = System.currentTimeMillis();
+        for (Target target : active) {
+            Duration retryAfter = checkRedis(target, true, nowMillis);
+            if (retryAfter != null) {
+                counted.forEach(this::refundRedis);
+                taken.forEach(t -> bucket(t).release());
+                redisRejections.increment();
+                throw new RateLimitExceededException(target.policy(), retryAfter);
+            }
+            counted.add(windowKeyBase(target) + nowMillis / target.limit().window().toMillis());
+        }
+    }
+
+    /**
+     * @param consume true = tính lượt nếu cho qua, false = chỉ kiểm tra
+     * @return thời gian chờ nếu bị từ chối, null nếu cho qua (kể cả khi Redis lỗi)
+     */
+    private Duration checkRedis(Target target, boolean consume, long now) {
+        long windowMillis = target.limit().window().toMillis();
+        long window = now / windowMillis;
+        long elapsed = now - window * windowMillis;
+        double previousWeight = 1.0 - (double) elapsed / windowMillis;
+
+        String base = windowKeyBase(target);
+        try {
+            Long allowed = stringRedisTemplate.execute(SLIDING_WINDOW_SCRIPT,
+                    List.of(base + window, base + (window - 1)),
+                    Double.toString(previousWeight),
+                    Integer.toString(target.limit().permits()),
+                    Long.toString(2 * windowMillis),
+                    consume ? "1" : "0");
+            if (allowed != null && allowed == 0) {
+                return Duration.ofMillis(windowMillis - elapsed);
+            }
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("SOS rate limit check on Redis failed, local limit only: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /** Hash tag giữ 2 cửa sổ của cùng 1 key trên cùng slot (Redis Cluster) */
+    private static String windowKeyBase(Target target) {
+        return KEY_PREFIX + "{" + target.key() + "}:";
+    }
+
+    private void refundRedis(String windowKey) {
+        try {
+            stringRedisTemplate.opsForValue().decrement(windowKey);
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("SOS rate limit refund on Redis failed [{}]: {}", windowKey, e.getMessage());
+        }
+    }
+
+    /** "+84 912.345.678" và "0912345678" là cùng 1 số */
+    static String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("[^0-9+]", "");
+        if (digits.startsWith("+84")) {
+            return "0" + digits.substring(3);
+        }
+        return digits.startsWith("+") ? digits.substring(1) : digits;
+    }
+
+    /** Bucket đầy = permits lượt, nạp lại đều permits lượt mỗi cửa sổ */
+    private static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long updatedAtNanos;
+
+        TokenBucket(Limit limit) {
+            this.capacity = limit.permits();
+            this.tokensPerNano = limit.permits() / (double) limit.window().toNanos();
+            this.tokens = capacity;
+            this.updatedAtNanos = System.nanoTime();
+        }
+
+        /** @return 0 nếu lấy được 1 lượt, ngược lại số nano giây đến khi có lượt kế tiếp */
+        synchronized long tryAcquire(long nowNanos) {
+            long waitNanos = nanosUntilAvailable(nowNanos);
+            if (waitNanos == 0) {
+                tokens -= 1;
+            }
+            return waitNanos;
+        }
+
+        /** Như tryAcquire nhưng không lấy lượt */
+        synchronized long nanosUntilAvailable(long nowNanos) {
+            refill(nowNanos);
+            if (tokens >= 1) {
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+        }
+
+        /** Trả lại lượt đã lấy khi request bị giới hạn khác từ chối */
+        synchronized void release() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        private void refill(long nowNanos) {
+            // nanoTime của request đến sau có thể nhỏ hơn updatedAtNanos: không nạp ngược
+            if (nowNanos > updatedAtNanos) {
+                tokens = Math.min(capacity, tokens + (nowNanos - updatedAtNanos) * tokensPerNano);
+                updatedAtNanos = nowNanos;
+            }
+        }
+    }
+
+    @Getter
+    public static class RateLimitExceededException extends RuntimeException {
+
+        private final Policy policy;
+        private final Duration retryAfter;
+
+        public RateLimitExceededException(Policy policy, Duration retryAfter) {
+            super("Bạn thao tác quá nhanh, vui lòng thử lại sau " + retryAfterSeconds(retryAfter) + " giây");
+            this.policy = policy;
+            this.retryAfter = retryAfter;
+        }
+
+        /** Giá trị header Retry-After (giây, làm tròn lên, tối thiểu 1) */
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds(retryAfter);
+        }
+
+        private static long retryAfterSeconds(Duration retryAfter) {
+            return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retryAfter.toMillis() + 999));
+        }
+    }
+}
@@ -4,22 +4,18 @@ import com.team6.floodcoord.dto.MonthlyStatDTO;
 import com.team6.floodcoord.dto.response.MonthlyDoubleStatDTO;
 import com.team6.floodcoord.dto.response.TeamLeaderDashboardResponse;
 import com.team6.floodcoord.model.User;
-import com.team6.floodcoord.model.enums.RequestStatus;
-import com.team6.floodcoord.repository.jpa.RescueRequestRepository;
+import com.team6.floodcoord.repository.jpa.DailyStatsRepository;
 import com.team6.floodcoord.repository.jpa.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.YearMonth;
-import java.util.Arrays;
-import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class TeamLeaderAnalyticsService {
-    private final RescueRequestRepository rescueRequestRepository;
+    private final DailyStatsRepository dailyStatsRepository;
     private final UserRepository userRepository;
 
     public TeamLeaderDashboardResponse getDashboardStats(String email, LocalDate startDate, LocalDate endDate, LocalDate compareStartDate, LocalDate compareEndDate) {
@@ -33,29 +29,18 @@ public class TeamLeaderAnalyticsService {
         }
         Long teamId = user.getRescueTeam().getId();
 
-        // 2. Convert sang LocalDateTime
-        LocalDateTime startTarget = startDate.atStartOfDay();
-        LocalDateTime endTarget = endDate.atTime(23, 59, 59);
-        LocalDateTime startCompare = compareStartDate.atStartOfDay();
-        LocalDateTime endCompare = compareEndDate.atTime(23, 59, 59);
+        // 2. Đọc rollup daily_stats của đội (COMPLETED / REPORTED theo ngày completedAt): 1 query / kỳ
+        DailyStatsRepository.TotalsView current = dailyStatsRepository.sumRange(teamId, startDate, endDate);
+        DailyStatsRepository.TotalsView compare = dailyStatsRepository.sumRange(teamId, compareStartDate, compareEndDate);
 
-        // 3. Query DB
-        List<RequestStatus> validStatuses = Arrays.asList(RequestStatus.COMPLETED, RequestStatus.REPORTED);
+        long currentMissions = current.getMissionsCompleted();
+        long lastMissions = compare.getMissionsCompleted();
 
-        long currentMissions = rescueRequestRepository.countByAssignedTeam_IdAndStatusInAndCompletedAtBetween(
-                teamId, validStatuses, startTarget, endTarget);
-        long lastMissions = rescueRequestRepository.countByAssignedTeam_IdAndStatusInAndCompletedAtBetween(
-                teamId, validStatuses, startCompare, endCompare);
+        long currentRescued = current.getRescuedPeople();
+        long lastRescued = compare.getRescuedPeople();
 
-        long currentRescued = rescueRequestRepository.sumRescuedPeopleByTeamAndDateRange(
-                teamId, validStatuses, startTarget, endTarget);
-        long lastRescued = rescueRequestRepository.sumRescuedPeopleByTeamAndDateRange(
-                teamId, validStatuses, startCompare, endCompare);
-
-        double currentRating = rescueRequestRepository.getAverageRatingByTeamAndDateRange(
-                teamId, validStatuses, startTarget, endTarget);
-        double lastRating = rescueRequestRepository.getAverageRatingByTeamAndDateRange(
-                teamId, validStatuses, startCompare, endCompare);
+        double currentRating = averageRating(current);
+        double lastRating = averageRating(compare);
 
         return TeamLeaderDashboardResponse.builder()
                 .completedMissions(buildMonthlyStat(currentMissions, lastMissions))
@@ -64,6 +49,10 @@ public class TeamLeaderAnalyticsService {
                 .build();
     }
 
+    private double averageRating(DailyStatsRepository.TotalsView totals) {
+        return totals.getRatingCount() > 0 ? (double) totals.getRatingSum() / totals.getRatingCount() : 0.0;
+    }
+
     // Helper cho kiểu Long (Số nguyên)
     private MonthlyStatDTO buildMonthlyStat(long current, long last) {
         double growthRate = 0.0;
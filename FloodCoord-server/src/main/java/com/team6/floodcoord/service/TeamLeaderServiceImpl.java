@@ -19,7 +19,9 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -217,6 +219,7 @@ public class TeamLeaderServiceImpl implements TeamLeaderService {
 
         // 🔥 Xử lý hoàn kho
         if (dto.getRemainSupplies() != null) {
+            Map<Long, Integer> restock = new HashMap<>();
             for (SupplyRemainDTO item : dto.getRemainSupplies()) {
 
                 if (item.getRemainingQuantity() < 0) {
@@ -229,14 +232,14 @@ public class TeamLeaderServiceImpl implements TeamLeaderService {
                 int remain = item.getRemainingQuantity();
 
                 if (remain > 0) {
-                    Supply supply = rs.getSupply();
-                    supply.setQuantity(supply.getQuantity() + remain);
-                    supplyRepository.save(supply);
+                    restock.merge(rs.getSupply().getId(), remain, Integer::sum);
 
                     rs.setRemainingQuantity(remain);
                     requestSupplyRepository.save(rs);
                 }
             }
+            // Hoàn kho cả lô bằng 1 batch UPDATE quantity = quantity + n
+            supplyRepository.incrementStock(restock);
         }
         // 7️⃣ Upload media lên Cloudinary
         if (dto.getMediaFiles() != null && dto.getMediaFiles().length > 0) {
@@ -276,7 +279,7 @@ public class TeamLeaderServiceImpl implements TeamLeaderService {
 
         Long teamId = leader.getRescueTeam().getId();
 
-        List<RescueRequest> requests = rescueRequestRepository.findByAssignedTeam_IdAndStatusIn(
+        List<RescueRequest> requests = rescueRequestRepository.findMissionsByTeam(
                 teamId,
                    List.of(RequestStatus.COMPLETED, RequestStatus.REPORTED));
 
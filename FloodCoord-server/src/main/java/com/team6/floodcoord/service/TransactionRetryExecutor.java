@@ -0,0 +1,71 @@
+package com.team6.floodcoord.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in its own transaction and re-runs it when the database
+ * reports a lock conflict (lock timeout, deadlock victim, stale version).
+ *
+ * Each attempt gets a fresh transaction and persistence context, so the retried
+ * work re-reads current row state instead of the copy that lost the race.
+ * Business-rule failures (IllegalStateException, ...) are never retried.
+ */
+@Slf4j
+@Component
+public class TransactionRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${dispatch.lock.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${dispatch.lock.retry-backoff-ms:50}")
+    private long retryBackoffMs;
+
+    public TransactionRetryExecutor(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void run(String operation, Runnable work) {
+        execute(operation, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("{} gave up after {} lock conflicts: {}", operation, attempt, e.getMessage());
+                    throw e;
+                }
+                log.debug("{} hit lock conflict on attempt {}, retrying", operation, attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        // Jitter để các transaction thua cuộc không va chạm lại cùng một thời điểm
+        long delay = retryBackoffMs * attempt + ThreadLocalRandom.current().nextLong(retryBackoffMs + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dispatch retry interrupted", e);
+        }
+    }
+}
@@ -1,28 +1,30 @@
 package com.team6.floodcoord.service;
 
+import com.team6.floodcoord.dto.Coord;
+import com.team6.floodcoord.dto.GridCell;
 import com.team6.floodcoord.dto.WeatherCurrentDTO;
 import com.team6.floodcoord.dto.WeatherForecastDTO;
-import com.team6.floodcoord.model.WeatherSnapshot;
-import com.team6.floodcoord.repository.jpa.WeatherSnapshotRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class WeatherService {
     private final CacheService cacheService;
-    private final WeatherSnapshotRepository snapshotRepository;
-    private final RestClient restClient = RestClient.create();
+    private final WeatherSnapshotBuffer snapshotBuffer;
+    private final OpenMeteoClient openMeteoClient;
 
     @Value("${weather.open-meteo.forecast-url}")
     private String forecastUrl;
@@ -30,39 +32,76 @@ public class WeatherService {
     @Value("${weather.cache.ttl-minutes:30}")
     private long ttlMinutes;
 
+    /** Max coordinates per multi-location Open-Meteo request */
+    @Value("${weather.open-meteo.batch-size:50}")
+    private int batchSize;
+
     // ─── Public API ────────────────────────────────────────────────────────────
 
     public WeatherCurrentDTO getCurrentWeather(double lat, double lon) {
-        String key = cacheService.weatherCurrentKey(lat, lon);
+        GridCell cell = GridCell.of(lat, lon);
         return cacheService.getOrFetch(
-                key,
+                cacheService.weatherCurrentKey(cell),
+                Duration.ofMinutes(ttlMinutes),
+                () -> fetchCurrentFromAPI(cell.latitude(), cell.longitude()),
+                WeatherCurrentDTO.class
+        );
+    }
+
+    /**
+     * Current weather for many points. Cache hits are served from cache; all misses are
+     * fetched with chunked multi-location requests and cached under their own keys.
+     * Points with no data (API failure) are absent from the result.
+     */
+    public Map<Coord, WeatherCurrentDTO> getCurrentWeatherBatch(List<Coord> coords) {
+        Map<String, Coord> coordsByKey = new LinkedHashMap<>();
+        for (Coord c : coords) {
+            GridCell cell = GridCell.of(c);
+            coordsByKey.putIfAbsent(cacheService.weatherCurrentKey(cell), cell.center());
+        }
+
+        Map<String, WeatherCurrentDTO> byKey = cacheService.getOrFetchAll(
+                new ArrayList<>(coordsByKey.keySet()),
                 Duration.ofMinutes(ttlMinutes),
-                () -> fetchCurrentFromAPI(lat, lon),
+                missing -> fetchCurrentBatchFromAPI(missing, coordsByKey),
                 WeatherCurrentDTO.class
         );
+
+        Map<Coord, WeatherCurrentDTO> result = new LinkedHashMap<>();
+        for (Coord c : coords) {
+            WeatherCurrentDTO dto = byKey.get(cacheService.weatherCurrentKey(GridCell.of(c)));
+            if (dto != null) {
+                result.put(c, dto);
+            }
+        }
+        return result;
     }
 
     public WeatherForecastDTO getForecast(double lat, double lon, int days) {
-        String key = cacheService.weatherForecastKey(lat, lon, days);
+        GridCell cell = GridCell.of(lat, lon);
         return cacheService.getOrFetch(
-                key,
+                cacheService.weatherForecastKey(cell, days),
                 Duration.ofHours(1),
-                () -> fetchForecastFromAPI(lat, lon, days),
+                () -> fetchForecastFromAPI(cell.latitude(), cell.longitude(), days),
                 WeatherForecastDTO.class
         );
     }
 
     // ─── Private API callers ───────────────────────────────────────────────────
 
-    private WeatherCurrentDTO fetchCurrentFromAPI(double lat, double lon) {
+    /**
+     * @param latitudes  one latitude, or a comma-separated list for a multi-location request
+     * @param longitudes matching longitude(s)
+     */
+    private URI currentWeatherUri(String latitudes, String longitudes) {
         // FIX 2: UriComponentsBuilder replaces String.format URL construction.
         // String.format with %%2F produced a corrupted URL that Open-Meteo
         // rejected with 400 Bad Request. UriComponentsBuilder correctly encodes
         // "Asia/Ho_Chi_Minh" as "Asia%2FHo_Chi_Minh" in the final URI.
-        URI uri = UriComponentsBuilder
+        return UriComponentsBuilder
                 .fromHttpUrl(forecastUrl)
-                .queryParam("latitude", lat)
-                .queryParam("longitude", lon)
+                .queryParam("latitude", latitudes)
+                .queryParam("longitude", longitudes)
                 .queryParam("current",
                         "temperature_2m,relative_humidity_2m,apparent_temperature," +
                                 "precipitation,rain,wind_speed_10m,wind_direction_10m," +
@@ -70,17 +109,18 @@ public class WeatherService {
                 .queryParam("timezone", "Asia/Ho_Chi_Minh")
                 .build(true)
                 .toUri();
+    }
+
+    private WeatherCurrentDTO fetchCurrentFromAPI(double lat, double lon) {
+        URI uri = currentWeatherUri(String.valueOf(lat), String.valueOf(lon));
 
         log.info("Fetching current weather: {}", uri);
 
         try {
-            WeatherCurrentDTO result = restClient.get()
-                    .uri(uri)
-                    .retrieve()
-                    .body(WeatherCurrentDTO.class);
+            WeatherCurrentDTO result = openMeteoClient.fetch(uri, WeatherCurrentDTO.class);
 
             if (result != null) {
-                saveSnapshotAsync(lat, lon, result);
+                recordSnapshot(lat, lon, result);
             }
             return result;
         } catch (Exception e) {
@@ -89,6 +129,48 @@ public class WeatherService {
         }
     }
 
+    /**
+     * One request per chunk of up to batchSize points. Open-Meteo answers a multi-location
+     * request with a JSON array in the same order as the coordinates.
+     */
+    private Map<String, WeatherCurrentDTO> fetchCurrentBatchFromAPI(List<String> keys,
+                                                                   Map<String, Coord> coordsByKey) {
+        Map<String, WeatherCurrentDTO> results = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<String> chunk = keys.subList(from, Math.min(from + batchSize, keys.size()));
+            List<Coord> coords = chunk.stream().map(coordsByKey::get).toList();
+
+            if (chunk.size() == 1) {
+                // Single location: Open-Meteo returns an object, not an array
+                WeatherCurrentDTO dto = fetchCurrentFromAPI(coords.get(0).latitude(), coords.get(0).longitude());
+                if (dto != null) {
+                    results.put(chunk.get(0), dto);
+                }
+                continue;
+            }
+
+            URI uri = currentWeatherUri(Coord.joinLatitudes(coords), Coord.joinLongitudes(coords));
+            log.info("Fetching current weather for {} locations", chunk.size());
+            try {
+                WeatherCurrentDTO[] body = openMeteoClient.fetch(uri, WeatherCurrentDTO[].class);
+
+                if (body == null || body.length != chunk.size()) {
+                    log.warn("Batch weather response size mismatch: expected {}, got {}",
+                            chunk.size(), body == null ? 0 : body.length);
+                    continue;
+                }
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (body[i] == null) continue;
+                    results.put(chunk.get(i), body[i]);
+                    recordSnapshot(coords.get(i).latitude(), coords.get(i).longitude(), body[i]);
+                }
+            } catch (Exception e) {
+                log.error("Failed to fetch current weather for {} locations: {}", chunk.size(), e.getMessage());
+            }
+        }
+        return results;
+    }
+
     private WeatherForecastDTO fetchForecastFromAPI(double lat, double lon, int days) {
         URI uri = UriComponentsBuilder
                 .fromHttpUrl(forecastUrl)
@@ -105,40 +187,17 @@ public class WeatherService {
         log.info("Fetching {}-day forecast: {}", days, uri);
 
         try {
-            return restClient.get()
-                    .uri(uri)
-                    .retrieve()
-                    .body(WeatherForecastDTO.class);
+            return openMeteoClient.fetch(uri, WeatherForecastDTO.class);
         } catch (Exception e) {
             log.error("Failed to fetch forecast for [{},{}]: {}", lat, lon, e.getMessage());
             return null;
         }
     }
 
-    // ─── Async snapshot persistence ────────────────────────────────────────────
+    // ─── Snapshot recording ────────────────────────────────────────────────────
 
-    @Async
-    public void saveSnapshotAsync(double lat, double lon, WeatherCurrentDTO dto) {
-        try {
-            WeatherCurrentDTO.CurrentBlock cur = dto.getCurrent();
-            if (cur == null) return;
-
-            WeatherSnapshot snapshot = WeatherSnapshot.builder()
-                    .latitude(lat)
-                    .longitude(lon)
-                    .temperature(cur.getTemperature2m())
-                    .humidity(cur.getRelativeHumidity2m())
-                    .precipitation(cur.getPrecipitation())
-                    .rain(cur.getRain())
-                    .windSpeed(cur.getWindSpeed10m())
-                    .windGusts(cur.getWindGusts10m())
-                    .weatherCode(cur.getWeatherCode())
-                    .recordedAt(LocalDateTime.now())
-                    .build();
-
-            snapshotRepository.save(snapshot);
-        } catch (Exception e) {
-            log.warn("Failed to save weather snapshot: {}", e.getMessage());
-        }
+    /** Hands the observation to the write-behind buffer; no DB work on the calling thread */
+    private void recordSnapshot(double lat, double lon, WeatherCurrentDTO dto) {
+        snapshotBuffer.recordWeather(lat, lon, dto.getCurrent());
     }
 }
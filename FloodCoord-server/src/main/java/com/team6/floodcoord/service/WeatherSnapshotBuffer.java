@@ -0,0 +1,260 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.dto.GridCell;
+import com.team6.floodcoord.dto.WeatherCurrentDTO;
+import com.team6.floodcoord.model.WeatherSnapshot;
+import com.team6.floodcoord.model.enums.RiskLevel;
+import com.team6.floodcoord.repository.jpa.WeatherSnapshotRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind buffer for weather_snapshots.
+ *
+ * - Weather fetches and risk evaluations are merged in memory into one row per GridCell
+ *   and time bucket (recordedAt = bucket start)
+ * - Rows are flushed with JDBC batches every flush-interval, or as soon as batch-size rows
+ *   are pending; a bucket flushed earlier is updated in place, not duplicated
+ * - At most max-pending rows are held: observations for new rows beyond that are dropped
+ *   (weather.snapshot.buffer.dropped) and callers never block
+ * - A failed flush puts its rows back (newer observations win) and retries on the next tick
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WeatherSnapshotBuffer {
+
+    private record BucketKey(GridCell cell, LocalDateTime bucketStart) {}
+
+    private final WeatherSnapshotRepository snapshotRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<BucketKey, WeatherSnapshot> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean sizeFlushRequested = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${weather.snapshot.bucket:PT30M}")
+    private Duration bucket;
+
+    @Value("${weather.snapshot.batch-size:500}")
+    private int batchSize;
+
+    @Value("${weather.snapshot.max-pending:5000}")
+    private int maxPending;
+
+    private Counter droppedWeather;
+    private Counter droppedRisk;
+    private Counter flushedRows;
+    private Counter flushFailures;
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void initMetrics() {
+        droppedWeather = dropped("weather");
+        droppedRisk = dropped("risk");
+        flushedRows = Counter.builder("weather.snapshot.buffer.flushed")
+                .description("Snapshot rows written")
+                .register(meterRegistry);
+        flushFailures = Counter.builder("weather.snapshot.buffer.flush.failures")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("weather.snapshot.buffer.flush.duration")
+                .register(meterRegistry);
+        Gauge.builder("weather.snapshot.buffer.pending", pending, ConcurrentHashMap::size)
+                .register(meterRegistry);
+    }
+
+    private Counter dropped(String kind) {
+        return Counter.builder("weather.snapshot.buffer.dropped")
+                .description("Observations dropped because the buffer was full")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    // ─── Producers (never block) ───────────────────────────────────────────────
+
+    public void recordWeather(double lat, double lon, WeatherCurrentDTO.CurrentBlock cur) {
+        if (cur == null) return;
+        offer(lat, lon, droppedWeather, snap -> {
+            snap.setTemperature(cur.getTemperature2m());
+            snap.setHumidity(cur.getRelativeHumidity2m());
+            snap.setPrecipitation(cur.getPrecipitation());
+            snap.setRain(cur.getRain());
+            snap.setWindSpeed(cur.getWindSpeed10m());
+            snap.setWindGusts(cur.getWindGusts10m());
+            snap.setWeatherCode(cur.getWeatherCode());
+        });
+    }
+
+    public void recordRisk(double lat, double lon, Double riverDischarge, Double riverDischargeMax, RiskLevel level) {
+        offer(lat, lon, droppedRisk, snap -> {
+            snap.setRiverDischarge(riverDischarge);
+            snap.setRiverDischargeMax(riverDischargeMax);
+            snap.setRiskLevel(level);
+        });
+    }
+
+    private void offer(double lat, double lon, Counter droppedCounter, Consumer<WeatherSnapshot> observation) {
+        GridCell cell = GridCell.of(lat, lon);
+        BucketKey key = new BucketKey(cell, bucketStart(LocalDateTime.now()));
+
+        boolean[] accepted = {true};
+        pending.compute(key, (k, snap) -> {
+            if (snap == null) {
+                if (pending.size() >= maxPending) {
+                    accepted[0] = false;
+                    return null;
+                }
+                snap = WeatherSnapshot.builder()
+                        .latitude(cell.latitude())
+                        .longitude(cell.longitude())
+                        .recordedAt(k.bucketStart())
+                        .build();
+            }
+            observation.accept(snap);
+            return snap;
+        });
+
+        if (!accepted[0]) {
+            droppedCounter.increment();
+            log.debug("Snapshot buffer full ({} rows) - dropped observation for [{},{}]", maxPending, lat, lon);
+        }
+        if (pending.size() >= batchSize) {
+            requestSizeFlush();
+        }
+    }
+
+    private LocalDateTime bucketStart(LocalDateTime time) {
+        long seconds = bucket.toSeconds();
+        long epoch = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epoch, seconds) * seconds, 0, ZoneOffset.UTC);
+    }
+
+    // ─── Flushing ──────────────────────────────────────────────────────────────
+
+    private void requestSizeFlush() {
+        if (!sizeFlushRequested.compareAndSet(false, true)) return;
+        try {
+            flusher.submit(() -> {
+                try {
+                    flush();
+                } finally {
+                    sizeFlushRequested.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            sizeFlushRequested.set(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${weather.snapshot.flush-interval:PT10S}",
+            initialDelayString = "${weather.snapshot.flush-interval:PT10S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!pending.isEmpty()) {
+                List<WeatherSnapshot> batch = drain();
+                if (batch.isEmpty() || !write(batch)) {
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Removes up to batchSize rows; an observation arriving after removal starts a new row for the same bucket */
+    private List<WeatherSnapshot> drain() {
+        List<WeatherSnapshot> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<BucketKey> keys = pending.keySet().iterator();
+        while (keys.hasNext() && batch.size() < batchSize) {
+            WeatherSnapshot snap = pending.remove(keys.next());
+            if (snap != null) {
+                batch.add(snap);
+            }
+        }
+        return batch;
+    }
+
+    private boolean write(List<WeatherSnapshot> batch) {
+        long started = System.nanoTime();
+        try {
+            snapshotRepository.upsertBuckets(batch);
+            flushedRows.increment(batch.size());
+            log.debug("Flushed {} weather snapshots", batch.size());
+            return true;
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.warn("Weather snapshot flush of {} rows failed: {} - will retry", batch.size(), e.getMessage());
+            batch.forEach(this::requeue);
+            return false;
+        } finally {
+            flushTimer.record(Duration.ofNanos(System.nanoTime() - started));
+        }
+    }
+
+    private void requeue(WeatherSnapshot failed) {
+        BucketKey key = new BucketKey(GridCell.of(failed.getLatitude(), failed.getLongitude()), failed.getRecordedAt());
+        boolean[] accepted = {true};
+        pending.compute(key, (k, newer) -> {
+            if (newer == null) {
+                if (pending.size() >= maxPending) {
+                    accepted[0] = false;
+                    return null;
+                }
+                return failed;
+            }
+            fillMissing(newer, failed);
+            return newer;
+        });
+        if (!accepted[0]) {
+            (failed.getRiskLevel() != null ? droppedRisk : droppedWeather).increment();
+        }
+    }
+
+    /** Keep the newer row's values; take the failed row's only where the newer one has none */
+    private static void fillMissing(WeatherSnapshot target, WeatherSnapshot older) {
+        if (target.getTemperature() == null) target.setTemperature(older.getTemperature());
+        if (target.getHumidity() == null) target.setHumidity(older.getHumidity());
+        if (target.getPrecipitation() == null) target.setPrecipitation(older.getPrecipitation());
+        if (target.getRain() == null) target.setRain(older.getRain());
+        if (target.getWindSpeed() == null) target.setWindSpeed(older.getWindSpeed());
+        if (target.getWindGusts() == null) target.setWindGusts(older.getWindGusts());
+        if (target.getWeatherCode() == null) target.setWeatherCode(older.getWeatherCode());
+        if (target.getRiverDischarge() == null) target.setRiverDischarge(older.getRiverDischarge());
+        if (target.getRiverDischargeMax() == null) target.setRiverDischargeMax(older.getRiverDischargeMax());
+        if (target.getRiskLevel() == null) target.setRiskLevel(older.getRiskLevel());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("{} weather snapshots not written before shutdown", pending.size());
+        }
+    }
+}
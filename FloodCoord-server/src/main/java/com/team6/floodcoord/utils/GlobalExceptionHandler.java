@@ -1,6 +1,9 @@
 package com.team6.floodcoord.utils;
 
+import com.team6.floodcoord.service.RescueRequestIdempotency;
+import com.team6.floodcoord.service.SosRateLimiter;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.MailException;
@@ -161,4 +164,53 @@ public class GlobalExceptionHandler {
         );
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
     }
-}
\ No newline at end of file
+
+    /**
+     * Handle SOS rate limit rejections (per IP / per contact phone).
+     * Returns 429 Too Many Requests with a Retry-After header.
+     */
+    @ExceptionHandler({SosRateLimiter.RateLimitExceededException.class})
+    public ResponseEntity<ErrorResponse> handleRateLimitExceededException(SosRateLimiter.RateLimitExceededException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too Many Requests",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
+    /**
+     * Handle a retry that arrives while the first request with the same Idempotency-Key is still running.
+     * Returns 409 Conflict.
+     */
+    @ExceptionHandler({RescueRequestIdempotency.IdempotencyConflictException.class})
+    public ResponseEntity<ErrorResponse> handleIdempotencyConflictException(RescueRequestIdempotency.IdempotencyConflictException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    /**
+     * Handle an Idempotency-Key reused for a request with a different payload.
+     * Returns 422 Unprocessable Entity.
+     */
+    @ExceptionHandler({RescueRequestIdempotency.IdempotencyKeyReuseException.class})
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReuseException(RescueRequestIdempotency.IdempotencyKeyReuseException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                "Unprocessable Entity",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
+    }
+}
@@ -0,0 +1,46 @@
+package com.team6.floodcoord.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Encodes the keyset position (createdAt, requestId) of the last row of a queue page
+ * into an opaque, URL-safe cursor string and back.
+ */
+public final class RequestCursorUtils {
+
+    private static final String SEPARATOR = "|";
+
+    private RequestCursorUtils() {
+    }
+
+    public record Position(LocalDateTime createdAt, UUID requestId) {}
+
+    public static String encode(LocalDateTime createdAt, UUID requestId) {
+        String raw = createdAt + SEPARATOR + requestId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return null for a blank cursor (first page) */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(SEPARATOR);
+            if (idx < 0) {
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+            }
+            return new Position(
+                    LocalDateTime.parse(raw.substring(0, idx)),
+                    UUID.fromString(raw.substring(idx + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.team6.floodcoord.utils;
+
+import com.team6.floodcoord.service.SosRateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+/**
+ * Giới hạn tần suất theo IP cho các endpoint SOS công khai, chạy trước Spring Security và trước khi
+ * DispatcherServlet parse body multipart: IP đang spam bị chặn mà server không phải đọc / ghi tạm ảnh đính kèm.
+ *
+ * Tạo yêu cầu chỉ được kiểm tra (không trừ lượt) ở đây; lượt được trừ trong controller cùng với giới hạn
+ * theo số điện thoại, nên lần gửi lại cùng Idempotency-Key vẫn không tính lượt.
+ * Lỗi 429 đi qua {@link GlobalExceptionHandler} như các lỗi khác.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SosRateLimitFilter extends OncePerRequestFilter {
+
+    static final String CREATE_PATH = "/api/rescue-requests";
+    static final String TRACK_PATH = "/api/rescue-requests/track";
+
+    private final SosRateLimiter sosRateLimiter;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public SosRateLimitFilter(SosRateLimiter sosRateLimiter,
+                              @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        this.sosRateLimiter = sosRateLimiter;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        return !(HttpMethod.POST.matches(request.getMethod()) && CREATE_PATH.equals(path))
+                && !(HttpMethod.GET.matches(request.getMethod()) && TRACK_PATH.equals(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            if (TRACK_PATH.equals(path(request))) {
+                sosRateLimiter.checkTrack(request.getRemoteAddr());
+            } else {
+                sosRateLimiter.precheckCreate(request.getRemoteAddr());
+            }
+        } catch (SosRateLimiter.RateLimitExceededException e) {
+            exceptionResolver.resolveException(request, response, null, e);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -1,8 +1,16 @@
 package com.team6.floodcoord.utils;
 
+import com.team6.floodcoord.dto.Coord;
 import com.team6.floodcoord.dto.RiskLevelDTO;
+import com.team6.floodcoord.model.MonitoredLocation;
 import com.team6.floodcoord.model.enums.RiskLevel;
 import com.team6.floodcoord.service.AlertService;
+import com.team6.floodcoord.service.MonitoredLocationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,13 +18,29 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- * Pre-warms Redis cache for flood-prone Vietnamese locations every 30 minutes.
+ * Pre-warms Redis cache for the monitored flood-prone locations on every cycle.
  * This ensures rescue coordinators always get sub-100ms responses from cache,
  * even if they query at the same time as a flood event starts.
  *
+ * Locations come from MonitoredLocationService (DB registry, admin-managed).
+ * The cycle first warms weather + discharge for all locations with batched
+ * multi-location Open-Meteo calls, then evaluates each location on its own virtual thread:
+ *  - at most weather.poll.max-concurrency locations talk to Open-Meteo at once
+ *  - a location that takes longer than weather.poll.location-timeout is cancelled
+ *  - cycle / location durations and outcomes are exported as weather.poll.* metrics
+ *
  * Toggle on/off via: weather.scheduler.enabled=true|false
  */
 @Slf4j
@@ -25,40 +49,46 @@ import java.util.List;
 @RequiredArgsConstructor
 public class WeatherPollingScheduler {
 
+    private enum PollOutcome { SUCCESS, FAILED, TIMED_OUT }
+
     private final AlertService alertService;
+    private final MonitoredLocationService locationService;
+    private final MeterRegistry meterRegistry;
 
     @Value("${weather.scheduler.enabled:true}")
     private boolean schedulerEnabled;
 
-    /**
-     * Key flood-prone and rescue-relevant locations across Vietnam.
-     * Format: { lat, lon, "name" (for logging only) }
-     */
-    private static final List<double[]> MONITORED_LOCATIONS = List.of(
-            // Central Vietnam — most flood-prone region
-            new double[]{16.047, 108.206},   // Da Nang
-            new double[]{16.463, 107.585},   // Hue
-            new double[]{15.880, 108.335},   // Hoi An
-            new double[]{14.058, 108.278},   // Kon Tum
-
-            // Southern Vietnam — Mekong Delta
-            new double[]{10.823, 106.630},   // Ho Chi Minh City
-            new double[]{10.045, 105.746},   // Can Tho
-            new double[]{10.370, 105.438},   // Long Xuyen
-            new double[]{10.539, 106.413},   // My Tho
-
-            // Northern Vietnam
-            new double[]{21.028, 105.834},   // Hanoi
-            new double[]{20.844, 106.688},   // Hai Phong
-
-            // North Central Coast
-            new double[]{18.679, 105.681},   // Vinh
-            new double[]{17.467, 106.622}    // Dong Hoi
-    );
+    @Value("${weather.poll.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${weather.poll.location-timeout:PT30S}")
+    private Duration locationTimeout;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Timer cycleTimer;
+    private Timer locationTimer;
+    private Counter successCounter;
+    private Counter failedCounter;
+    private Counter timeoutCounter;
+
+    @PostConstruct
+    public void initMetrics() {
+        cycleTimer = Timer.builder("weather.poll.cycle.duration").register(meterRegistry);
+        locationTimer = Timer.builder("weather.poll.location.duration").register(meterRegistry);
+        successCounter = outcomeCounter("success");
+        failedCounter = outcomeCounter("failed");
+        timeoutCounter = outcomeCounter("timeout");
+    }
+
+    private Counter outcomeCounter(String result) {
+        return Counter.builder("weather.poll.locations").tag("result", result).register(meterRegistry);
+    }
 
     /**
-     * Runs every 30 minutes. Fetches weather + flood + risk for all locations.
-     * Results are stored in Redis automatically by WeatherService / FloodService.
+     * Fetches weather + flood + risk for all active locations in parallel.
+     * Results are stored in Redis automatically by WeatherService / FloodService;
+     * the recomputed risk overwrites the cached one so API reads stay cache hits.
      */
     @Scheduled(fixedDelayString = "${weather.cache.ttl:PT5M}",
             initialDelay = 10000)  // 10s delay on startup to let context load
@@ -68,34 +98,99 @@ public class WeatherPollingScheduler {
             return;
         }
 
-        log.info("Starting weather poll cycle for {} locations",
-                MONITORED_LOCATIONS.size());
+        List<MonitoredLocation> locations = locationService.getActiveLocations();
+        log.info("Starting weather poll cycle for {} locations (max {} concurrent)",
+                locations.size(), maxConcurrency);
+
+        long started = System.nanoTime();
+        prefetch(locations);
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<Future<PollOutcome>> futures = new ArrayList<>(locations.size());
+        for (MonitoredLocation loc : locations) {
+            futures.add(executor.submit(() -> pollWithPermit(loc, permits)));
+        }
+
         int success = 0;
         int failed  = 0;
-
-        for (double[] loc : MONITORED_LOCATIONS) {
+        int timedOut = 0;
+        for (Future<PollOutcome> future : futures) {
             try {
-                RiskLevelDTO risk = alertService.evaluateRisk(loc[0], loc[1]);
-                log.info("Polled [{},{}] → risk={}, discharge={}m³/s, rain={}mm",
-                        loc[0], loc[1],
-                        risk.getRiskLevel(),
-                        risk.getRiverDischarge(),
-                        risk.getCurrentPrecipitation());
-
-                if (risk.getRiskLevel() == RiskLevel.CRITICAL
-                        || risk.getRiskLevel() == RiskLevel.HIGH) {
-                    log.warn("ALERT: {} risk detected at [{},{}] — {}",
-                            risk.getRiskLevel(), loc[0], loc[1],
-                            risk.getRecommendation());
+                switch (future.get()) {
+                    case SUCCESS -> success++;
+                    case FAILED -> failed++;
+                    case TIMED_OUT -> timedOut++;
                 }
-                success++;
-            } catch (Exception e) {
-                log.error("Poll failed for [{},{}]: {}", loc[0], loc[1], e.getMessage());
+            } catch (ExecutionException e) {
                 failed++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                log.warn("Weather poll cycle interrupted");
+                return;
             }
         }
 
-        log.info("Weather poll cycle complete: {}/{} succeeded, {} failed",
-                success, MONITORED_LOCATIONS.size(), failed);
+        long elapsed = System.nanoTime() - started;
+        cycleTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Weather poll cycle complete in {} ms: {}/{} succeeded, {} failed, {} timed out",
+                TimeUnit.NANOSECONDS.toMillis(elapsed), success, locations.size(), failed, timedOut);
+    }
+
+    /** Best effort: locations the batch could not fill are fetched one by one below */
+    private void prefetch(List<MonitoredLocation> locations) {
+        try {
+            alertService.prefetch(locations.stream()
+                    .map(l -> new Coord(l.getLatitude(), l.getLongitude()))
+                    .toList());
+        } catch (Exception e) {
+            log.warn("Batch prefetch failed, falling back to per-location fetches: {}", e.getMessage());
+        }
+    }
+
+    private PollOutcome pollWithPermit(MonitoredLocation loc, Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        long started = System.nanoTime();
+        Future<RiskLevelDTO> call = executor.submit(() -> alertService.refreshRisk(loc.getLatitude(), loc.getLongitude()));
+        try {
+            RiskLevelDTO risk = call.get(locationTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            logRisk(loc, risk);
+            successCounter.increment();
+            return PollOutcome.SUCCESS;
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            log.error("Poll timed out for {} [{},{}] after {}", loc.getName(),
+                    loc.getLatitude(), loc.getLongitude(), locationTimeout);
+            timeoutCounter.increment();
+            return PollOutcome.TIMED_OUT;
+        } catch (ExecutionException e) {
+            log.error("Poll failed for {} [{},{}]: {}", loc.getName(),
+                    loc.getLatitude(), loc.getLongitude(), e.getCause().getMessage());
+            failedCounter.increment();
+            return PollOutcome.FAILED;
+        } finally {
+            locationTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            permits.release();
+        }
+    }
+
+    private void logRisk(MonitoredLocation loc, RiskLevelDTO risk) {
+        log.info("Polled {} [{},{}] → risk={}, discharge={}m³/s, rain={}mm",
+                loc.getName(), loc.getLatitude(), loc.getLongitude(),
+                risk.getRiskLevel(),
+                risk.getRiverDischarge(),
+                risk.getCurrentPrecipitation());
+
+        if (risk.getRiskLevel() == RiskLevel.CRITICAL
+                || risk.getRiskLevel() == RiskLevel.HIGH) {
+            log.warn("ALERT: {} risk detected at {} [{},{}] — {}",
+                    risk.getRiskLevel(), loc.getName(), loc.getLatitude(), loc.getLongitude(),
+                    risk.getRecommendation());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
     }
-}
\ No newline at end of file
+}
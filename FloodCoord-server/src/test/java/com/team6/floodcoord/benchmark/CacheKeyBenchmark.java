@@ -0,0 +1,72 @@
+package com.team6.floodcoord.benchmark;
+
+import com.team6.floodcoord.dto.GridCell;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí dựng cache key cho 1 lượt evaluateRisk (current + flood + risk key).
+ *
+ * - stringFormat: cách cũ, String.format("%.2f") cho từng key
+ * - gridCell: GridCell.of 1 lần, rồi ghép chuỗi bằng StringBuilder
+ *
+ * Chạy kèm GCProfiler để so sánh gc.alloc.rate.norm (byte / lượt).
+ * Không phải test của surefire; chạy main() sau khi mvn test-compile (classpath test).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    private static final int POINTS = 1024;
+
+    private final double[] lats = new double[POINTS];
+    private final double[] lons = new double[POINTS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // Điểm ngẫu nhiên trong khung lãnh thổ Việt Nam
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < POINTS; i++) {
+            lats[i] = 8.0 + random.nextDouble() * 15.5;
+            lons[i] = 102.0 + random.nextDouble() * 7.5;
+        }
+    }
+
+    @Benchmark
+    public void stringFormat(Blackhole bh) {
+        int i = next++ & (POINTS - 1);
+        double lat = lats[i];
+        double lon = lons[i];
+        bh.consume(String.format("weather:forecast:%.2f:%.2f", lat, lon));
+        bh.consume(String.format("flood:discharge:%.2f:%.2f", lat, lon));
+        bh.consume(String.format("flood:risk:%.2f:%.2f", lat, lon));
+    }
+
+    @Benchmark
+    public void gridCell(Blackhole bh) {
+        int i = next++ & (POINTS - 1);
+        GridCell cell = GridCell.of(lats[i], lons[i]);
+        bh.consume(cell.key("weather:current:"));
+        bh.consume(cell.key("flood:discharge:"));
+        bh.consume(cell.key("flood:risk:"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheKeyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,151 @@
+package com.team6.floodcoord.benchmark;
+
+import com.team6.floodcoord.configuration.CacheValueRedisSerializer;
+import com.team6.floodcoord.configuration.RedisConfiguration;
+import com.team6.floodcoord.dto.FloodDischargeDTO;
+import com.team6.floodcoord.dto.TimeSeries;
+import com.team6.floodcoord.dto.WeatherForecastDTO;
+import com.team6.floodcoord.service.CacheService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kích thước và thời gian giải mã 1 giá trị cache (CachedValue) theo từng serializer.
+ *
+ * - json: GenericJackson2JsonRedisSerializer (kèm @class) như trước
+ * - binary: CacheValueRedisSerializer, không nén
+ * - deflate: CacheValueRedisSerializer, nén khi thân >= 1KB
+ *
+ * payload: forecast = 16 ngày theo giờ (384 điểm), flood = 16 ngày theo ngày.
+ * main() in số byte lưu trên Redis trước khi chạy JMH (kèm GCProfiler).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"forecast", "flood"})
+    public String payload;
+
+    @Param({"json", "binary", "deflate"})
+    public String codec;
+
+    private RedisSerializer<Object> serializer;
+    private CacheService.CachedValue value;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = serializer(codec);
+        value = value(payload);
+        bytes = serializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(bytes);
+    }
+
+    private static RedisSerializer<Object> serializer(String codec) {
+        GenericJackson2JsonRedisSerializer json = RedisConfiguration.jsonRedisSerializer();
+        return switch (codec) {
+            case "json" -> json;
+            case "binary" -> new CacheValueRedisSerializer(json, true, 0);
+            case "deflate" -> new CacheValueRedisSerializer(json, true, 1024);
+            default -> throw new IllegalArgumentException("Unknown codec " + codec);
+        };
+    }
+
+    private static CacheService.CachedValue value(String payload) {
+        SplittableRandom random = new SplittableRandom(42);
+        Object data = switch (payload) {
+            case "forecast" -> forecast(random);
+            case "flood" -> flood(random);
+            default -> throw new IllegalArgumentException("Unknown payload " + payload);
+        };
+        long now = System.currentTimeMillis();
+        return new CacheService.CachedValue(data, now, now + 3_600_000, 420);
+    }
+
+    private static WeatherForecastDTO forecast(SplittableRandom random) {
+        int hours = 16 * 24;
+        long start = LocalDateTime.of(2026, 10, 18, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long[] time = new long[hours];
+        for (int i = 0; i < hours; i++) {
+            time[i] = start + i * 3600L;
+        }
+        TimeSeries hourly = TimeSeries.of(time, false)
+                .column("temperature_2m", doubles(random, hours, 22, 10))
+                .integerColumn("relative_humidity_2m", ints(random, hours, 55, 45))
+                .integerColumn("precipitation_probability", ints(random, hours, 0, 100))
+                .column("precipitation", doubles(random, hours, 0, 30))
+                .column("rain", doubles(random, hours, 0, 30))
+                .column("wind_speed_10m", doubles(random, hours, 0, 40))
+                .column("wind_gusts_10m", doubles(random, hours, 0, 70))
+                .integerColumn("weather_code", ints(random, hours, 0, 99));
+        return new WeatherForecastDTO(10.82, 106.63, "Asia/Bangkok", hourly, null);
+    }
+
+    private static FloodDischargeDTO flood(SplittableRandom random) {
+        int days = 16;
+        long start = LocalDate.of(2026, 10, 18).toEpochDay() * 86_400;
+        long[] time = new long[days];
+        for (int i = 0; i < days; i++) {
+            time[i] = start + i * 86_400L;
+        }
+        TimeSeries daily = TimeSeries.of(time, true)
+                .column("river_discharge", doubles(random, days, 50, 900))
+                .column("river_discharge_max", doubles(random, days, 100, 1500))
+                .column("river_discharge_median", doubles(random, days, 50, 900));
+        return new FloodDischargeDTO(16.05, 108.2, "GMT", daily, null);
+    }
+
+    /** Open-Meteo trả 1-2 chữ số thập phân */
+    private static double[] doubles(SplittableRandom random, int n, double min, double range) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = Math.round((min + random.nextDouble() * range) * 10) / 10.0;
+        }
+        return values;
+    }
+
+    private static double[] ints(SplittableRandom random, int n, int min, int range) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = min + random.nextInt(range + 1);
+        }
+        return values;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (String payload : List.of("forecast", "flood")) {
+            for (String codec : List.of("json", "binary", "deflate")) {
+                System.out.printf("%-8s %-8s %7d bytes%n", payload, codec, serializer(codec).serialize(value(payload)).length);
+            }
+        }
+        new Runner(new OptionsBuilder()
+                .include(CacheSerializerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
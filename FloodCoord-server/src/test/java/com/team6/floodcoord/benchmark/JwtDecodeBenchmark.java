@@ -0,0 +1,104 @@
+package com.team6.floodcoord.benchmark;
+
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.SignedJWT;
+import com.team6.floodcoord.configuration.JwtDecoderConfiguration;
+import com.team6.floodcoord.model.Role;
+import com.team6.floodcoord.model.User;
+import com.team6.floodcoord.service.AccessTokenBlacklist;
+import com.team6.floodcoord.service.JwtServiceImpl;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh đường decode JWT cũ và mới cho mỗi request có Bearer token.
+ *
+ * - legacyDecode: parse + new MACVerifier + check blacklist, rồi NimbusJwtDecoder parse + verify lần 2
+ * - onePassDecodeMiss: parse 1 lần, verifier dùng chung (token mới, cache trống)
+ * - cachedDecode: token đã verify trước đó (trường hợp thường gặp: client gửi lại cùng token)
+ *
+ * Blacklist được stub bằng Mockito nên số đo chỉ gồm phần CPU.
+ * Không phải test của surefire; chạy main() sau khi mvn test-compile (classpath test).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtDecodeBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-benchmark-secret-key-benchmark-secret-key-0123456789";
+
+    private AccessTokenBlacklist blacklist;
+    private NimbusJwtDecoder nimbusJwtDecoder;
+    private JwtServiceImpl jwtService;
+    private JwtDecoderConfiguration decoder;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        blacklist = Mockito.mock(AccessTokenBlacklist.class);
+
+        jwtService = new JwtServiceImpl(blacklist);
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        jwtService.initCrypto();
+
+        decoder = new JwtDecoderConfiguration(jwtService);
+        ReflectionTestUtils.setField(decoder, "secretKey", SECRET);
+        ReflectionTestUtils.setField(decoder, "verificationCacheMaxTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(decoder, "verificationCacheMaxSize", 10_000L);
+        decoder.init();
+
+        nimbusJwtDecoder = NimbusJwtDecoder
+                .withSecretKey(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HS512"))
+                .macAlgorithm(MacAlgorithm.HS512)
+                .build();
+
+        User user = User.builder().id(42L).role(new Role(null, "Citizen", "CITIZEN", null)).build();
+        token = jwtService.generateAccessToken(user).getToken();
+        decoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt legacyDecode() throws Exception {
+        SignedJWT signedJWT = SignedJWT.parse(token);
+        if (!signedJWT.verify(new MACVerifier(SECRET))
+                || blacklist.isRevoked(signedJWT.getJWTClaimsSet().getJWTID())) {
+            throw new IllegalStateException("Token rejected");
+        }
+        return nimbusJwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt onePassDecodeMiss() throws Exception {
+        SignedJWT signedJWT = SignedJWT.parse(token);
+        if (!jwtService.verifyToken(signedJWT, true)) {
+            throw new IllegalStateException("Token rejected");
+        }
+        return ReflectionTestUtils.invokeMethod(decoder, "toJwt", token, signedJWT);
+    }
+
+    @Benchmark
+    public Jwt cachedDecode() {
+        return decoder.decode(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtDecodeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package com.team6.floodcoord.configuration;
+
+import com.team6.floodcoord.dto.FloodDischargeDTO;
+import com.team6.floodcoord.dto.RiskLevelDTO;
+import com.team6.floodcoord.dto.TimeSeries;
+import com.team6.floodcoord.dto.WeatherForecastDTO;
+import com.team6.floodcoord.model.enums.RiskLevel;
+import com.team6.floodcoord.service.CacheService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheValueRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = RedisConfiguration.jsonRedisSerializer();
+    private final CacheValueRedisSerializer binary = new CacheValueRedisSerializer(json, true, 1024);
+
+    @Test
+    void forecastRoundTripsAndIsSmallerThanJson() {
+        CacheService.CachedValue envelope = new CacheService.CachedValue(forecast(16 * 24), 1L, 2L, 3L);
+
+        byte[] bytes = binary.serialize(envelope);
+        CacheService.CachedValue restored = (CacheService.CachedValue) binary.deserialize(bytes);
+
+        assertThat(bytes[0]).isEqualTo(CacheValueRedisSerializer.MAGIC);
+        assertThat(bytes.length).isLessThan(json.serialize(envelope).length / 3);
+        assertThat(restored).isEqualTo(envelope);
+        assertThat(restored.getData()).isInstanceOf(WeatherForecastDTO.class);
+    }
+
+    @Test
+    void floodWithIrregularTimesMissingValuesAndRawDoublesRoundTrips() {
+        long day = 86_400;
+        long start = LocalDate.of(2026, 10, 18).toEpochDay() * day;
+        TimeSeries daily = TimeSeries.of(new long[]{start, start + day, start + 3 * day}, true)
+                .column(FloodDischargeDTO.RIVER_DISCHARGE, new double[]{120.5, Double.NaN, 98.25})
+                .column(FloodDischargeDTO.RIVER_DISCHARGE_MAX, new double[]{150.0, 160.0, 170.123456});
+        FloodDischargeDTO flood = new FloodDischargeDTO(16.05, 108.2, null, daily, null);
+        CacheValueRedisSerializer uncompressed = new CacheValueRedisSerializer(json, true, 0);
+
+        Object restored = uncompressed.deserialize(uncompressed.serialize(new CacheService.CachedValue(flood, 1L, 2L, 0L)));
+
+        assertThat(((CacheService.CachedValue) restored).getData()).isEqualTo(flood);
+    }
+
+    @Test
+    void jsonModeStillRoundTripsTimeSeries() {
+        CacheValueRedisSerializer jsonOnly = new CacheValueRedisSerializer(json, false, 0);
+        CacheService.CachedValue envelope = new CacheService.CachedValue(forecast(48), 1L, 2L, 3L);
+
+        assertThat(jsonOnly.deserialize(jsonOnly.serialize(envelope))).isEqualTo(envelope);
+    }
+
+    @Test
+    void otherTypesFallBackToJsonAndLegacyValuesStillRead() {
+        RiskLevelDTO risk = RiskLevelDTO.builder()
+                .latitude(16.0).longitude(108.0)
+                .riskLevel(RiskLevel.HIGH)
+                .evaluatedAt(LocalDateTime.of(2026, 10, 18, 7, 30))
+                .build();
+        CacheService.CachedValue envelope = new CacheService.CachedValue(risk, 1L, 2L, 3L);
+
+        assertThat(binary.deserialize(binary.serialize(envelope))).isEqualTo(envelope);
+        // Giá trị JSON ghi trước khi bật binary
+        assertThat(binary.deserialize(json.serialize(envelope))).isEqualTo(envelope);
+    }
+
+    private static WeatherForecastDTO forecast(int hours) {
+        long[] time = new long[hours];
+        double[] temperature = new double[hours];
+        double[] humidity = new double[hours];
+        long start = LocalDateTime.of(2026, 10, 18, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        for (int i = 0; i < hours; i++) {
+            time[i] = start + i * 3600L;
+            temperature[i] = i == 5 ? Double.NaN : 24.0 + (i % 24) * 0.3;
+            humidity[i] = 70 + i % 20;
+        }
+        TimeSeries hourly = TimeSeries.of(time, false)
+                .column("temperature_2m", temperature)
+                .integerColumn("relative_humidity_2m", humidity)
+                .column("precipitation", temperature);
+        return new WeatherForecastDTO(10.82, 106.63, "Asia/Bangkok", hourly, null);
+    }
+}
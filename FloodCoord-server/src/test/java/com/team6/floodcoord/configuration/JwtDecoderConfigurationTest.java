@@ -0,0 +1,90 @@
+package com.team6.floodcoord.configuration;
+
+import com.team6.floodcoord.event.AccessTokenRevokedEvent;
+import com.team6.floodcoord.model.Role;
+import com.team6.floodcoord.model.User;
+import com.team6.floodcoord.service.AccessTokenBlacklist;
+import com.team6.floodcoord.service.JwtServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JwtDecoderConfigurationTest {
+
+    private static final String SECRET = "test-secret-key-test-secret-key-test-secret-key-test-secret-key-0123";
+
+    private AccessTokenBlacklist blacklist;
+    private JwtServiceImpl jwtService;
+    private JwtDecoderConfiguration decoder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        blacklist = mock(AccessTokenBlacklist.class);
+
+        jwtService = new JwtServiceImpl(blacklist);
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        jwtService.initCrypto();
+
+        decoder = new JwtDecoderConfiguration(jwtService);
+        ReflectionTestUtils.setField(decoder, "secretKey", SECRET);
+        ReflectionTestUtils.setField(decoder, "verificationCacheMaxTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(decoder, "verificationCacheMaxSize", 100L);
+        decoder.init();
+    }
+
+    @Test
+    void decodesClaimsLikeNimbusDecoder() {
+        String token = issueToken();
+
+        Jwt jwt = decoder.decode(token);
+
+        assertThat(jwt.getSubject()).isEqualTo("7");
+        assertThat(jwt.getClaimAsStringList("roles")).containsExactly("COORDINATOR");
+        assertThat(jwt.getExpiresAt()).isAfter(jwt.getIssuedAt());
+        assertThat(jwt.getHeaders()).containsEntry("alg", "HS512");
+    }
+
+    @Test
+    void repeatedDecodeSkipsBlacklistLookup() {
+        String token = issueToken();
+
+        Jwt first = decoder.decode(token);
+        Jwt second = decoder.decode(token);
+
+        assertThat(second).isSameAs(first);
+        verify(blacklist, times(1)).isRevoked(anyString());
+    }
+
+    @Test
+    void revokedTokenIsEvictedAndRejected() {
+        String token = issueToken();
+        Jwt jwt = decoder.decode(token);
+
+        when(blacklist.isRevoked(jwt.getId())).thenReturn(true);
+        decoder.onAccessTokenRevoked(new AccessTokenRevokedEvent(jwt.getId()));
+
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = issueToken();
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> decoder.decode(tampered)).isInstanceOf(JwtException.class);
+    }
+
+    private String issueToken() {
+        User user = User.builder().id(7L).role(new Role(null, "Coordinator", "COORDINATOR", null)).build();
+        return jwtService.generateAccessToken(user).getToken();
+    }
+}
@@ -0,0 +1,34 @@
+package com.team6.floodcoord.configuration;
+
+import com.team6.floodcoord.dto.RiskLevelDTO;
+import com.team6.floodcoord.model.enums.RiskLevel;
+import com.team6.floodcoord.service.CacheService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisConfigurationTest {
+
+    @Test
+    void cachedRiskRoundTripsThroughRedisSerializer() {
+        GenericJackson2JsonRedisSerializer serializer = RedisConfiguration.jsonRedisSerializer();
+        LocalDateTime evaluatedAt = LocalDateTime.of(2026, 10, 18, 7, 30, 15);
+        RiskLevelDTO risk = RiskLevelDTO.builder()
+                .latitude(16.0).longitude(108.0)
+                .riskLevel(RiskLevel.HIGH)
+                .evaluatedAt(evaluatedAt)
+                .build();
+
+        byte[] bytes = serializer.serialize(new CacheService.CachedValue(risk, 1L, 2L, 3L));
+        Object restored = serializer.deserialize(bytes);
+
+        assertThat(new String(bytes)).contains("\"2026-10-18T07:30:15\"");
+        assertThat(restored).isInstanceOf(CacheService.CachedValue.class);
+        RiskLevelDTO data = (RiskLevelDTO) ((CacheService.CachedValue) restored).getData();
+        assertThat(data.getEvaluatedAt()).isEqualTo(evaluatedAt);
+        assertThat(data.getRiskLevel()).isEqualTo(RiskLevel.HIGH);
+    }
+}
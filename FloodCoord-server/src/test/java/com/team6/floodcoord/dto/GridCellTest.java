@@ -0,0 +1,59 @@
+package com.team6.floodcoord.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GridCellTest {
+
+    @Test
+    void keysMatchTwoDecimalFormatWithoutLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY); // String.format("%.2f") sẽ ra "10,82"
+        try {
+            assertThat(GridCell.of(10.8231, 106.6297).key("flood:discharge:"))
+                    .isEqualTo("flood:discharge:10.82:106.63");
+            assertThat(GridCell.of(-8.05, -0.3).key("weather:forecast:", 7))
+                    .isEqualTo("weather:forecast:-8.05:-0.30:7");
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void pointsAroundZeroShareOneCell() {
+        // "%.2f" tách -0.001 thành "-0.00" và 0.001 thành "0.00"
+        assertThat(GridCell.of(-0.001, 106.0)).isEqualTo(GridCell.of(0.001, 106.0));
+        assertThat(GridCell.of(-0.001, 106.0).key("k:")).isEqualTo("k:0.00:106.00");
+    }
+
+    @Test
+    void centerIsTheTwoDecimalLiteral() {
+        GridCell cell = GridCell.of(10.8249, 106.6251);
+
+        assertThat(cell.latitude()).isEqualTo(10.82);
+        assertThat(cell.longitude()).isEqualTo(106.63);
+        assertThat(GridCell.of(cell.center())).isEqualTo(cell);
+    }
+
+    @Test
+    void boundsContainExactlyThePointsThatSnapToTheCell() {
+        GridCell cell = GridCell.of(16.047, 108.206);
+
+        assertThat(cell.minLatitude()).isLessThanOrEqualTo(16.047).isEqualTo(16.045);
+        assertThat(cell.maxLatitude()).isGreaterThan(16.047).isEqualTo(16.055);
+        assertThat(GridCell.of(16.0549, 108.206)).isEqualTo(cell);
+        assertThat(GridCell.of(16.055, 108.206)).isNotEqualTo(cell);
+        assertThat(cell.minLongitude()).isEqualTo(108.205);
+        assertThat(cell.maxLongitude()).isEqualTo(108.215);
+    }
+
+    @Test
+    void rejectsNonFiniteCoordinates() {
+        assertThatThrownBy(() -> GridCell.of(Double.NaN, 106.0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
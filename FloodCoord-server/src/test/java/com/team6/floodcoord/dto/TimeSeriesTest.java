@@ -0,0 +1,52 @@
+package com.team6.floodcoord.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeSeriesTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void openMeteoJsonRoundTripsUnchanged() throws Exception {
+        String hourly = "{\"time\":[\"2026-10-18T00:00\",\"2026-10-18T01:00\",\"2026-10-18T02:00\"],"
+                + "\"temperature_2m\":[24.3,null,25.0],"
+                + "\"weather_code\":[3,61,null]}";
+
+        TimeSeries series = mapper.readValue(hourly, TimeSeries.class);
+
+        assertThat(series.size()).isEqualTo(3);
+        assertThat(series.timeAt(1)).isEqualTo(LocalDateTime.of(2026, 10, 18, 1, 0));
+        assertThat(series.values("temperature_2m")).containsExactly(24.3, Double.NaN, 25.0);
+        assertThat(series.isIntegerColumn("weather_code")).isTrue();
+        assertThat(mapper.writeValueAsString(series)).isEqualTo(hourly);
+    }
+
+    @Test
+    void floodDischargeIsComputedOnTheDailyArrays() throws Exception {
+        FloodDischargeDTO flood = mapper.readValue("{\"latitude\":16.0,\"daily\":{"
+                + "\"time\":[\"2026-10-18\",\"2026-10-19\",\"2026-10-20\"],"
+                + "\"river_discharge\":[null,120.5,98.0],"
+                + "\"river_discharge_max\":[150.0,null,410.25],"
+                + "\"unit\":\"m3/s\"}}", FloodDischargeDTO.class);
+
+        assertThat(flood.getDaily().isDateOnly()).isTrue();
+        assertThat(flood.getDaily().formatTime(2)).isEqualTo("2026-10-20");
+        assertThat(flood.getLatestDischarge()).isEqualTo(120.5);
+        assertThat(flood.getMaxForecastDischarge()).isEqualTo(410.25);
+        assertThat(new FloodDischargeDTO().getLatestDischarge()).isZero();
+    }
+
+    @Test
+    void columnsMustMatchTheTimeAxis() {
+        assertThatThrownBy(() -> TimeSeries.of(new long[]{0, 3600}, false).column("rain", new double[]{1.0}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> mapper.readValue("{\"time\":[\"2026-10-18T00:00\"],\"rain\":[1.0,2.0]}", TimeSeries.class))
+                .hasMessageContaining("rain");
+    }
+}
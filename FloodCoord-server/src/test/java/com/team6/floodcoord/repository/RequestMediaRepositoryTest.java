@@ -0,0 +1,94 @@
+package com.team6.floodcoord.repository;
+
+import com.team6.floodcoord.configuration.RequestMediaSchemaMigration;
+import com.team6.floodcoord.model.RequestMedia;
+import com.team6.floodcoord.model.RescueRequest;
+import com.team6.floodcoord.model.enums.MediaUploadStatus;
+import com.team6.floodcoord.model.enums.RequestStatus;
+import com.team6.floodcoord.repository.jpa.RequestMediaRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class RequestMediaRepositoryTest {
+
+    @Autowired
+    private RequestMediaRepository mediaRepo;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sweepFailsOnlyPendingUploadsOfOldRequests() {
+        UUID stuck = media(request("SOS-OLD", 45), MediaUploadStatus.PENDING_UPLOAD);
+        UUID running = media(request("SOS-NEW", 1), MediaUploadStatus.PENDING_UPLOAD);
+        UUID done = media(request("SOS-DONE", 45), MediaUploadStatus.UPLOADED);
+
+        int failed = mediaRepo.failPendingUploadsCreatedBefore(LocalDateTime.now().minusMinutes(30), "lost");
+
+        assertThat(failed).isEqualTo(1);
+        em.clear();
+        assertThat(mediaRepo.findById(stuck).orElseThrow().getUploadStatus()).isEqualTo(MediaUploadStatus.FAILED);
+        assertThat(mediaRepo.findById(stuck).orElseThrow().getUploadError()).isEqualTo("lost");
+        assertThat(mediaRepo.findById(running).orElseThrow().getUploadStatus()).isEqualTo(MediaUploadStatus.PENDING_UPLOAD);
+        assertThat(mediaRepo.findById(done).orElseThrow().getUploadStatus()).isEqualTo(MediaUploadStatus.UPLOADED);
+    }
+
+    @Test
+    void migrationDropsMediaUrlNotNullAndBackfillsLegacyRows() {
+        RescueRequest request = request("SOS-LEGACY", 60);
+        em.flush();
+        // Schema cũ: media_url NOT NULL, chưa có upload_status
+        jdbcTemplate.execute("ALTER TABLE request_media ALTER COLUMN media_url SET NOT NULL");
+        UUID legacy = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO request_media (media_id, request_id, media_type, media_url) VALUES (?, ?, 'IMAGE', ?)",
+                legacy, request.getRequestId(), "https://cdn/legacy.jpg");
+
+        RequestMediaSchemaMigration migration = new RequestMediaSchemaMigration(jdbcTemplate);
+        migration.run(null);
+        migration.run(null);
+
+        UUID pending = media(request, MediaUploadStatus.PENDING_UPLOAD);
+        em.clear();
+        RequestMedia migrated = mediaRepo.findById(legacy).orElseThrow();
+        assertThat(migrated.getUploadStatus()).isEqualTo(MediaUploadStatus.UPLOADED);
+        assertThat(migrated.getUploadAttempts()).isEqualTo(1);
+        assertThat(mediaRepo.findById(pending).orElseThrow().getMediaUrl()).isNull();
+    }
+
+    private RescueRequest request(String trackingCode, int minutesAgo) {
+        RescueRequest request = new RescueRequest();
+        request.setTitle(trackingCode);
+        request.setStatus(RequestStatus.PENDING);
+        request.setCreatedAt(LocalDateTime.now().minusMinutes(minutesAgo));
+        request.setTrackingCode(trackingCode);
+        request.setContactName("Citizen");
+        request.setContactPhone("0910000000");
+        em.persist(request);
+        return request;
+    }
+
+    private UUID media(RescueRequest request, MediaUploadStatus status) {
+        RequestMedia media = new RequestMedia();
+        media.setRequest(request);
+        media.setMediaType("IMAGE");
+        media.setUploadStatus(status);
+        media.setMediaUrl(status == MediaUploadStatus.UPLOADED ? "https://cdn/done.jpg" : null);
+        em.persist(media);
+        em.flush();
+        return media.getMediaId();
+    }
+}
@@ -0,0 +1,216 @@
+package com.team6.floodcoord.repository;
+
+import com.team6.floodcoord.dto.response.RescueRequestSummaryResponse;
+import com.team6.floodcoord.model.*;
+import com.team6.floodcoord.model.enums.RequestStatus;
+import com.team6.floodcoord.model.enums.SupplyType;
+import com.team6.floodcoord.model.enums.TeamStatus;
+import com.team6.floodcoord.model.enums.VehicleStatus;
+import com.team6.floodcoord.repository.jpa.RescueRequestRepository;
+import com.team6.floodcoord.utils.RescueRequestMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the fetch-graph queries on RescueRequestRepository against N+1 regressions:
+ * the number of JDBC statements per page must not grow with the page size.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.default_batch_fetch_size=50"
+})
+@ActiveProfiles("test")
+class RescueRequestQueryCountTest {
+
+    private static final int REQUEST_COUNT = 20;
+
+    @Autowired
+    private RescueRequestRepository requestRepo;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private final RescueRequestMapper summaryMapper = new RescueRequestMapper();
+
+    private Long teamId;
+    private UUID firstRequestId;
+
+    @BeforeEach
+    void setUp() {
+        Role citizenRole = new Role(null, "Citizen", "CITIZEN", null);
+        Role leaderRole = new Role(null, "Rescue Team", "RESCUE_TEAM", null);
+        em.persist(citizenRole);
+        em.persist(leaderRole);
+
+        User leader = user("leader@flood.vn", "0900000000", leaderRole);
+        RescueTeam team = RescueTeam.builder()
+                .name("Doi 1")
+                .isActive(true)
+                .leader(leader)
+                .status(TeamStatus.BUSY)
+                .build();
+        em.persist(team);
+        teamId = team.getId();
+
+        Vehicle vehicle = Vehicle.builder()
+                .name("Cano-01")
+                .type("BOAT")
+                .status(VehicleStatus.IN_USE)
+                .currentTeam(team)
+                .build();
+        em.persist(vehicle);
+
+        Supply water = supply("Nuoc suoi");
+        Supply food = supply("Mi tom");
+
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            User citizen = user("citizen" + i + "@flood.vn", "091000000" + (i % 10) + i, citizenRole);
+
+            RescueRequest request = new RescueRequest();
+            request.setCitizen(citizen);
+            request.setTitle("Request " + i);
+            request.setStatus(RequestStatus.IN_PROGRESS);
+            request.setCreatedAt(LocalDateTime.now().minusMinutes(i));
+            request.setTrackingCode("SOS" + i);
+            request.setContactName("Citizen " + i);
+            request.setContactPhone("0910000000");
+            request.setAssignedTeam(team);
+            request.setAssignedVehicle(i == 0 ? vehicle : null);
+            em.persist(request);
+            if (i == 0) firstRequestId = request.getRequestId();
+
+            RequestLocation location = new RequestLocation();
+            location.setRequest(request);
+            location.setLatitude(16.0 + i);
+            location.setLongitude(108.0);
+            em.persist(location);
+
+            for (int m = 0; m < 2; m++) {
+                RequestMedia media = new RequestMedia();
+                media.setRequest(request);
+                media.setMediaType("IMAGE");
+                media.setMediaUrl("https://cdn/" + i + "/" + m);
+                em.persist(media);
+            }
+
+            em.persist(RequestSupply.builder().request(request).supply(water).quantity(2).build());
+            em.persist(RequestSupply.builder().request(request).supply(food).quantity(3).build());
+        }
+
+        em.flush();
+        em.clear();
+        statistics().clear();
+    }
+
+    @Test
+    void summaryPageUsesConstantQueryCount() {
+        Page<RescueRequest> page = requestRepo.findSummaryPage(null, PageRequest.of(0, REQUEST_COUNT));
+        List<RescueRequestSummaryResponse> rows = page.map(summaryMapper::toSummaryResponse).getContent();
+        rows.forEach(r -> assertThat(r.getTrackingCode()).isNotNull());
+        page.getContent().forEach(r -> {
+            // Quan hệ EAGER bị nạp dù mapper không dùng - phải nằm trong query chính
+            assertThat(r.getLocation()).isNotNull();
+            assertThat(r.getCitizen().getRole().getRoleCode()).isEqualTo("CITIZEN");
+            assertThat(r.getAssignedTeam().getName()).isEqualTo("Doi 1");
+        });
+
+        assertThat(rows).hasSize(REQUEST_COUNT);
+        // 1 select trang dữ liệu + 1 select count
+        assertThat(statistics().getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void detailLoadsInBoundedQueries() {
+        RescueRequest request = requestRepo.findDetailById(firstRequestId).orElseThrow();
+        walkDetail(request);
+
+        // 1 select request + graph, 1 select media (batch)
+        assertThat(statistics().getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void leaderMissionsUseConstantQueryCount() {
+        List<RescueRequest> missions = requestRepo.findMissionsByTeam(teamId,
+                List.of(RequestStatus.IN_PROGRESS, RequestStatus.MOVING));
+        missions.forEach(this::walkDetail);
+
+        assertThat(missions).hasSize(REQUEST_COUNT);
+        // 1 select missions + graph, 1 select media cho cả lô
+        assertThat(statistics().getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void keysetPagesWalkQueueWithoutCountQuery() {
+        List<RescueRequest> first = requestRepo.findQueueFirstPage(RequestStatus.IN_PROGRESS, null, PageRequest.of(0, 8));
+        RescueRequest last = first.get(first.size() - 1);
+        List<RescueRequest> second = requestRepo.findQueuePageAfter(RequestStatus.IN_PROGRESS, null,
+                last.getCreatedAt(), last.getRequestId(), PageRequest.of(0, 8));
+
+        assertThat(first).hasSize(8);
+        assertThat(second).hasSize(8);
+        assertThat(second).noneMatch(first::contains);
+        assertThat(second.get(0).getCreatedAt()).isBefore(last.getCreatedAt());
+        // Mỗi trang đúng 1 select, không có select count
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    /** Touch every association the detail / leader-mission mappers read. */
+    private void walkDetail(RescueRequest r) {
+        assertThat(r.getLocation().getLatitude()).isNotNull();
+        assertThat(r.getMediaList()).hasSize(2);
+        r.getMediaList().forEach(m -> assertThat(m.getMediaUrl()).isNotNull());
+        assertThat(r.getSupplies()).hasSize(2);
+        r.getSupplies().forEach(rs -> assertThat(rs.getSupply().getUnit()).isNotNull());
+        assertThat(r.getAssignedTeam().getLeader().getPhoneNumber()).isNotNull();
+        if (r.getAssignedVehicle() != null) {
+            assertThat(r.getAssignedVehicle().getName()).isEqualTo("Cano-01");
+        }
+    }
+
+    private User user(String email, String phone, Role role) {
+        User user = User.builder()
+                .fullName(email)
+                .email(email)
+                .phoneNumber(phone)
+                .status(true)
+                .password("x")
+                .failedLoginAttempts(0)
+                .role(role)
+                .build();
+        em.persist(user);
+        return user;
+    }
+
+    private Supply supply(String name) {
+        Supply supply = Supply.builder()
+                .name(name)
+                .type(SupplyType.FOOD_WATER)
+                .quantity(100)
+                .unit("Thung")
+                .build();
+        em.persist(supply);
+        return supply;
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,71 @@
+package com.team6.floodcoord.repository;
+
+import com.team6.floodcoord.model.Supply;
+import com.team6.floodcoord.model.enums.SupplyType;
+import com.team6.floodcoord.repository.jpa.SupplyRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class SupplyStockRepositoryTest {
+
+    @Autowired
+    private SupplyRepository supplyRepo;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    void decrementReportsOnlyItemsWithoutEnoughStock() {
+        Long water = supply("Nuoc suoi", 10);
+        Long food = supply("Mi tom", 3);
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(water, 4);
+        quantities.put(food, 5);
+        quantities.put(9999L, 1);
+
+        List<Long> failed = supplyRepo.decrementStock(quantities);
+
+        assertThat(failed).containsExactly(food, 9999L);
+        em.clear();
+        assertThat(supplyRepo.findById(water).orElseThrow().getQuantity()).isEqualTo(6);
+        assertThat(supplyRepo.findById(water).orElseThrow().getExportedDate()).isNotNull();
+        // Không bao giờ trừ xuống âm
+        assertThat(supplyRepo.findById(food).orElseThrow().getQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    void incrementRestocksInOneBatch() {
+        Long water = supply("Nuoc suoi", 10);
+        Long food = supply("Mi tom", 0);
+
+        supplyRepo.incrementStock(Map.of(water, 2, food, 7));
+
+        em.clear();
+        assertThat(supplyRepo.findById(water).orElseThrow().getQuantity()).isEqualTo(12);
+        assertThat(supplyRepo.findById(food).orElseThrow().getQuantity()).isEqualTo(7);
+    }
+
+    private Long supply(String name, int quantity) {
+        Supply supply = Supply.builder()
+                .name(name)
+                .type(SupplyType.FOOD_WATER)
+                .quantity(quantity)
+                .unit("Thung")
+                .build();
+        em.persist(supply);
+        em.flush();
+        return supply.getId();
+    }
+}
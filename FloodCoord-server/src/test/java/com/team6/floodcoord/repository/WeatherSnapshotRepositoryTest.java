@@ -0,0 +1,46 @@
+package com.team6.floodcoord.repository;
+
+import com.team6.floodcoord.dto.GridCell;
+import com.team6.floodcoord.model.WeatherSnapshot;
+import com.team6.floodcoord.repository.jpa.WeatherSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class WeatherSnapshotRepositoryTest {
+
+    @Autowired
+    private WeatherSnapshotRepository snapshotRepository;
+
+    @Test
+    void historyOfACellIncludesRowsStoredAtRawMonitoredCoordinates() {
+        LocalDateTime now = LocalDateTime.of(2026, 10, 18, 12, 0);
+        // Dòng cũ: tọa độ gốc của điểm theo dõi; dòng mới: tâm ô lưới
+        snapshot(16.047, 108.206, now.minusHours(2));
+        snapshot(16.05, 108.21, now.minusHours(1));
+        // Ô bên cạnh
+        snapshot(16.055, 108.206, now);
+
+        List<WeatherSnapshot> history = snapshotRepository.findLatestInCell(GridCell.of(16.047, 108.206), 24);
+
+        assertThat(history).extracting(WeatherSnapshot::getRecordedAt)
+                .containsExactly(now.minusHours(1), now.minusHours(2));
+        assertThat(snapshotRepository.findLatestInCell(GridCell.of(16.05, 108.21), 1)).hasSize(1);
+    }
+
+    private void snapshot(double lat, double lon, LocalDateTime recordedAt) {
+        snapshotRepository.save(WeatherSnapshot.builder()
+                .latitude(lat)
+                .longitude(lon)
+                .recordedAt(recordedAt)
+                .build());
+    }
+}
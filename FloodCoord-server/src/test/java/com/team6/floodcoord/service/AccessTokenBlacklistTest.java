@@ -0,0 +1,95 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.event.AccessTokenRevokedEvent;
+import com.team6.floodcoord.model.BlackListedAccessToken;
+import com.team6.floodcoord.repository.redis.BlacklistedAccessTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AccessTokenBlacklistTest {
+
+    private BlacklistedAccessTokenRepository repo;
+    private StringRedisTemplate stringRedisTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private AccessTokenBlacklist blacklist;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(BlacklistedAccessTokenRepository.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        blacklist = new AccessTokenBlacklist(repo, stringRedisTemplate,
+                mock(RedisMessageListenerContainer.class), eventPublisher);
+    }
+
+    @Test
+    void fallsBackToRedisUntilLoaded() {
+        when(repo.existsById("a")).thenReturn(true);
+
+        assertThat(blacklist.isReady()).isFalse();
+        assertThat(blacklist.isRevoked("a")).isTrue();
+        verify(repo).existsById("a");
+    }
+
+    @Test
+    void unrevokedTokenIsAnsweredLocally() {
+        when(repo.findAll()).thenReturn(List.of(new BlackListedAccessToken("old", 600L)));
+        blacklist.load();
+
+        assertThat(blacklist.isRevoked("fresh")).isFalse();
+        verify(repo, never()).existsById(anyString());
+    }
+
+    @Test
+    void localMatchIsConfirmedWithRedis() {
+        when(repo.findAll()).thenReturn(List.of(new BlackListedAccessToken("old", 600L)));
+        when(repo.existsById("old")).thenReturn(true);
+        blacklist.load();
+
+        assertThat(blacklist.isRevoked("old")).isTrue();
+        verify(repo).existsById("old");
+    }
+
+    @Test
+    void revokeWritesRedisAndBroadcasts() {
+        when(repo.findAll()).thenReturn(List.of());
+        blacklist.load();
+
+        blacklist.revoke("jti-1", 300);
+
+        verify(repo).save(any(BlackListedAccessToken.class));
+        verify(stringRedisTemplate).convertAndSend(eq(AccessTokenBlacklist.REVOKED_CHANNEL), startsWith("jti-1|"));
+        verify(eventPublisher).publishEvent(new AccessTokenRevokedEvent("jti-1"));
+        when(repo.existsById("jti-1")).thenReturn(true);
+        assertThat(blacklist.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    void revocationFromPeerIsAppliedLocally() {
+        when(repo.findAll()).thenReturn(List.of());
+        when(repo.existsById("jti-2")).thenReturn(true);
+        blacklist.load();
+
+        String payload = "jti-2|" + Instant.now().plusSeconds(300).getEpochSecond();
+        blacklist.onMessage(new DefaultMessage(
+                AccessTokenBlacklist.REVOKED_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                payload.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(blacklist.isRevoked("jti-2")).isTrue();
+        verify(eventPublisher).publishEvent(new AccessTokenRevokedEvent("jti-2"));
+    }
+}
@@ -0,0 +1,179 @@
+package com.team6.floodcoord.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.team6.floodcoord.dto.FloodDischargeDTO;
+import com.team6.floodcoord.dto.GridCell;
+import com.team6.floodcoord.dto.RiskLevelDTO;
+import com.team6.floodcoord.dto.WeatherCurrentDTO;
+import com.team6.floodcoord.model.enums.RiskLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AlertServiceTest {
+
+    private WeatherService weatherService;
+    private FloodService floodService;
+    private CacheService cacheService;
+    private WeatherSnapshotBuffer snapshotBuffer;
+    private AlertService alertService;
+
+    @BeforeEach
+    void setUp() {
+        weatherService = mock(WeatherService.class);
+        floodService = mock(FloodService.class);
+        cacheService = mock(CacheService.class);
+        snapshotBuffer = mock(WeatherSnapshotBuffer.class);
+
+        when(cacheService.riskLevelKey(any(GridCell.class))).thenReturn("flood:risk:16.00:108.00");
+        when(cacheService.getOrFetch(anyString(), any(), any(), eq(RiskLevelDTO.class)))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(2)).get());
+
+        alertService = new AlertService(weatherService, floodService, cacheService, snapshotBuffer);
+        ReflectionTestUtils.setField(alertService, "riskTtlMinutes", 15L);
+    }
+
+    @Test
+    void weatherAndDischargeAreFetchedConcurrently() {
+        when(weatherService.getCurrentWeather(anyDouble(), anyDouble())).thenAnswer(inv -> {
+            Thread.sleep(300);
+            return calmWeather();
+        });
+        when(floodService.getRiverDischarge(anyDouble(), anyDouble())).thenAnswer(inv -> {
+            Thread.sleep(300);
+            return new FloodDischargeDTO();
+        });
+
+        long started = System.nanoTime();
+        RiskLevelDTO risk = alertService.evaluateRisk(16.001, 108.0);
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+        assertThat(risk.getRiskLevel()).isEqualTo(RiskLevel.LOW);
+        assertThat(risk.getLatitude()).isEqualTo(16.0);
+        // Tuần tự sẽ mất >= 600ms
+        assertThat(elapsedMs).isLessThan(550);
+        verify(cacheService).getOrFetch(eq("flood:risk:16.00:108.00"), eq(Duration.ofMinutes(15)), any(), eq(RiskLevelDTO.class));
+    }
+
+    @Test
+    void refreshRecomputesAndHandsSnapshotToBuffer() {
+        FloodDischargeDTO flood = new FloodDischargeDTO();
+        when(weatherService.getCurrentWeather(anyDouble(), anyDouble())).thenReturn(calmWeather());
+        when(floodService.getRiverDischarge(anyDouble(), anyDouble())).thenReturn(flood);
+
+        RiskLevelDTO risk = alertService.refreshRisk(16.0, 108.0);
+
+        verify(cacheService).put("flood:risk:16.00:108.00", risk, Duration.ofMinutes(15));
+        verify(snapshotBuffer).recordRisk(16.0, 108.0, 0.0, 0.0, RiskLevel.LOW);
+        verify(cacheService, never()).getOrFetch(anyString(), any(), any(), eq(RiskLevelDTO.class));
+    }
+
+    @Test
+    void outageYieldsUnknownThatIsNeitherCachedNorPersisted() {
+        when(weatherService.getCurrentWeather(anyDouble(), anyDouble())).thenReturn(null);
+        when(floodService.getRiverDischarge(anyDouble(), anyDouble())).thenReturn(null);
+
+        RiskLevelDTO risk = alertService.evaluateRisk(16.0, 108.0);
+
+        assertThat(risk.getRiskLevel()).isEqualTo(RiskLevel.UNKNOWN);
+        assertThat(risk.isInputsComplete()).isFalse();
+        assertThat(risk.getCacheUntil()).isNull();
+        verify(cacheService, never()).put(anyString(), any(), any());
+        verifyNoInteractions(snapshotBuffer);
+    }
+
+    @Test
+    void refreshDoesNotOverwriteCachedRiskWhenAnInputIsMissing() {
+        when(weatherService.getCurrentWeather(anyDouble(), anyDouble())).thenReturn(calmWeather());
+        when(floodService.getRiverDischarge(anyDouble(), anyDouble())).thenReturn(null);
+
+        RiskLevelDTO risk = alertService.refreshRisk(16.0, 108.0);
+
+        assertThat(risk.getRiskLevel()).isEqualTo(RiskLevel.UNKNOWN);
+        verify(cacheService, never()).put(anyString(), any(), any());
+        verifyNoInteractions(snapshotBuffer);
+    }
+
+    @Test
+    void partialInputsStillReportADangerousLevel() {
+        WeatherCurrentDTO storm = calmWeather();
+        storm.getCurrent().setWindSpeed10m(95.0);
+        when(weatherService.getCurrentWeather(anyDouble(), anyDouble())).thenReturn(storm);
+        when(floodService.getRiverDischarge(anyDouble(), anyDouble())).thenReturn(null);
+
+        RiskLevelDTO risk = alertService.evaluateRisk(16.0, 108.0);
+
+        assertThat(risk.getRiskLevel()).isEqualTo(RiskLevel.CRITICAL);
+        assertThat(risk.isInputsComplete()).isFalse();
+        verifyNoInteractions(snapshotBuffer);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void floodApiOutageEndToEndYieldsUnknownThatIsNeitherCachedNorPersisted() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/flood", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.start();
+
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> riverCells = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(riverCells);
+        OpenMeteoClient openMeteoClient = new OpenMeteoClient(WebClient.create(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(openMeteoClient, "maxAttempts", 1);
+        ReflectionTestUtils.setField(openMeteoClient, "failureThreshold", 5);
+        ReflectionTestUtils.setField(openMeteoClient, "openDuration", Duration.ofSeconds(30));
+        FloodService realFloodService = new FloodService(cacheService, redisTemplate, openMeteoClient);
+        ReflectionTestUtils.setField(realFloodService, "floodUrl",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/flood");
+        ReflectionTestUtils.setField(realFloodService, "ttlMinutes", 30L);
+        ReflectionTestUtils.setField(realFloodService, "nudgeTimeout", Duration.ofSeconds(5));
+        when(cacheService.floodDischargeKey(any(GridCell.class))).thenReturn("flood:discharge:16.00:108.00");
+        when(cacheService.getOrFetch(anyString(), any(), any(), eq(FloodDischargeDTO.class)))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(2)).get());
+        when(weatherService.getCurrentWeather(anyDouble(), anyDouble())).thenReturn(calmWeather());
+
+        AlertService withRealFloodService = new AlertService(weatherService, realFloodService, cacheService, snapshotBuffer);
+        ReflectionTestUtils.setField(withRealFloodService, "riskTtlMinutes", 15L);
+        try {
+            assertThat(realFloodService.getRiverDischarge(16.0, 108.0)).isNull();
+
+            RiskLevelDTO risk = withRealFloodService.evaluateRisk(16.0, 108.0);
+            RiskLevelDTO refreshed = withRealFloodService.refreshRisk(16.0, 108.0);
+
+            assertThat(risk.getRiskLevel()).isEqualTo(RiskLevel.UNKNOWN);
+            assertThat(risk.isInputsComplete()).isFalse();
+            assertThat(refreshed.getRiskLevel()).isEqualTo(RiskLevel.UNKNOWN);
+            verify(cacheService, never()).put(anyString(), any(), any());
+            verifyNoInteractions(snapshotBuffer);
+        } finally {
+            realFloodService.shutdown();
+            server.stop(0);
+        }
+    }
+
+    private static WeatherCurrentDTO calmWeather() {
+        WeatherCurrentDTO.CurrentBlock current = new WeatherCurrentDTO.CurrentBlock();
+        current.setRain(0.0);
+        current.setWindSpeed10m(5.0);
+        current.setTemperature2m(28.0);
+        WeatherCurrentDTO weather = new WeatherCurrentDTO();
+        weather.setCurrent(current);
+        return weather;
+    }
+}
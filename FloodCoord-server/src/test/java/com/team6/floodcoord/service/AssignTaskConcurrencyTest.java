@@ -0,0 +1,153 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.dto.request.AssignTaskRequest;
+import com.team6.floodcoord.mapper.RescueReportMapper;
+import com.team6.floodcoord.model.RescueRequest;
+import com.team6.floodcoord.model.RescueTeam;
+import com.team6.floodcoord.model.Vehicle;
+import com.team6.floodcoord.model.enums.RequestStatus;
+import com.team6.floodcoord.model.enums.TeamStatus;
+import com.team6.floodcoord.model.enums.VehicleStatus;
+import com.team6.floodcoord.repository.jpa.RescueRequestRepository;
+import com.team6.floodcoord.repository.jpa.RescueTeamRepository;
+import com.team6.floodcoord.repository.jpa.VehicleRepository;
+import com.team6.floodcoord.utils.RescueRequestMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 50 coordinators dispatch 50 different requests with 50 different teams,
+ * all asking for the same boat at the same instant. Row locks must let exactly one win.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dispatch;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "dispatch.lock.max-attempts=5"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({RescueRequestServiceImpl.class, TransactionRetryExecutor.class, RescueRequestMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AssignTaskConcurrencyTest {
+
+    private static final int THREADS = 50;
+
+    @Autowired
+    private RescueRequestServiceImpl requestService;
+
+    @Autowired
+    private RescueRequestRepository requestRepo;
+
+    @Autowired
+    private RescueTeamRepository teamRepo;
+
+    @Autowired
+    private VehicleRepository vehicleRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private CloudinaryService cloudinaryService;
+
+    @MockBean
+    private MediaUploadPipeline mediaUploadPipeline;
+
+    @MockBean
+    private com.team6.floodcoord.mapper.RescueRequestMapper rescueRequestMapper;
+
+    @MockBean
+    private RescueReportMapper rescueReportMapper;
+
+    @Test
+    void onlyOneDispatchGetsTheVehicle() throws Exception {
+        Vehicle boat = vehicleRepo.save(Vehicle.builder()
+                .name("Cano-01")
+                .type("BOAT")
+                .status(VehicleStatus.AVAILABLE)
+                .build());
+
+        List<UUID> requestIds = new ArrayList<>();
+        List<Long> teamIds = new ArrayList<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            for (int i = 0; i < THREADS; i++) {
+                teamIds.add(teamRepo.save(RescueTeam.builder()
+                        .name("Doi " + i)
+                        .isActive(true)
+                        .status(TeamStatus.AVAILABLE)
+                        .build()).getId());
+
+                RescueRequest request = new RescueRequest();
+                request.setTitle("Request " + i);
+                request.setStatus(RequestStatus.VERIFIED);
+                request.setCreatedAt(LocalDateTime.now());
+                request.setTrackingCode("SOS" + i);
+                request.setContactName("Citizen " + i);
+                request.setContactPhone("0910000000");
+                requestIds.add(requestRepo.save(request).getRequestId());
+            }
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger wins = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            AssignTaskRequest dto = new AssignTaskRequest();
+            dto.setRescueTeamId(teamIds.get(i));
+            dto.setVehicleId(boat.getId());
+            UUID requestId = requestIds.get(i);
+
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    requestService.assignTask(requestId, dto, null);
+                    wins.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    // "Vehicle ... is not available" - thua cuộc hợp lệ
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(wins.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(THREADS - 1);
+        assertThat(vehicleRepo.findById(boat.getId()).orElseThrow().getStatus()).isEqualTo(VehicleStatus.IN_USE);
+        assertThat(requestRepo.findAll().stream()
+                .filter(r -> r.getStatus() == RequestStatus.IN_PROGRESS)
+                .count()).isEqualTo(1);
+        // Đội của các lượt thua phải được rollback về AVAILABLE
+        assertThat(teamRepo.countByStatus(TeamStatus.BUSY)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,107 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.event.ResourceStatusEntityListener;
+import com.team6.floodcoord.model.RescueTeam;
+import com.team6.floodcoord.model.Vehicle;
+import com.team6.floodcoord.model.enums.TeamStatus;
+import com.team6.floodcoord.model.enums.VehicleStatus;
+import com.team6.floodcoord.repository.jpa.RescueTeamRepository;
+import com.team6.floodcoord.repository.jpa.VehicleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({AvailabilityIndex.class, ResourceStatusEntityListener.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AvailabilityIndexTest {
+
+    @Autowired
+    private AvailabilityIndex index;
+
+    @Autowired
+    private RescueTeamRepository teamRepo;
+
+    @Autowired
+    private VehicleRepository vehicleRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        vehicleRepo.deleteAll();
+        teamRepo.deleteAll();
+    }
+
+    @Test
+    void followsCommittedStatusChanges() {
+        RescueTeam team = teamRepo.save(RescueTeam.builder().name("Doi 1").isActive(true).build());
+        Vehicle boat = vehicleRepo.save(Vehicle.builder().name("Cano-01").type("BOAT").status(VehicleStatus.AVAILABLE).build());
+        index.load();
+
+        assertThat(index.teamIds(TeamStatus.AVAILABLE)).containsExactly(team.getId());
+        assertThat(index.countVehicles(VehicleStatus.AVAILABLE)).isEqualTo(1);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            RescueTeam t = teamRepo.findById(team.getId()).orElseThrow();
+            t.setStatus(TeamStatus.BUSY);
+            Vehicle v = vehicleRepo.findById(boat.getId()).orElseThrow();
+            v.setStatus(VehicleStatus.IN_USE);
+
+            // Chưa commit -> index chưa đổi
+            teamRepo.flush();
+            assertThat(index.countTeams(TeamStatus.BUSY)).isZero();
+        });
+
+        assertThat(index.countTeams(TeamStatus.AVAILABLE)).isZero();
+        assertThat(index.teamIds(TeamStatus.BUSY)).containsExactly(team.getId());
+        assertThat(index.countVehicles(VehicleStatus.IN_USE)).isEqualTo(1);
+        assertThat(index.totalVehicles()).isEqualTo(1);
+
+        vehicleRepo.deleteById(boat.getId());
+        assertThat(index.totalVehicles()).isZero();
+    }
+
+    @Test
+    void rolledBackChangesAreIgnored() {
+        RescueTeam team = teamRepo.save(RescueTeam.builder().name("Doi 2").isActive(true).build());
+        index.load();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            teamRepo.findById(team.getId()).orElseThrow().setStatus(TeamStatus.OFF_DUTY);
+            teamRepo.flush();
+            tx.setRollbackOnly();
+        });
+
+        assertThat(index.teamIds(TeamStatus.AVAILABLE)).containsExactly(team.getId());
+    }
+
+    @Test
+    void reconcileRepairsDriftFromOutsideUpdates() {
+        RescueTeam team = teamRepo.save(RescueTeam.builder().name("Doi 3").isActive(true).build());
+        index.load();
+
+        // Update ngoài JPA -> không có event
+        jdbcTemplate.update("UPDATE rescue_teams SET status = 'OFF_DUTY' WHERE id = ?", team.getId());
+        assertThat(index.countTeams(TeamStatus.OFF_DUTY)).isZero();
+
+        index.reconcile();
+        assertThat(index.teamIds(TeamStatus.OFF_DUTY)).containsExactly(team.getId());
+        assertThat(index.countTeams(TeamStatus.AVAILABLE)).isZero();
+    }
+}
@@ -0,0 +1,503 @@
+package com.team6.floodcoord.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team6.floodcoord.configuration.RedisConfiguration;
+import com.team6.floodcoord.dto.WeatherCurrentDTO;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CacheServiceTest {
+
+    private static final Duration TTL = Duration.ofMinutes(30);
+    private static final Duration GRACE = Duration.ofHours(1);
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private ValueOperations<String, Object> valueOps;
+    private StringRedisTemplate stringRedisTemplate;
+    private CacheService cacheService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+
+        cacheService = new CacheService(redisTemplate, new ObjectMapper(), stringRedisTemplate,
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cacheService, "l1MaxSize", 100L);
+        ReflectionTestUtils.setField(cacheService, "staleGrace", GRACE);
+        ReflectionTestUtils.setField(cacheService, "batchWriteSize", 50);
+        ReflectionTestUtils.setField(cacheService, "healthCacheTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(cacheService, "commandTimeout", Duration.ofSeconds(2));
+        doReturn(RedisConfiguration.jsonRedisSerializer()).when(redisTemplate).getValueSerializer();
+        cacheService.init();
+    }
+
+    @Test
+    void repeatedReadsAreServedFromL1() {
+        AtomicInteger fetches = new AtomicInteger();
+        String key = cacheService.weatherCurrentKey(10.82, 106.63);
+
+        for (int i = 0; i < 5; i++) {
+            WeatherCurrentDTO dto = cacheService.getOrFetch(key, TTL, () -> {
+                fetches.incrementAndGet();
+                return weather(28.5);
+            }, WeatherCurrentDTO.class);
+            assertThat(dto.getLatitude()).isEqualTo(28.5);
+        }
+
+        assertThat(fetches).hasValue(1);
+        verify(valueOps, times(1)).get(key);
+        verify(valueOps).set(eq(key), any(CacheService.CachedValue.class), eq(TTL.plus(GRACE)));
+        assertThat(cacheService.stats())
+                .containsEntry("l1Hits", 4L)
+                .containsEntry("l1Misses", 1L)
+                .containsEntry("l2Misses", 1L);
+    }
+
+    @Test
+    void l2HitIsConvertedOnceThenPromoted() {
+        String key = cacheService.floodDischargeKey(16.05, 108.2);
+        Map<String, Object> raw = new LinkedHashMap<>();
+        raw.put("latitude", 30.0);
+        when(valueOps.get(key)).thenReturn(raw);
+        when(redisTemplate.getExpire(key, TimeUnit.MILLISECONDS)).thenReturn(60_000L);
+
+        WeatherCurrentDTO first = cacheService.getOrFetch(key, TTL, () -> null, WeatherCurrentDTO.class);
+        WeatherCurrentDTO second = cacheService.getOrFetch(key, TTL, () -> null, WeatherCurrentDTO.class);
+
+        assertThat(second).isEqualTo(first);
+        verify(valueOps, times(1)).get(key);
+        assertThat(cacheService.stats()).containsEntry("l2Hits", 1L).containsEntry("l1Hits", 1L);
+    }
+
+    @Test
+    void evictDropsL1AndBroadcasts() {
+        String key = cacheService.riskLevelKey(16.05, 108.2);
+        cacheService.getOrFetch(key, TTL, () -> weather(1.0), WeatherCurrentDTO.class);
+
+        cacheService.evict(key);
+        cacheService.getOrFetch(key, TTL, () -> weather(2.0), WeatherCurrentDTO.class);
+
+        assertThat(publishedInvalidation()).endsWith("\n" + key);
+        verify(valueOps, times(2)).get(key);
+    }
+
+    @Test
+    void ownInvalidationDoesNotEvictWhatThisNodeJustPut() {
+        String key = cacheService.riskLevelKey(16.05, 108.2);
+        cacheService.put(key, weather(1.0), TTL);
+
+        cacheService.onMessage(invalidation(publishedInvalidation()), null);
+        WeatherCurrentDTO read = cacheService.getOrFetch(key, TTL, () -> weather(2.0), WeatherCurrentDTO.class);
+
+        assertThat(read.getLatitude()).isEqualTo(1.0);
+        verify(valueOps, never()).get(key);
+    }
+
+    @Test
+    void invalidationFromPeerDropsL1() {
+        String key = cacheService.weatherForecastKey(16.05, 108.2, 7);
+        cacheService.getOrFetch(key, TTL, () -> weather(1.0), WeatherCurrentDTO.class);
+
+        cacheService.onMessage(invalidation("peer-node\n*"), null);
+        cacheService.getOrFetch(key, TTL, () -> weather(1.0), WeatherCurrentDTO.class);
+
+        verify(valueOps, times(2)).get(key);
+        assertThat(cacheService.stats()).containsEntry("l1Size", 1L);
+    }
+
+    @Test
+    void parallelMissesShareOneUpstreamCall() throws Exception {
+        int callers = 32;
+        String key = cacheService.weatherCurrentKey(10.82, 106.63);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+
+        try {
+            List<Future<WeatherCurrentDTO>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cacheService.getOrFetch(key, TTL, () -> {
+                        upstreamCalls.incrementAndGet();
+                        sleep(200);
+                        return weather(10.82);
+                    }, WeatherCurrentDTO.class);
+                }));
+            }
+            start.countDown();
+
+            for (Future<WeatherCurrentDTO> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getLatitude()).isEqualTo(10.82);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(upstreamCalls).hasValue(1);
+        verify(valueOps, times(1)).set(eq(key), any(), eq(TTL.plus(GRACE)));
+    }
+
+    @Test
+    void failedFetchIsPropagatedToWaitersAndNotCached() throws Exception {
+        String key = cacheService.floodDischargeKey(10.82, 106.63);
+        CountDownLatch fetching = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<WeatherCurrentDTO> leader = pool.submit(() -> cacheService.getOrFetch(key, TTL, () -> {
+                fetching.countDown();
+                sleep(200);
+                throw new IllegalStateException("Open-Meteo down");
+            }, WeatherCurrentDTO.class));
+            fetching.await();
+            Future<WeatherCurrentDTO> waiter = pool.submit(() ->
+                    cacheService.getOrFetch(key, TTL, () -> weather(1.0), WeatherCurrentDTO.class));
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(cacheService.getOrFetch(key, TTL, () -> weather(2.0), WeatherCurrentDTO.class).getLatitude())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void nodeWithoutRefreshLockWaitsForPeerValue() {
+        ValueOperations<String, String> lockOps = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(lockOps);
+        when(lockOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        ReflectionTestUtils.setField(cacheService, "refreshLockEnabled", true);
+        ReflectionTestUtils.setField(cacheService, "refreshLockWait", Duration.ofSeconds(2));
+
+        String key = cacheService.weatherCurrentKey(16.05, 108.2);
+        Map<String, Object> published = new LinkedHashMap<>();
+        published.put("latitude", 16.05);
+        // Lần đọc đầu miss, node giữ lock ghi xong trước lần poll thứ 2
+        when(valueOps.get(key)).thenReturn(null, null, published);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        WeatherCurrentDTO dto = cacheService.getOrFetch(key, TTL, () -> {
+            upstreamCalls.incrementAndGet();
+            return weather(0);
+        }, WeatherCurrentDTO.class);
+
+        assertThat(dto.getLatitude()).isEqualTo(16.05);
+        assertThat(upstreamCalls).hasValue(0);
+        assertThat(cacheService.stats()).containsEntry("coalescedPeer", 1L);
+    }
+
+    @Test
+    void expiredEntryIsServedStaleWhileRefreshing() {
+        Duration shortTtl = Duration.ofMillis(50);
+        String key = cacheService.weatherCurrentKey(21.03, 105.85);
+        cacheService.getOrFetch(key, shortTtl, () -> weather(1.0), WeatherCurrentDTO.class);
+        sleep(100);
+
+        CountDownLatch refreshed = new CountDownLatch(1);
+        WeatherCurrentDTO stale = cacheService.getOrFetch(key, shortTtl, () -> {
+            refreshed.countDown();
+            return weather(2.0);
+        }, WeatherCurrentDTO.class);
+
+        assertThat(stale.getLatitude()).isEqualTo(1.0);
+        assertThat(stale.getFreshness().stale()).isTrue();
+        assertThat(stale.getFreshness().ageSeconds()).isGreaterThanOrEqualTo(0);
+        awaitLatch(refreshed);
+        await(() -> cacheService.getOrFetch(key, Duration.ofMinutes(1), () -> weather(3.0),
+                WeatherCurrentDTO.class).getLatitude() != 1.0);
+        assertThat((long) cacheService.stats().get("staleServed")).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void staleValueSurvivesUpstreamFailureWithinGrace() {
+        Duration shortTtl = Duration.ofMillis(50);
+        String key = cacheService.floodDischargeKey(21.03, 105.85);
+        cacheService.getOrFetch(key, shortTtl, () -> weather(1.0), WeatherCurrentDTO.class);
+        sleep(100);
+
+        for (int i = 0; i < 3; i++) {
+            WeatherCurrentDTO dto = cacheService.getOrFetch(key, shortTtl, () -> null, WeatherCurrentDTO.class);
+            assertThat(dto.getLatitude()).isEqualTo(1.0);
+            assertThat(dto.getFreshness().stale()).isTrue();
+            sleep(50);
+        }
+        await(() -> (long) cacheService.stats().get("refreshFailures") >= 1);
+    }
+
+    @Test
+    void freshResponseCarriesAgeWithoutMutatingCachedValue() {
+        String key = cacheService.weatherCurrentKey(21.03, 105.85);
+        WeatherCurrentDTO first = cacheService.getOrFetch(key, TTL, () -> weather(1.0), WeatherCurrentDTO.class);
+        WeatherCurrentDTO second = cacheService.getOrFetch(key, TTL, () -> weather(1.0), WeatherCurrentDTO.class);
+
+        assertThat(first.getFreshness().stale()).isFalse();
+        assertThat(second.getFreshness().ageSeconds()).isLessThan(5);
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    void hotKeyIsRefreshedBeforeExpiry() {
+        // beta khổng lồ => gần như chắc chắn refresh sớm dù còn lâu mới hết hạn
+        ReflectionTestUtils.setField(cacheService, "earlyRefreshBeta", 1e12);
+        String key = cacheService.weatherCurrentKey(21.03, 105.85);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Supplier<WeatherCurrentDTO> fetch = () -> {
+            upstreamCalls.incrementAndGet();
+            sleep(5);
+            return weather(1.0);
+        };
+
+        cacheService.getOrFetch(key, TTL, fetch, WeatherCurrentDTO.class);
+        WeatherCurrentDTO dto = cacheService.getOrFetch(key, TTL, fetch, WeatherCurrentDTO.class);
+
+        assertThat(dto.getFreshness().stale()).isFalse();
+        await(() -> upstreamCalls.get() >= 2);
+        assertThat((long) cacheService.stats().get("earlyRefreshes")).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void batchFetchesOnlyMissesInOneCall() {
+        String inL1 = cacheService.weatherCurrentKey(1, 1);
+        String inRedis = cacheService.weatherCurrentKey(2, 2);
+        String missingA = cacheService.weatherCurrentKey(3, 3);
+        String missingB = cacheService.weatherCurrentKey(4, 4);
+        cacheService.getOrFetch(inL1, TTL, () -> weather(1), WeatherCurrentDTO.class);
+
+        Map<String, Object> raw = new LinkedHashMap<>();
+        raw.put("latitude", 2.0);
+        when(valueOps.multiGet(List.of(inRedis, missingA, missingB))).thenReturn(Arrays.asList(raw, null, null));
+        List<List<String>> batches = new ArrayList<>();
+
+        Map<String, WeatherCurrentDTO> result = cacheService.getOrFetchAll(
+                List.of(inL1, inRedis, missingA, missingB, missingA), TTL, missing -> {
+                    batches.add(List.copyOf(missing));
+                    return Map.of(missingA, weather(3));  // missingB: API không có dữ liệu
+                }, WeatherCurrentDTO.class);
+
+        assertThat(batches).containsExactly(List.of(missingA, missingB));
+        assertThat(result).containsOnlyKeys(inL1, inRedis, missingA);
+        assertThat(result.get(inRedis).getLatitude()).isEqualTo(2.0);
+        assertThat(result.get(missingA).getFreshness().stale()).isFalse();
+        assertThat(batchWrites()).containsExactly(List.of(missingA));
+        verify(valueOps, never()).set(eq(missingA), any(), any(Duration.class));
+
+        // Lần đọc đơn lẻ sau đó trúng L1
+        cacheService.getOrFetch(missingA, TTL, () -> weather(99), WeatherCurrentDTO.class);
+        verify(valueOps, never()).get(missingA);
+    }
+
+    @Test
+    void putAllPipelinesEachChunkAndGetAllReadsThemBack() {
+        ReflectionTestUtils.setField(cacheService, "batchWriteSize", 2);
+        Map<String, WeatherCurrentDTO> values = new LinkedHashMap<>();
+        for (int i = 1; i <= 3; i++) {
+            values.put(cacheService.weatherCurrentKey(i, i), weather(i));
+        }
+        List<String> keys = List.copyOf(values.keySet());
+
+        cacheService.putAll(values, TTL);
+
+        assertThat(batchWrites()).containsExactly(keys.subList(0, 2), keys.subList(2, 3));
+        // Không mở kết nối riêng cho pipeline: ghi trên kết nối dùng chung
+        verify(redisTemplate, never()).executePipelined(any(SessionCallback.class));
+        String invalidation = publishedInvalidation();
+        assertThat(invalidation).endsWith("\n" + String.join("\n", keys));
+        // Node nhận lại broadcast của chính nó: giữ nguyên L1
+        cacheService.onMessage(invalidation(invalidation), null);
+        assertThat(cacheService.stats()).containsEntry("l1Size", 3L);
+
+        // L1 trúng cho 3 key, key lạ đi một MGET duy nhất
+        String unknown = cacheService.weatherCurrentKey(9, 9);
+        when(valueOps.multiGet(List.of(unknown))).thenReturn(Arrays.asList((Object) null));
+        Map<String, WeatherCurrentDTO> read = cacheService.getAll(
+                List.of(keys.get(0), unknown, keys.get(2)), TTL, WeatherCurrentDTO.class);
+        assertThat(read).containsOnlyKeys(keys.get(0), keys.get(2));
+        assertThat(read.get(keys.get(2)).getLatitude()).isEqualTo(3.0);
+        verify(valueOps).multiGet(List.of(unknown));
+    }
+
+    @Test
+    void batchInvalidationDropsEveryListedKey() {
+        String a = cacheService.weatherCurrentKey(1, 1);
+        String b = cacheService.weatherCurrentKey(2, 2);
+        cacheService.getOrFetch(a, TTL, () -> weather(1), WeatherCurrentDTO.class);
+        cacheService.getOrFetch(b, TTL, () -> weather(2), WeatherCurrentDTO.class);
+
+        cacheService.onMessage(invalidation("peer-node\n" + a + "\n" + b), null);
+
+        assertThat(cacheService.stats()).containsEntry("l1Size", 0L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void healthProbePingsOverTheTemplateAndReusesTheResult() {
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn("PONG");
+
+        CacheService.RedisHealth first = cacheService.redisHealth();
+        CacheService.RedisHealth second = cacheService.redisHealth();
+
+        assertThat(first.available()).isTrue();
+        assertThat(second).isSameAs(first);
+        verify(redisTemplate, times(1)).execute(any(RedisCallback.class));
+        verify(redisTemplate, never()).getConnectionFactory();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void evictAllScansAndUnlinksInChunks() {
+        ReflectionTestUtils.setField(cacheService, "evictScanCount", 2);
+        List<String> weatherKeys = List.of("weather:current:1.00:1.00", "weather:current:2.00:2.00",
+                "weather:forecast:1.00:1.00:7", "weather:current:3.00:3.00", "weather:current:4.00:4.00");
+        Cursor<String> weatherCursor = cursor(weatherKeys);
+        Cursor<String> floodCursor = cursor(List.of("flood:discharge:1.00:1.00"));
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenReturn(weatherCursor, floodCursor);
+        when(stringRedisTemplate.unlink(anyCollection()))
+                .thenAnswer(inv -> (long) ((Collection<String>) inv.getArgument(0)).size());
+        cacheService.getOrFetch(weatherKeys.get(0), TTL, () -> weather(1), WeatherCurrentDTO.class);
+
+        long evicted = cacheService.evictAll();
+
+        assertThat(evicted).isEqualTo(6);
+        verify(stringRedisTemplate).unlink(weatherKeys.subList(0, 2));
+        verify(stringRedisTemplate).unlink(weatherKeys.subList(2, 4));
+        verify(stringRedisTemplate).unlink(weatherKeys.subList(4, 5));
+        verify(stringRedisTemplate).unlink(List.of("flood:discharge:1.00:1.00"));
+        verify(weatherCursor).close();
+        verify(redisTemplate, never()).keys(anyString());
+        assertThat(publishedInvalidation()).endsWith("\n*");
+        assertThat(cacheService.stats()).containsEntry("l1Size", 0L);
+    }
+
+    /** Keys of every SET-ALL script call, in order */
+    /** Keys of each batch write, replayed against the async commands of a mocked native connection */
+    @SuppressWarnings("unchecked")
+    private List<List<String>> batchWrites() {
+        ArgumentCaptor<RedisCallback<?>> callbacks = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(redisTemplate, atLeast(0)).execute(callbacks.capture());
+        List<List<String>> batches = new ArrayList<>();
+        for (RedisCallback<?> callback : callbacks.getAllValues()) {
+            RedisConnection connection = mock(RedisConnection.class);
+            RedisClusterAsyncCommands<byte[], byte[]> commands = mock(RedisClusterAsyncCommands.class);
+            when(connection.getNativeConnection()).thenReturn(commands);
+            List<String> keys = new ArrayList<>();
+            when(commands.set(any(byte[].class), any(byte[].class), any(SetArgs.class))).thenAnswer(inv -> {
+                keys.add(new String((byte[]) inv.getArgument(0), StandardCharsets.UTF_8));
+                return new CompletedWrite();
+            });
+            callback.doInRedis(connection);
+            batches.add(keys);
+        }
+        return batches;
+    }
+
+    private static final class CompletedWrite extends CompletableFuture<String> implements RedisFuture<String> {
+        CompletedWrite() {
+            complete("OK");
+        }
+
+        @Override
+        public String getError() {
+            return null;
+        }
+
+        @Override
+        public boolean await(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    private String publishedInvalidation() {
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(CacheService.INVALIDATION_CHANNEL), payload.capture());
+        return payload.getValue();
+    }
+
+    private static DefaultMessage invalidation(String payload) {
+        return new DefaultMessage(CacheService.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<String> cursor(List<String> keys) {
+        Iterator<String> it = keys.iterator();
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(inv -> it.hasNext());
+        when(cursor.next()).thenAnswer(inv -> it.next());
+        return cursor;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            sleep(20);
+        }
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private WeatherCurrentDTO weather(double latitude) {
+        WeatherCurrentDTO dto = new WeatherCurrentDTO();
+        dto.setLatitude(latitude);
+        return dto;
+    }
+}
@@ -0,0 +1,143 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.dto.response.CoordinatorDashboardResponse;
+import com.team6.floodcoord.dto.response.TeamLeaderDashboardResponse;
+import com.team6.floodcoord.event.DailyStatsEntityListener;
+import com.team6.floodcoord.model.RescueRequest;
+import com.team6.floodcoord.model.RescueTeam;
+import com.team6.floodcoord.model.Role;
+import com.team6.floodcoord.model.User;
+import com.team6.floodcoord.model.enums.RequestStatus;
+import com.team6.floodcoord.repository.jpa.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({DailyStatsService.class, TransactionRetryExecutor.class, DailyStatsEntityListener.class,
+        CoordinatorAnalyticsService.class, TeamLeaderAnalyticsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DailyStatsServiceTest {
+
+    @Autowired
+    private DailyStatsService dailyStatsService;
+
+    @Autowired
+    private CoordinatorAnalyticsService coordinatorAnalyticsService;
+
+    @Autowired
+    private TeamLeaderAnalyticsService teamLeaderAnalyticsService;
+
+    @Autowired
+    private DailyStatsRepository dailyStatsRepository;
+
+    @Autowired
+    private RescueRequestRepository requestRepo;
+
+    @Autowired
+    private RescueTeamRepository teamRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private RoleRepository roleRepo;
+
+    @AfterEach
+    void cleanUp() {
+        requestRepo.deleteAll();
+        userRepo.deleteAll();
+        teamRepo.deleteAll();
+        roleRepo.deleteAll();
+        dailyStatsRepository.deleteAll();
+    }
+
+    @Test
+    void dashboardsReadRollupMaintainedFromCommittedChanges() {
+        LocalDate today = LocalDate.now();
+        LocalDate lastWeek = today.minusDays(7);
+
+        RescueTeam team = teamRepo.save(RescueTeam.builder().name("Doi 1").isActive(true).build());
+        Role role = roleRepo.save(new Role(null, "Rescue Team", "RESCUE_TEAM", null));
+        userRepo.save(User.builder()
+                .fullName("Leader").email("leader@flood.vn").phoneNumber("0900000000")
+                .status(true).password("x").failedLoginAttempts(0)
+                .role(role).rescueTeam(team)
+                .build());
+
+        // Tuần trước: 1 nhiệm vụ hoàn thành (rating 3); hôm nay: 2 nhiệm vụ (rating 5 và 4)
+        requestRepo.save(request("OLD", team, RequestStatus.REPORTED, lastWeek.atTime(9, 0), 3));
+        requestRepo.save(request("A", team, RequestStatus.COMPLETED, today.atTime(8, 0), 5));
+        requestRepo.save(request("B", team, RequestStatus.COMPLETED, today.atTime(9, 0), 4));
+
+        // Các commit trên đã đánh dấu ngày bẩn, flush dựng lại rollup
+        dailyStatsService.flushDirtyDays();
+
+        CoordinatorDashboardResponse coordinator = coordinatorAnalyticsService.getDashboardStats(
+                today, today, lastWeek, lastWeek);
+        assertThat(coordinator.getResolvedRequests().getCurrentMonthValue()).isEqualTo(2);
+        assertThat(coordinator.getResolvedRequests().getLastMonthValue()).isZero();
+
+        TeamLeaderDashboardResponse leader = teamLeaderAnalyticsService.getDashboardStats(
+                "leader@flood.vn", today, today, lastWeek, lastWeek);
+        assertThat(leader.getCompletedMissions().getCurrentMonthValue()).isEqualTo(2);
+        assertThat(leader.getCompletedMissions().getLastMonthValue()).isEqualTo(1);
+        assertThat(leader.getAverageRating().getCurrentMonthValue()).isEqualTo(4.5);
+        assertThat(leader.getAverageRating().getLastMonthValue()).isEqualTo(3.0);
+
+        // COMPLETED -> REPORTED: vẫn là nhiệm vụ của đội nhưng không còn tính là "resolved"
+        RescueRequest a = requestRepo.findByTrackingCode("A").orElseThrow();
+        a.setStatus(RequestStatus.REPORTED);
+        requestRepo.save(a);
+        dailyStatsService.flushDirtyDays();
+
+        assertThat(coordinatorAnalyticsService.getDashboardStats(today, today, lastWeek, lastWeek)
+                .getResolvedRequests().getCurrentMonthValue()).isEqualTo(1);
+        assertThat(teamLeaderAnalyticsService.getDashboardStats("leader@flood.vn", today, today, lastWeek, lastWeek)
+                .getCompletedMissions().getCurrentMonthValue()).isEqualTo(2);
+    }
+
+    @Test
+    void compactionRepairsDaysWithoutEvents() {
+        RescueTeam team = teamRepo.save(RescueTeam.builder().name("Doi 2").isActive(true).build());
+        requestRepo.save(request("C", team, RequestStatus.COMPLETED, LocalDateTime.now(), null));
+        dailyStatsRepository.deleteAll();
+
+        dailyStatsService.nightlyCompaction();
+
+        DailyStatsRepository.TotalsView totals = dailyStatsRepository.sumRange(team.getId(), LocalDate.now(), LocalDate.now());
+        assertThat(totals.getMissionsCompleted()).isEqualTo(1);
+        assertThat(totals.getRatingCount()).isZero();
+        assertThat(dailyStatsRepository.findAll())
+                .filteredOn(s -> s.getId().getStatDate().equals(LocalDate.now()))
+                .extracting(s -> s.getId().getTeamId())
+                .containsExactlyInAnyOrderElementsOf(List.of(0L, team.getId()));
+    }
+
+    private RescueRequest request(String code, RescueTeam team, RequestStatus status,
+                                  LocalDateTime completedAt, Integer rating) {
+        RescueRequest request = new RescueRequest();
+        request.setTitle(code);
+        request.setTrackingCode(code);
+        request.setContactName("Citizen");
+        request.setContactPhone("0910000000");
+        request.setCreatedAt(completedAt.minusHours(2));
+        request.setCompletedAt(completedAt);
+        request.setStatus(status);
+        request.setAssignedTeam(team);
+        request.setCitizenRating(rating);
+        return request;
+    }
+}
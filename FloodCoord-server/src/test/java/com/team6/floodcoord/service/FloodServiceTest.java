@@ -0,0 +1,193 @@
+package com.team6.floodcoord.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.team6.floodcoord.dto.Coord;
+import com.team6.floodcoord.dto.FloodDischargeDTO;
+import com.team6.floodcoord.dto.GridCell;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs FloodService against a local stub of the Open-Meteo flood API: each coordinate
+ * ("lat,lon") is answered with a configured discharge after a configured delay.
+ */
+class FloodServiceTest {
+
+    private HttpServer server;
+    private final Map<String, double[]> discharges = new ConcurrentHashMap<>(); // coord -> {discharge, delayMs}
+    private final List<String> requested = new CopyOnWriteArrayList<>();
+    private final Set<String> failing = ConcurrentHashMap.newKeySet(); // coord -> 503
+
+    private ValueOperations<String, String> riverCells;
+    private FloodService floodService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/flood", exchange -> {
+            Map<String, String> query = new ConcurrentHashMap<>();
+            for (String param : exchange.getRequestURI().getQuery().split("&")) {
+                String[] kv = param.split("=", 2);
+                query.put(kv[0], kv[1]);
+            }
+            String coord = query.get("latitude") + "," + query.get("longitude");
+            requested.add(coord);
+            if (failing.contains(coord) || failing.contains("*")) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+
+            double[] answer = discharges.getOrDefault(coord, new double[]{0, 0});
+            sleep((long) answer[1]);
+            byte[] body = ("{\"daily\":{\"time\":[\"2026-01-01\"],\"river_discharge\":[" + answer[0] + "]}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        CacheService cacheService = mock(CacheService.class);
+        when(cacheService.floodDischargeKey(any(GridCell.class))).thenReturn("flood:discharge:test");
+        when(cacheService.getOrFetch(anyString(), any(), any(), eq(FloodDischargeDTO.class)))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(2)).get());
+        when(cacheService.getOrFetchAll(anyList(), any(), any(), eq(FloodDischargeDTO.class)))
+                .thenAnswer(inv -> ((Function<List<String>, Map<String, ?>>) inv.getArgument(2)).apply(inv.getArgument(0)));
+
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        riverCells = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(riverCells);
+
+        OpenMeteoClient openMeteoClient = new OpenMeteoClient(WebClient.create(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(openMeteoClient, "maxAttempts", 1);
+        ReflectionTestUtils.setField(openMeteoClient, "failureThreshold", 5);
+        ReflectionTestUtils.setField(openMeteoClient, "openDuration", Duration.ofSeconds(30));
+
+        floodService = new FloodService(cacheService, redisTemplate, openMeteoClient);
+        ReflectionTestUtils.setField(floodService, "floodUrl",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/flood");
+        ReflectionTestUtils.setField(floodService, "ttlMinutes", 30L);
+        ReflectionTestUtils.setField(floodService, "batchSize", 50);
+        ReflectionTestUtils.setField(floodService, "nudgeTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(floodService, "riverCellTtl", Duration.ofDays(30));
+        ReflectionTestUtils.setField(floodService, "noRiverTtl", Duration.ofDays(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        floodService.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void nudgesRunConcurrentlyAndFirstValidWins() {
+        // Hướng bắc có sông nhưng trả lời chậm; hướng đông nhanh hơn
+        discharges.put((16.0 + 0.05) + ",108.0", new double[]{120.0, 600});
+        discharges.put("16.0," + (108.0 + 0.05), new double[]{80.0, 50});
+        discharges.put("16.0," + (108.0 - 0.05), new double[]{0, 600});
+
+        long started = System.nanoTime();
+        FloodDischargeDTO result = floodService.getRiverDischarge(16.0, 108.0);
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+        assertThat(result.getLatestDischarge()).isEqualTo(80.0);
+        // Tuần tự sẽ chờ hướng bắc 600ms trước khi thử hướng đông
+        assertThat(elapsedMs).isLessThan(500);
+        verify(riverCells).set("river-cell:16.00:108.00", "16.0," + (108.0 + 0.05), Duration.ofDays(30));
+    }
+
+    @Test
+    void learnedRiverCellIsQueriedDirectly() {
+        when(riverCells.get("river-cell:16.00:108.00")).thenReturn("16.05,108.0");
+        discharges.put("16.05,108.0", new double[]{95.0, 0});
+
+        FloodDischargeDTO result = floodService.getRiverDischarge(16.0, 108.0);
+
+        assertThat(result.getLatestDischarge()).isEqualTo(95.0);
+        assertThat(requested).containsExactly("16.05,108.0");
+        verify(riverCells, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void cellWithoutRiverIsRememberedAndNotNudgedAgain() {
+        FloodDischargeDTO first = floodService.getRiverDischarge(16.0, 108.0);
+
+        assertThat(first.getLatestDischarge()).isZero();
+        assertThat(requested).hasSize(5);
+        verify(riverCells).set("river-cell:16.00:108.00", "none", Duration.ofDays(1));
+
+        requested.clear();
+        when(riverCells.get("river-cell:16.00:108.00")).thenReturn("none");
+        floodService.getRiverDischarge(16.0, 108.0);
+
+        assertThat(requested).containsExactly("16.0,108.0");
+    }
+
+    @Test
+    void outageReturnsNullAndLearnsNothing() {
+        failing.add("*");
+
+        FloodDischargeDTO result = floodService.getRiverDischarge(16.0, 108.0);
+
+        assertThat(result).isNull();
+        verify(riverCells, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void batchOutageLeavesThePointOutOfTheResult() {
+        failing.add("*");
+
+        Map<Coord, FloodDischargeDTO> result = floodService.getRiverDischargeBatch(List.of(new Coord(16.0, 108.0)));
+
+        assertThat(result).isEmpty();
+        verify(riverCells, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void failedNudgeMakesTheResultUnknownNotRiverless() {
+        failing.add("16.0," + (108.0 + 0.05));
+
+        FloodDischargeDTO result = floodService.getRiverDischarge(16.0, 108.0);
+
+        assertThat(result).isNull();
+        assertThat(requested).hasSize(5);
+        verify(riverCells, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.dto.response.ManagerDashboardResponse;
+import com.team6.floodcoord.event.ResourceStatusEntityListener;
+import com.team6.floodcoord.model.RescueTeam;
+import com.team6.floodcoord.model.Supply;
+import com.team6.floodcoord.model.Vehicle;
+import com.team6.floodcoord.model.enums.SupplyType;
+import com.team6.floodcoord.model.enums.TeamStatus;
+import com.team6.floodcoord.model.enums.VehicleStatus;
+import com.team6.floodcoord.repository.jpa.RescueTeamRepository;
+import com.team6.floodcoord.repository.jpa.SupplyRepository;
+import com.team6.floodcoord.repository.jpa.VehicleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "dashboard.cache.ttl=PT10M"
+})
+@ActiveProfiles("test")
+@Import({ManagerAnalyticsService.class, AvailabilityIndex.class, DashboardCache.class, ResourceStatusEntityListener.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ManagerAnalyticsServiceTest {
+
+    @Autowired
+    private ManagerAnalyticsService analyticsService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private DashboardCache dashboardCache;
+
+    @Autowired
+    private RescueTeamRepository teamRepo;
+
+    @Autowired
+    private VehicleRepository vehicleRepo;
+
+    @Autowired
+    private SupplyRepository supplyRepo;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private Long boatId;
+    private Long waterId;
+
+    @BeforeEach
+    void setUp() {
+        teamRepo.save(RescueTeam.builder().name("Doi 1").isActive(true).status(TeamStatus.AVAILABLE).build());
+        teamRepo.save(RescueTeam.builder().name("Doi 2").isActive(true).status(TeamStatus.BUSY).build());
+        boatId = vehicleRepo.save(Vehicle.builder().name("Cano-01").type("BOAT").status(VehicleStatus.AVAILABLE).build()).getId();
+        vehicleRepo.save(Vehicle.builder().name("Xe-01").type("TRUCK").status(VehicleStatus.MAINTENANCE).build());
+        waterId = supplyRepo.save(supply("Nuoc suoi", 0)).getId();
+        supplyRepo.save(supply("Mi tom", 15));
+        supplyRepo.save(supply("Ao phao", 200));
+
+        dashboardCache.evictAll();
+        statistics().clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        vehicleRepo.deleteAll();
+        teamRepo.deleteAll();
+        supplyRepo.deleteAll();
+    }
+
+    @Test
+    void fallbackUsesAtMostThreeQueriesThenServesFromCache() {
+        ManagerDashboardResponse stats = analyticsService.getDashboardStats();
+
+        assertThat(stats.getTeamReadiness().getTotalTeams()).isEqualTo(2);
+        assertThat(stats.getTeamReadiness().getBusyCount()).isEqualTo(1);
+        assertThat(stats.getVehicleFleet().getMaintenanceCount()).isEqualTo(1);
+        assertThat(stats.getSupplyHealth().getTotalSupplyTypes()).isEqualTo(3);
+        assertThat(stats.getSupplyHealth().getOutOfStockCount()).isEqualTo(1);
+        assertThat(stats.getSupplyHealth().getLowStockCount()).isEqualTo(1);
+        assertThat(statistics().getPrepareStatementCount()).isLessThanOrEqualTo(3);
+
+        statistics().clear();
+        analyticsService.getDashboardStats();
+        assertThat(statistics().getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void indexBackedMissCostsOneQueryAndStatusChangeEvictsCache() {
+        availabilityIndex.load();
+        statistics().clear();
+
+        assertThat(analyticsService.getDashboardStats().getVehicleFleet().getAvailableCount()).isEqualTo(1);
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+
+        Vehicle boat = vehicleRepo.findById(boatId).orElseThrow();
+        boat.setStatus(VehicleStatus.IN_USE);
+        vehicleRepo.save(boat);
+        supplyRepo.incrementStock(Map.of(waterId, 5));
+
+        ManagerDashboardResponse stats = analyticsService.getDashboardStats();
+        assertThat(stats.getVehicleFleet().getAvailableCount()).isZero();
+        assertThat(stats.getVehicleFleet().getInUseCount()).isEqualTo(1);
+        assertThat(stats.getSupplyHealth().getOutOfStockCount()).isZero();
+        assertThat(stats.getSupplyHealth().getLowStockCount()).isEqualTo(2);
+    }
+
+    private Supply supply(String name, int quantity) {
+        return Supply.builder()
+                .name(name)
+                .type(SupplyType.FOOD_WATER)
+                .quantity(quantity)
+                .unit("Thung")
+                .build();
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+}
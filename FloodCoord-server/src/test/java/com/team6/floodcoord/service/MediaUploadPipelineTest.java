@@ -0,0 +1,165 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.model.enums.MediaUploadStatus;
+import com.team6.floodcoord.repository.jpa.RequestMediaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class MediaUploadPipelineTest {
+
+    @TempDir
+    Path spillDir;
+
+    private CloudinaryService cloudinaryService;
+    private RequestMediaRepository mediaRepo;
+    private MediaUploadPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        cloudinaryService = mock(CloudinaryService.class);
+        mediaRepo = mock(RequestMediaRepository.class);
+        pipeline = new MediaUploadPipeline(cloudinaryService, mediaRepo, 2);
+        ReflectionTestUtils.setField(pipeline, "maxAttempts", 2);
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMs", 1L);
+        ReflectionTestUtils.setField(pipeline, "maxBufferedBytes", DataSize.ofKilobytes(1));
+        ReflectionTestUtils.setField(pipeline, "spillDir", spillDir);
+        ReflectionTestUtils.setField(pipeline, "staleAfter", Duration.ofMinutes(30));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void pendingUploadEndsUploadedWithItsUrl() throws IOException {
+        UUID mediaId = UUID.randomUUID();
+        when(cloudinaryService.uploadBytes(any(), eq("image"))).thenReturn("https://cdn/a.jpg");
+
+        MediaUploadPipeline.PendingUpload upload = pipeline.capture(mediaId, file(100), "image");
+        assertThat(upload.spillFile()).isNull();
+        assertThat(pipeline.getBufferedBytes()).isEqualTo(100);
+
+        pipeline.submit(List.of(upload));
+
+        verify(mediaRepo, timeout(2000)).updateUploadState(eq(mediaId), eq(MediaUploadStatus.UPLOADED),
+                eq("https://cdn/a.jpg"), eq(1), isNull(), any(LocalDateTime.class));
+        verify(mediaRepo, never()).updateUploadState(any(), eq(MediaUploadStatus.FAILED), any(), anyInt(), any(), any());
+        awaitBufferDrained();
+    }
+
+    @Test
+    void pendingUploadEndsFailedAfterTheLastAttempt() throws IOException {
+        UUID mediaId = UUID.randomUUID();
+        when(cloudinaryService.uploadBytes(any(), anyString())).thenThrow(new IOException("cloudinary down"));
+
+        pipeline.submit(List.of(pipeline.capture(mediaId, file(10), "image")));
+
+        verify(mediaRepo, timeout(2000)).updateUploadState(mediaId, MediaUploadStatus.FAILED,
+                null, 2, "cloudinary down", null);
+        // Lần thử đầu thất bại vẫn giữ PENDING_UPLOAD kèm số lần thử
+        verify(mediaRepo).updateUploadState(mediaId, MediaUploadStatus.PENDING_UPLOAD,
+                null, 1, "cloudinary down", null);
+        awaitBufferDrained();
+    }
+
+    @Test
+    void filesPastTheHeapBudgetAreSpilledToDiskAndDeletedAfterUpload() throws IOException {
+        UUID mediaId = UUID.randomUUID();
+        ArgumentCaptor<File> uploaded = ArgumentCaptor.forClass(File.class);
+        when(cloudinaryService.uploadFile(uploaded.capture(), eq("video"))).thenReturn("https://cdn/v.mp4");
+
+        MediaUploadPipeline.PendingUpload upload = pipeline.capture(mediaId, file(4096), "video");
+
+        assertThat(upload.bytes()).isNull();
+        assertThat(upload.spillFile()).hasParent(spillDir).hasSize(4096);
+        assertThat(pipeline.getBufferedBytes()).isZero();
+
+        pipeline.submit(List.of(upload));
+
+        verify(mediaRepo, timeout(2000)).updateUploadState(eq(mediaId), eq(MediaUploadStatus.UPLOADED),
+                eq("https://cdn/v.mp4"), eq(1), isNull(), any(LocalDateTime.class));
+        verify(cloudinaryService, never()).uploadBytes(any(), anyString());
+        assertThat(uploaded.getValue().toPath()).isEqualTo(upload.spillFile());
+        awaitDeleted(upload.spillFile());
+    }
+
+    @Test
+    void rolledBackRequestReleasesItsFilesWithoutUploading() throws IOException {
+        MediaUploadPipeline.PendingUpload inHeap = pipeline.capture(UUID.randomUUID(), file(500), "image");
+        MediaUploadPipeline.PendingUpload onDisk = pipeline.capture(UUID.randomUUID(), file(900), "image");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            pipeline.submit(List.of(inHeap, onDisk));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(pipeline.getBufferedBytes()).isZero();
+        assertThat(onDisk.spillFile()).doesNotExist();
+        verifyNoInteractions(cloudinaryService, mediaRepo);
+    }
+
+    @Test
+    void sweepFailsUploadsStuckInPendingAfterARestart() throws IOException {
+        Path leftover = Files.createFile(spillDir.resolve("lost.upload"));
+        Files.setLastModifiedTime(leftover, java.nio.file.attribute.FileTime.fromMillis(0));
+        Path recent = Files.createFile(spillDir.resolve("running.upload"));
+        when(mediaRepo.failPendingUploadsCreatedBefore(any(), anyString())).thenReturn(3);
+
+        pipeline.failStaleUploads();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(mediaRepo).failPendingUploadsCreatedBefore(cutoff.capture(), eq(MediaUploadPipeline.STALE_UPLOAD_ERROR));
+        assertThat(cutoff.getValue()).isBetween(LocalDateTime.now().minusMinutes(31), LocalDateTime.now().minusMinutes(29));
+        assertThat(leftover).doesNotExist();
+        assertThat(recent).exists();
+    }
+
+    private static MockMultipartFile file(int size) {
+        return new MockMultipartFile("files", "photo.jpg", "image/jpeg", new byte[size]);
+    }
+
+    private void awaitBufferDrained() {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (pipeline.getBufferedBytes() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(pipeline.getBufferedBytes()).isZero();
+    }
+
+    private static void awaitDeleted(Path file) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (Files.exists(file) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(file).doesNotExist();
+    }
+}
@@ -0,0 +1,116 @@
+package com.team6.floodcoord.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** OpenMeteoClient against a local HTTP stub that answers with a scripted list of status codes. */
+class OpenMeteoClientTest {
+
+    private HttpServer server;
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>(); // trống => 200
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+    private OpenMeteoClient client;
+    private URI uri;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/flood", exchange -> {
+            calls.incrementAndGet();
+            Integer status = statuses.poll();
+            byte[] body = "{\"latitude\":16.0}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status != null ? status : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/flood?latitude=16.0");
+
+        meterRegistry = new SimpleMeterRegistry();
+        client = new OpenMeteoClient(WebClient.create(), meterRegistry);
+        ReflectionTestUtils.setField(client, "maxAttempts", 3);
+        ReflectionTestUtils.setField(client, "minBackoff", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(client, "maxBackoff", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(client, "jitter", 0.5);
+        ReflectionTestUtils.setField(client, "failureThreshold", 2);
+        ReflectionTestUtils.setField(client, "openDuration", Duration.ofMillis(300));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void transientErrorsAreRetried() {
+        statuses.add(503);
+        statuses.add(429);
+
+        Map<?, ?> body = client.fetch(uri, Map.class);
+
+        assertThat(body.get("latitude")).isEqualTo(16.0);
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        statuses.add(400);
+
+        assertThatThrownBy(() -> client.fetch(uri, Map.class))
+                .isInstanceOf(OpenMeteoClient.OpenMeteoException.class);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(state()).isZero();
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndClosesAfterTrial() throws InterruptedException {
+        for (int i = 0; i < 6; i++) statuses.add(500);
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.fetch(uri, Map.class))
+                    .isInstanceOf(OpenMeteoClient.OpenMeteoException.class);
+        }
+        assertThat(calls.get()).isEqualTo(6);
+        assertThat(state()).isEqualTo(1);
+
+        // Mạch mở: không gọi ra ngoài
+        assertThatThrownBy(() -> client.fetch(uri, Map.class))
+                .hasMessageContaining("Circuit open");
+        assertThat(calls.get()).isEqualTo(6);
+        assertThat(meterRegistry.get("weather.upstream.requests").tag("result", "rejected").counter().count())
+                .isEqualTo(1);
+
+        Thread.sleep(350);
+        assertThat(client.fetch(uri, Map.class)).isNotNull();
+        assertThat(state()).isZero();
+    }
+
+    private double state() {
+        return meterRegistry.get("weather.upstream.circuit.state").gauge().value();
+    }
+}
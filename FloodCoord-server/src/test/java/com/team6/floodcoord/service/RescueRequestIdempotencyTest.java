@@ -0,0 +1,124 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.dto.request.CreateRescueRequestDTO;
+import com.team6.floodcoord.dto.response.CreateRequestResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RescueRequestIdempotencyTest {
+
+    private static final String KEY = "3f2b8c1e-5d0a-4e7b-9a61-0c2d4e6f8a10";
+    private static final String CLIENT = RescueRequestIdempotency.client("0912345678", "203.0.113.7");
+    private static final String REDIS_KEY = "idempotency:rescue-request:phone:0912345678:" + KEY;
+    private static final String FINGERPRINT = RescueRequestIdempotency.fingerprint(request("Nước ngập tới mái"), "0912345678");
+
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> valueOps;
+    private RescueRequestIdempotency idempotency;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOps = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOps);
+        idempotency = new RescueRequestIdempotency(stringRedisTemplate);
+        ReflectionTestUtils.setField(idempotency, "pendingTtl", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(idempotency, "ttl", Duration.ofDays(1));
+    }
+
+    @Test
+    void retryAfterCompletionReplaysTheFirstResponse() {
+        CreateRequestResponse created = CreateRequestResponse.builder()
+                .requestId(UUID.randomUUID())
+                .trackingCode("RES-20261018-AB12")
+                .build();
+        when(valueOps.setIfAbsent(REDIS_KEY, "PENDING|" + FINGERPRINT, Duration.ofMinutes(2))).thenReturn(true);
+
+        assertThat(idempotency.claim(KEY, CLIENT, FINGERPRINT)).isEmpty();
+        idempotency.complete(KEY, CLIENT, FINGERPRINT, created);
+
+        String stored = created.getRequestId() + "|RES-20261018-AB12|" + FINGERPRINT;
+        verify(valueOps).set(eq(REDIS_KEY), eq(stored), eq(Duration.ofDays(1)));
+
+        when(valueOps.setIfAbsent(REDIS_KEY, "PENDING|" + FINGERPRINT, Duration.ofMinutes(2))).thenReturn(false);
+        when(valueOps.get(REDIS_KEY)).thenReturn(stored);
+
+        assertThat(idempotency.claim(KEY, CLIENT, FINGERPRINT)).contains(created);
+    }
+
+    @Test
+    void sameKeyWithADifferentPayloadIsRejected() {
+        String otherPayload = RescueRequestIdempotency.fingerprint(request("Cần thuyền gấp"), "0912345678");
+        assertThat(otherPayload).isNotEqualTo(FINGERPRINT);
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOps.get(REDIS_KEY)).thenReturn(UUID.randomUUID() + "|RES-20261018-AB12|" + FINGERPRINT);
+
+        assertThatThrownBy(() -> idempotency.claim(KEY, CLIENT, otherPayload))
+                .isInstanceOf(RescueRequestIdempotency.IdempotencyKeyReuseException.class);
+    }
+
+    @Test
+    void keysAreScopedPerClient() {
+        assertThat(RescueRequestIdempotency.client("+84 912.345.678", "203.0.113.7")).isEqualTo(CLIENT);
+        assertThat(RescueRequestIdempotency.client(null, "203.0.113.7")).isEqualTo("ip:203.0.113.7");
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        idempotency.claim(KEY, "ip:203.0.113.7", FINGERPRINT);
+
+        verify(valueOps).setIfAbsent(eq("idempotency:rescue-request:ip:203.0.113.7:" + KEY), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void retryWhileTheFirstIsRunningConflicts() {
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOps.get(REDIS_KEY)).thenReturn("PENDING|" + FINGERPRINT);
+
+        assertThatThrownBy(() -> idempotency.claim(KEY, CLIENT, FINGERPRINT))
+                .isInstanceOf(RescueRequestIdempotency.IdempotencyConflictException.class);
+    }
+
+    @Test
+    void withoutHeaderOrRedisTheRequestIsStillProcessed() {
+        assertThat(idempotency.claim(null, CLIENT, null)).isEmpty();
+        verifyNoInteractions(valueOps);
+
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        assertThat(idempotency.claim(KEY, CLIENT, FINGERPRINT)).isEmpty();
+
+        assertThatThrownBy(() -> idempotency.claim("bad key!", CLIENT, FINGERPRINT))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void failedCreateReleasesTheKey() {
+        idempotency.release(KEY, CLIENT);
+
+        verify(stringRedisTemplate).delete(REDIS_KEY);
+    }
+
+    private static CreateRescueRequestDTO request(String description) {
+        CreateRescueRequestDTO dto = new CreateRescueRequestDTO();
+        dto.setTitle("SOS");
+        dto.setDescription(description);
+        dto.setPeopleCount(3);
+        dto.setContactName("Nguyễn Văn A");
+        dto.setContactPhone("0912345678");
+        return dto;
+    }
+}
@@ -0,0 +1,162 @@
+package com.team6.floodcoord.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class SosRateLimiterTest {
+
+    private StringRedisTemplate stringRedisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private SosRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new SosRateLimiter(stringRedisTemplate, meterRegistry);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "createPerIpPermits", 3);
+        ReflectionTestUtils.setField(limiter, "createPerIpWindow", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(limiter, "createPerPhonePermits", 2);
+        ReflectionTestUtils.setField(limiter, "createPerPhoneWindow", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(limiter, "trackPerIpPermits", 5);
+        ReflectionTestUtils.setField(limiter, "trackPerIpWindow", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(limiter, "localMaxKeys", 1000L);
+        limiter.init();
+    }
+
+    @Test
+    void burstBeyondTheLimitIsRejectedLocallyWithoutRedis() {
+        redisAllows(1L);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.checkTrack("10.0.0.1");
+        }
+        assertThatThrownBy(() -> limiter.checkTrack("10.0.0.1"))
+                .isInstanceOfSatisfying(SosRateLimiter.RateLimitExceededException.class, e -> {
+                    assertThat(e.getPolicy()).isEqualTo(SosRateLimiter.Policy.TRACK_PER_IP);
+                    assertThat(e.getRetryAfterSeconds()).isBetween(1L, 12L);
+                });
+
+        // 5 lượt đầu hỏi Redis, lượt thứ 6 bị chặn tại chỗ
+        verify(stringRedisTemplate, times(5)).execute(any(RedisScript.class), anyList(), any(), any(), any(), any());
+        assertThat(meterRegistry.get("sos.rate-limit.rejected").tag("tier", "local").counter().count()).isEqualTo(1);
+        // IP khác không bị ảnh hưởng
+        limiter.checkTrack("10.0.0.2");
+    }
+
+    @Test
+    void redisWindowIsSharedAcrossNodes() {
+        redisAllows(0L);
+
+        assertThatThrownBy(() -> limiter.checkCreate("10.0.0.1", "0912345678"))
+                .isInstanceOfSatisfying(SosRateLimiter.RateLimitExceededException.class, e -> {
+                    assertThat(e.getPolicy()).isEqualTo(SosRateLimiter.Policy.CREATE_PER_IP);
+                    assertThat(e.getRetryAfter()).isLessThanOrEqualTo(Duration.ofMinutes(1));
+                });
+        assertThat(meterRegistry.get("sos.rate-limit.rejected").tag("tier", "redis").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void samePhoneInDifferentFormatsSharesOneLimit() {
+        redisAllows(1L);
+
+        limiter.checkCreate("10.0.0.1", "+84 912 345 678");
+        limiter.checkCreate("10.0.0.2", "0912.345.678");
+
+        assertThatThrownBy(() -> limiter.checkCreate("10.0.0.3", "0912345678"))
+                .isInstanceOfSatisfying(SosRateLimiter.RateLimitExceededException.class,
+                        e -> assertThat(e.getPolicy()).isEqualTo(SosRateLimiter.Policy.CREATE_PER_PHONE));
+        assertThat(scriptKeys()).anySatisfy(keys -> assertThat(keys.get(0)).startsWith("ratelimit:sos:{create:phone:0912345678}:"));
+    }
+
+    @Test
+    void phoneRejectionDoesNotSpendTheIpPermit() {
+        redisAllows(1L);
+
+        limiter.checkCreate("10.0.0.1", "0912345678");
+        limiter.checkCreate("10.0.0.1", "0912345678");
+        assertThatThrownBy(() -> limiter.checkCreate("10.0.0.1", "0912345678"))
+                .isInstanceOfSatisfying(SosRateLimiter.RateLimitExceededException.class,
+                        e -> assertThat(e.getPolicy()).isEqualTo(SosRateLimiter.Policy.CREATE_PER_PHONE));
+
+        // IP mới dùng 2/3 lượt: lần bị chặn theo SĐT không bị tính
+        limiter.checkCreate("10.0.0.1", "0987654321");
+        assertThatThrownBy(() -> limiter.checkCreate("10.0.0.1", "0987654321"))
+                .isInstanceOfSatisfying(SosRateLimiter.RateLimitExceededException.class,
+                        e -> assertThat(e.getPolicy()).isEqualTo(SosRateLimiter.Policy.CREATE_PER_IP));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisPhoneRejectionRefundsTheIpCount() {
+        ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOps);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any()))
+                .thenAnswer(inv -> ((List<String>) inv.getArgument(1)).get(0).contains("create:phone") ? 0L : 1L);
+
+        assertThatThrownBy(() -> limiter.checkCreate("10.0.0.1", "0912345678"))
+                .isInstanceOfSatisfying(SosRateLimiter.RateLimitExceededException.class,
+                        e -> assertThat(e.getPolicy()).isEqualTo(SosRateLimiter.Policy.CREATE_PER_PHONE));
+        verify(valueOps).decrement(startsWith("ratelimit:sos:{create:ip:10.0.0.1}:"));
+    }
+
+    @Test
+    void precheckBeforeParsingTheBodyDoesNotSpendPermits() {
+        redisAllows(1L);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.precheckCreate("10.0.0.1");
+        }
+        verify(stringRedisTemplate, times(10)).execute(any(RedisScript.class), anyList(), any(), any(), any(), eq("0"));
+
+        for (int i = 0; i < 3; i++) {
+            limiter.checkCreate("10.0.0.1", null);
+        }
+        assertThatThrownBy(() -> limiter.precheckCreate("10.0.0.1"))
+                .isInstanceOf(SosRateLimiter.RateLimitExceededException.class);
+    }
+
+    @Test
+    void redisFailureFallsBackToTheLocalLimit() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        for (int i = 0; i < 3; i++) {
+            limiter.checkCreate("10.0.0.1", null);
+        }
+        assertThatThrownBy(() -> limiter.checkCreate("10.0.0.1", null))
+                .isInstanceOf(SosRateLimiter.RateLimitExceededException.class);
+        assertThat(meterRegistry.get("sos.rate-limit.redis.errors").counter().count()).isEqualTo(3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void redisAllows(long result) {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any())).thenReturn(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<String>> scriptKeys() {
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(stringRedisTemplate, atLeast(0)).execute(any(RedisScript.class), keys.capture(), any(), any(), any(), any());
+        return keys.getAllValues();
+    }
+}
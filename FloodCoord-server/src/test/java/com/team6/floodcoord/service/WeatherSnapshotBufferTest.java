@@ -0,0 +1,103 @@
+package com.team6.floodcoord.service;
+
+import com.team6.floodcoord.dto.WeatherCurrentDTO;
+import com.team6.floodcoord.model.WeatherSnapshot;
+import com.team6.floodcoord.model.enums.RiskLevel;
+import com.team6.floodcoord.repository.jpa.WeatherSnapshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/** WeatherSnapshotBuffer + the JDBC batch upsert it flushes through, on H2. */
+@DataJpaTest
+@ActiveProfiles("test")
+class WeatherSnapshotBufferTest {
+
+    @Autowired
+    private WeatherSnapshotRepository snapshotRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void observationsForOneCellAndBucketBecomeOneRow() {
+        WeatherSnapshotBuffer buffer = buffer(snapshotRepository, 100);
+
+        buffer.recordWeather(16.001, 108.0, current(27.5, 3.0));
+        buffer.recordRisk(16.0, 108.002, 900.0, 1200.0, RiskLevel.MEDIUM);
+        buffer.recordWeather(10.82, 106.63, current(31.0, 0.0));
+        buffer.flush();
+
+        // Quan sát mới trong cùng bucket: cập nhật dòng cũ, không tạo dòng mới
+        buffer.recordRisk(16.0, 108.0, 2500.0, 3000.0, RiskLevel.HIGH);
+        buffer.flush();
+
+        List<WeatherSnapshot> rows = snapshotRepository.findAll();
+        assertThat(rows).hasSize(2);
+        WeatherSnapshot row = snapshotRepository.findTopByLatitudeAndLongitudeOrderByRecordedAtDesc(16.0, 108.0);
+        assertThat(row.getTemperature()).isEqualTo(27.5);
+        assertThat(row.getRain()).isEqualTo(3.0);
+        assertThat(row.getRiverDischarge()).isEqualTo(2500.0);
+        assertThat(row.getRiskLevel()).isEqualTo(RiskLevel.HIGH);
+        assertThat(meterRegistry.get("weather.snapshot.buffer.flushed").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void fullBufferDropsNewRowsInsteadOfBlocking() {
+        WeatherSnapshotBuffer buffer = buffer(snapshotRepository, 2);
+
+        buffer.recordWeather(16.0, 108.0, current(27.0, 0.0));
+        buffer.recordWeather(17.0, 108.0, current(27.0, 0.0));
+        buffer.recordWeather(18.0, 108.0, current(27.0, 0.0));
+        // Dòng đã có trong bộ đệm vẫn được gộp
+        buffer.recordRisk(16.0, 108.0, 100.0, 100.0, RiskLevel.LOW);
+
+        assertThat(meterRegistry.get("weather.snapshot.buffer.pending").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("weather.snapshot.buffer.dropped").tag("kind", "weather").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("weather.snapshot.buffer.dropped").tag("kind", "risk").counter().count())
+                .isZero();
+    }
+
+    @Test
+    void failedFlushKeepsRowsForNextAttempt() {
+        WeatherSnapshotRepository failing = mock(WeatherSnapshotRepository.class);
+        doThrow(new IllegalStateException("DB down")).doNothing().when(failing).upsertBuckets(anyList());
+        WeatherSnapshotBuffer buffer = buffer(failing, 100);
+
+        buffer.recordWeather(16.0, 108.0, current(27.0, 0.0));
+        buffer.flush();
+        assertThat(meterRegistry.get("weather.snapshot.buffer.pending").gauge().value()).isEqualTo(1);
+
+        buffer.flush();
+        verify(failing, times(2)).upsertBuckets(anyList());
+        assertThat(meterRegistry.get("weather.snapshot.buffer.pending").gauge().value()).isZero();
+        assertThat(meterRegistry.get("weather.snapshot.buffer.flush.failures").counter().count()).isEqualTo(1);
+    }
+
+    private WeatherSnapshotBuffer buffer(WeatherSnapshotRepository repository, int maxPending) {
+        WeatherSnapshotBuffer buffer = new WeatherSnapshotBuffer(repository, meterRegistry);
+        ReflectionTestUtils.setField(buffer, "bucket", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(buffer, "batchSize", 500);
+        ReflectionTestUtils.setField(buffer, "maxPending", maxPending);
+        buffer.initMetrics();
+        return buffer;
+    }
+
+    private WeatherCurrentDTO.CurrentBlock current(double temperature, double rain) {
+        WeatherCurrentDTO.CurrentBlock cur = new WeatherCurrentDTO.CurrentBlock();
+        cur.setTemperature2m(temperature);
+        cur.setRain(rain);
+        cur.setRelativeHumidity2m(80);
+        return cur;
+    }
+}
@@ -0,0 +1,63 @@
+package com.team6.floodcoord.utils;
+
+import com.team6.floodcoord.service.SosRateLimiter;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SosRateLimitFilterTest {
+
+    private SosRateLimiter limiter;
+    private HandlerExceptionResolver exceptionResolver;
+    private SosRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = mock(SosRateLimiter.class);
+        exceptionResolver = mock(HandlerExceptionResolver.class);
+        filter = new SosRateLimitFilter(limiter, exceptionResolver);
+    }
+
+    @Test
+    void rejectedIpNeverReachesMultipartParsing() throws Exception {
+        SosRateLimiter.RateLimitExceededException rejected =
+                new SosRateLimiter.RateLimitExceededException(SosRateLimiter.Policy.CREATE_PER_IP, Duration.ofSeconds(5));
+        doThrow(rejected).when(limiter).precheckCreate("203.0.113.7");
+        MockHttpServletRequest request = request("POST", "/api/rescue-requests");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilter(request, response, chain);
+
+        verify(exceptionResolver).resolveException(eq(request), eq(response), any(), eq(rejected));
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    void onlyTheSosEndpointsAreChecked() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilter(request("GET", "/api/rescue-requests/track"), new MockHttpServletResponse(), chain);
+        filter.doFilter(request("GET", "/api/rescue-requests/my-requests"), new MockHttpServletResponse(), chain);
+        filter.doFilter(request("POST", "/api/rescue-requests/claim"), new MockHttpServletResponse(), chain);
+
+        verify(limiter).checkTrack("203.0.113.7");
+        verifyNoMoreInteractions(limiter);
+        verify(chain, times(3)).doFilter(any(), any());
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr("203.0.113.7");
+        return request;
+    }
+}
@@ -0,0 +1,104 @@
+package com.team6.floodcoord.utils;
+
+import com.team6.floodcoord.dto.RiskLevelDTO;
+import com.team6.floodcoord.model.MonitoredLocation;
+import com.team6.floodcoord.model.enums.RiskLevel;
+import com.team6.floodcoord.service.AlertService;
+import com.team6.floodcoord.service.MonitoredLocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.*;
+
+class WeatherPollingSchedulerTest {
+
+    private static final int LOCATIONS = 24;
+    private static final int MAX_CONCURRENCY = 6;
+
+    private AlertService alertService;
+    private SimpleMeterRegistry meterRegistry;
+    private WeatherPollingScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        alertService = mock(AlertService.class);
+        MonitoredLocationService locationService = mock(MonitoredLocationService.class);
+        when(locationService.getActiveLocations()).thenReturn(IntStream.range(0, LOCATIONS)
+                .mapToObj(i -> MonitoredLocation.builder()
+                        .id((long) i).name("P" + i).latitude(10.0 + i).longitude(106.0).build())
+                .toList());
+
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new WeatherPollingScheduler(alertService, locationService, meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "schedulerEnabled", true);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrency", MAX_CONCURRENCY);
+        ReflectionTestUtils.setField(scheduler, "locationTimeout", Duration.ofSeconds(2));
+        scheduler.initMetrics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void cycleRunsLocationsInParallelWithinConcurrencyBound() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(alertService.refreshRisk(anyDouble(), anyDouble())).thenAnswer(inv -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(100);
+            running.decrementAndGet();
+            return risk();
+        });
+
+        long started = System.nanoTime();
+        scheduler.pollAllLocations();
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+        // Tuần tự sẽ mất 24 x 100ms; song song 6 => ~4 đợt
+        assertThat(elapsedMs).isLessThan(LOCATIONS * 100 / 2);
+        assertThat(peak.get()).isEqualTo(MAX_CONCURRENCY);
+        verify(alertService, times(LOCATIONS)).refreshRisk(anyDouble(), anyDouble());
+        assertThat(meterRegistry.get("weather.poll.locations").tag("result", "success").counter().count())
+                .isEqualTo(LOCATIONS);
+        assertThat(meterRegistry.get("weather.poll.cycle.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void slowAndFailingLocationsDoNotBlockTheCycle() {
+        ReflectionTestUtils.setField(scheduler, "locationTimeout", Duration.ofMillis(200));
+        when(alertService.refreshRisk(anyDouble(), anyDouble())).thenAnswer(inv -> {
+            double lat = inv.getArgument(0);
+            if (lat == 10.0) {
+                Thread.sleep(10_000);
+            }
+            if (lat == 11.0) {
+                throw new IllegalStateException("Open-Meteo 500");
+            }
+            return risk();
+        });
+
+        long started = System.nanoTime();
+        scheduler.pollAllLocations();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(meterRegistry.get("weather.poll.locations").tag("result", "timeout").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("weather.poll.locations").tag("result", "failed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("weather.poll.locations").tag("result", "success").counter().count())
+                .isEqualTo(LOCATIONS - 2);
+    }
+
+    private RiskLevelDTO risk() {
+        return RiskLevelDTO.builder().riskLevel(RiskLevel.LOW).riverDischarge(0.0).currentPrecipitation(0.0).build();
+    }
+}